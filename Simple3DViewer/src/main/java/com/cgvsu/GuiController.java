@@ -2,12 +2,18 @@ package com.cgvsu;
 
 import com.cgvsu.affinetransformation.AffineTransformation;
 import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderMode;
 import javafx.fxml.FXML;
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.scene.canvas.Canvas;
+import javafx.scene.control.Alert;
+import javafx.scene.control.CheckMenuItem;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 import javafx.stage.FileChooser;
@@ -16,10 +22,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.io.IOException;
 import java.io.File;
-import javax.vecmath.Vector3f;
+import io.github.annusshka.Math.Vector.Vector3f;
 
+import com.cgvsu.model.MeshStorage;
 import com.cgvsu.model.Model;
+import com.cgvsu.model.TransformHistory;
+import com.cgvsu.objreader.ModelCache;
 import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objreader.ObjReaderListener;
 import com.cgvsu.objwriter.ObjWriter;
 import com.cgvsu.render_engine.Camera;
 
@@ -33,16 +43,32 @@ public class GuiController {
     @FXML
     private Canvas canvas;
 
+    @FXML
+    private ProgressBar loadingProgressBar;
+
+    @FXML
+    private MenuItem cancelLoadingMenuItem;
+
+    @FXML
+    private CheckMenuItem solidMenuItem;
+
+    @FXML
+    private CheckMenuItem backFaceCullingMenuItem;
+
     private Model mesh = null;
-    private Model prevMesh = null;
+    private final TransformHistory transformHistory = new TransformHistory();
 
     private Camera camera = new Camera(
             new Vector3f(0, 00, 100),
             new Vector3f(0, 0, 0),
             1.0F, 1, 0.01F, 100);
 
+    private final RenderEngine renderEngine = new RenderEngine();
+
     private Timeline timeline;
 
+    private ModelLoadingTask loadingTask = null;
+
     @FXML
     private void initialize() {
         anchorPane.prefWidthProperty().addListener((ov, oldValue, newValue) -> canvas.setWidth(newValue.doubleValue()));
@@ -55,11 +81,11 @@ public class GuiController {
             double width = canvas.getWidth();
             double height = canvas.getHeight();
 
-            canvas.getGraphicsContext2D().clearRect(0, 0, width, height);
             camera.setAspectRatio((float) (width / height));
 
+            // Кадр перерисовывается, только если изменились камера, модель или размер Canvas
             if (mesh != null) {
-                RenderEngine.render(canvas.getGraphicsContext2D(), camera, mesh, (int) width, (int) height);
+                renderEngine.render(canvas.getGraphicsContext2D(), camera, mesh, (int) width, (int) height);
             }
         });
 
@@ -80,12 +106,103 @@ public class GuiController {
 
         Path fileName = Path.of(file.getAbsolutePath());
 
-        try {
-            String fileContent = Files.readString(fileName);
-            mesh = ObjReader.read(fileContent);
-            // todo: обработка ошибок
-        } catch (IOException exception) {
+        if (loadingTask != null) {
+            loadingTask.cancel();
+        }
+        final ModelLoadingTask task = new ModelLoadingTask(fileName);
+        task.setOnSucceeded(event -> {
+            // Модель подменяется целиком в потоке JavaFX, поэтому цикл отрисовки видит либо старую, либо новую модель
+            mesh = task.getValue();
+            transformHistory.clear();
+            finishLoading(task);
+        });
+        task.setOnFailed(event -> {
+            finishLoading(task);
+            showError("Failed to load model", task.getException());
+        });
+        task.setOnCancelled(event -> finishLoading(task));
+
+        loadingTask = task;
+        loadingProgressBar.progressProperty().bind(task.progressProperty());
+        loadingProgressBar.setVisible(true);
+        cancelLoadingMenuItem.setDisable(false);
+
+        Thread loadingThread = new Thread(task, "model-loading");
+        loadingThread.setDaemon(true);
+        loadingThread.start();
+    }
+
+    @FXML
+    private void onSolidMenuItemClick() {
+        renderEngine.setRenderMode(solidMenuItem.isSelected() ? RenderMode.SOLID : RenderMode.WIREFRAME);
+    }
+
+    @FXML
+    private void onBackFaceCullingMenuItemClick() {
+        renderEngine.setBackFaceCulling(backFaceCullingMenuItem.isSelected());
+    }
 
+    @FXML
+    private void onCancelLoadingMenuItemClick() {
+        if (loadingTask != null) {
+            loadingTask.cancel();
+        }
+    }
+
+    private void finishLoading(final ModelLoadingTask task) {
+        // Отменённая задача может завершиться уже после того, как запустили следующую
+        if (loadingTask != task) {
+            return;
+        }
+        loadingProgressBar.progressProperty().unbind();
+        loadingProgressBar.setVisible(false);
+        cancelLoadingMenuItem.setDisable(true);
+        loadingTask = null;
+    }
+
+    private void showError(final String header, final Throwable exception) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.initOwner(canvas.getScene().getWindow());
+        alert.setTitle("Error");
+        alert.setHeaderText(header);
+        alert.setContentText(exception == null ? "Unknown error" : exception.getMessage());
+        alert.show();
+    }
+
+    /**
+     * Читает модель в фоновом потоке. Task сам реализует isCancelled из ObjReaderListener,
+     * поэтому отмена задачи прерывает разбор файла или загрузку его снимка из кэша.
+     */
+    private static class ModelLoadingTask extends Task<Model> implements ObjReaderListener {
+        // Двоичная сетка занимает примерно половину текста OBJ, так что такой файл займёт до восьмой части кучи
+        private static final int OFF_HEAP_FILE_SIZE_DIVISOR = 4;
+
+        private final Path fileName;
+
+        ModelLoadingTask(final Path fileName) {
+            this.fileName = fileName;
+        }
+
+        @Override
+        protected Model call() throws IOException {
+            updateProgress(0, 1);
+            return ObjReader.readParallel(
+                    fileName, this, chooseStorage(Files.size(fileName)), ModelCache.getDefault());
+        }
+
+        /**
+         * Модели, которые могут занять заметную часть кучи, читаются в отображённые в память файлы
+         */
+        private static MeshStorage chooseStorage(final long fileSize) {
+            if (fileSize > Runtime.getRuntime().maxMemory() / OFF_HEAP_FILE_SIZE_DIVISOR) {
+                return MeshStorage.mapped(Path.of(System.getProperty("java.io.tmpdir"), "simple3dviewer-mesh"));
+            }
+            return MeshStorage.heap();
+        }
+
+        @Override
+        public void onProgress(long bytesConsumed, long bytesTotal, long linesParsed) {
+            updateProgress(bytesConsumed, bytesTotal);
         }
     }
 
@@ -104,7 +221,8 @@ public class GuiController {
 
         try {
             ObjWriter.createObjFile(fileName.toString());
-            ObjWriter.writeToFile(mesh, file);
+            // Смещение, поворот и масштаб записываются в вершины сохраняемой копии
+            ObjWriter.writeToFileParallel(AffineTransformation.bakeTransform(mesh), file);
             // todo: обработка ошибок
         } catch (IOException exception) {
 
@@ -116,30 +234,24 @@ public class GuiController {
         if(mesh == null){
             return;
         }
-        if(prevMesh == null) {
-            prevMesh = new Model();
-            prevMesh.vertices.addAll(mesh.vertices);
-            prevMesh.textureVertices.addAll(mesh.textureVertices);
-            prevMesh.normals.addAll(mesh.normals);
-            prevMesh.polygons.addAll(mesh.polygons);
-        }
-        mesh = AffineTransformation.modelTransform(mesh,
-                new io.github.annusshka.Math.Vector.Vector3f(new float[]{2, 3, 4}),
-                new io.github.annusshka.Math.Vector.Vector3f(new float[]{90, 0, 0}),
-                new io.github.annusshka.Math.Vector.Vector3f(new float[]{2, 2, 2}));
+        // Меняется только преобразование модели, вершины остаются прежними до сохранения.
+        // Каждое нажатие применяется к уже преобразованной модели, как modelTransform к её вершинам
+        transformHistory.record(mesh.getTransform());
+        mesh.getTransform().apply(new Vector3f(2, 3, 4), new Vector3f(90, 0, 0), new Vector3f(2, 2, 2));
     }
 
     @FXML
     public void onUndoTransformingMenuItemClick(){
-        if(prevMesh == null){
-            return;
+        if(mesh != null){
+            transformHistory.undo(mesh.getTransform());
+        }
+    }
+
+    @FXML
+    public void onRedoTransformingMenuItemClick(){
+        if(mesh != null){
+            transformHistory.redo(mesh.getTransform());
         }
-        mesh = new Model();
-        mesh.vertices.addAll(prevMesh.vertices);
-        mesh.textureVertices.addAll(prevMesh.textureVertices);
-        mesh.normals.addAll(prevMesh.normals);
-        mesh.polygons.addAll(prevMesh.polygons);
-        prevMesh = null;
     }
 
     @FXML
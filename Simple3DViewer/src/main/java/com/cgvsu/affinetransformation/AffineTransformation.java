@@ -1,10 +1,12 @@
 package com.cgvsu.affinetransformation;
 
+import com.cgvsu.model.MeshData;
 import com.cgvsu.model.Model;
+import com.cgvsu.model.ModelTransform;
 
-import io.github.annusshka.Math.Matrix.Matrix;
 import io.github.annusshka.Math.Matrix.Matrix3f;
 import io.github.annusshka.Math.Matrix.Matrix4f;
+import io.github.annusshka.Math.Scratch;
 import io.github.annusshka.Math.Vector.Vector3f;
 import io.github.annusshka.Math.Vector.Vector4f;
 
@@ -20,7 +22,8 @@ public class AffineTransformation {
     }
 
     /**
-     * Применяет аффинные преобразования к модели, используя заданные параметры
+     * Применяет аффинные преобразования к копии модели, используя заданные параметры.
+     * Исходная модель не меняется, преобразовать саму модель можно методом transformInPlace
      * @param model Исходная модель
      * @param translation Параметры смещения
      * @param rotation Параметры вращения
@@ -28,82 +31,178 @@ public class AffineTransformation {
      * @return Преобразованная модель
      */
     public static Model modelTransform(Model model, Vector3f translation, Vector3f rotation, Vector3f scaling){
-        //Scaling
-        //Rotation
-        //Translation
-        Model result = new Model();
-        for (int i = 0; i < model.vertices.size(); i++) {
-            Vector3f vertex = new Vector3f(new float[]{model.vertices.get(i).x, model.vertices.get(i).y, model.vertices.get(i).z});
-            vertex = vertexScaling(vertex, scaling);
-            vertex = vertexRotation(vertex, rotation);
-            vertex = vertexTranslation(vertex, translation);
-            result.addVertex(vertex.get(0), vertex.get(1), vertex.get(2));
-        }
-        for (int i = 0; i < model.normals.size(); i++) {
-            Vector3f normal = new Vector3f(new float[]{model.vertices.get(i).x, model.vertices.get(i).y, model.vertices.get(i).z});
-            normal = normalScaling(normal, scaling);
-            normal = normalRotation(normal, rotation);
-            normal = normalTranslation(normal, translation);
-            result.addNormal(normal.get(0), normal.get(1), normal.get(2));
+        final MeshData source = model.getMeshData();
+        Model result = new Model(new MeshData(source.getStorage()));
+        result.getMeshData().addAll(source);
+        transformInPlace(result, translation, rotation, scaling);
+        return result;
+    }
+
+    /**
+     * Применяет аффинные преобразования к самой модели, не создавая новых объектов на вершины.
+     * Вершины и нормали больших моделей преобразуются на нескольких ядрах
+     * @param model Модель
+     * @param translation Параметры смещения
+     * @param rotation Параметры вращения
+     * @param scaling Параметры масштабирования
+     */
+    public static void transformInPlace(Model model, Vector3f translation, Vector3f rotation, Vector3f scaling){
+        transformMeshData(model.getMeshData(),
+                createModelMatrix(translation, rotation, scaling), createNormalMatrix(rotation, scaling));
+    }
+
+    /**
+     * Записывает преобразование модели в вершины и нормали её копии
+     * @param model Модель со смещением, поворотом и масштабом в getTransform
+     * @return Копия модели с преобразованными вершинами и тождественным преобразованием
+     */
+    public static Model bakeTransform(Model model){
+        final MeshData source = model.getMeshData();
+        Model result = new Model(new MeshData(source.getStorage()));
+        result.getMeshData().addAll(source);
+        if (!model.getTransform().isIdentity()) {
+            transformMeshData(result.getMeshData(),
+                    createModelMatrix(model.getTransform()), createNormalMatrix(model.getTransform()));
         }
-        result.textureVertices.addAll(model.textureVertices);
-        result.polygons.addAll(model.polygons);
         return result;
     }
 
     /**
-     * Смещает нормаль, используя заданные параметры
+     * Преобразует вершины и нормали сетки на месте
+     * @param meshData Сетка
+     * @param modelMatrix Матрица модели 4х4, вершина умножается на неё как столбец (x, y, z, 1)
+     * @param normalMatrix Матрица нормалей 3х3
+     */
+    public static void transformMeshData(MeshData meshData, Matrix4f modelMatrix, Matrix3f normalMatrix){
+        final float[] n = normalMatrix.getVector();
+        meshData.transform(modelMatrix, new Matrix4f(new float[]{
+                n[0], n[1], n[2], 0,
+                n[3], n[4], n[5], 0,
+                n[6], n[7], n[8], 0,
+                0, 0, 0, 1
+        }));
+    }
+
+    /**
+     * Создает матрицу модели по преобразованию модели
+     * @param transform Преобразование модели
+     * @return Матрица модели
+     */
+    public static Matrix4f createModelMatrix(ModelTransform transform){
+        return transform.getModelMatrix(new Matrix4f());
+    }
+
+    /**
+     * Создает матрицу нормалей по преобразованию модели
+     * @param transform Преобразование модели
+     * @return Матрица нормалей
+     */
+    public static Matrix3f createNormalMatrix(ModelTransform transform){
+        return transform.getNormalMatrix(new Matrix3f());
+    }
+
+    /**
+     * Создает матрицу модели T * Rz * Ry * Rx * S: масштабирование, вращение вокруг осей x, y, z и смещение,
+     * в том же порядке, в каком их применяют vertexScaling, vertexRotation и vertexTranslation
+     * @param translation Параметры смещения
+     * @param rotation Параметры вращения
+     * @param scaling Параметры масштабирования
+     * @return Матрица модели
+     */
+    public static Matrix4f createModelMatrix(Vector3f translation, Vector3f rotation, Vector3f scaling){
+        final float[] linear = createLinearPart(rotation, createScalingMatrix(scaling)).getVector();
+        return new Matrix4f(new float[]{
+                linear[0], linear[1], linear[2], translation.getVector()[0],
+                linear[3], linear[4], linear[5], translation.getVector()[1],
+                linear[6], linear[7], linear[8], translation.getVector()[2],
+                0, 0, 0, 1
+        });
+    }
+
+    /**
+     * Создает матрицу нормалей - обратную транспонированную к линейной части матрицы модели.
+     * Матрица вращения ортогональна, поэтому это Rz * Ry * Rx * S^-1. Смещение нормали не меняет.
+     * Если масштаб по одной из осей нулевой, нормали только вращаются, как и в normalScaling
+     * @param rotation Параметры вращения
+     * @param scaling Параметры масштабирования
+     * @return Матрица нормалей
+     */
+    public static Matrix3f createNormalMatrix(Vector3f rotation, Vector3f scaling){
+        final float[] scale = scaling.getVector();
+        final Matrix3f inverseScaling = new Matrix3f(scale[0] == 0 || scale[1] == 0 || scale[2] == 0
+                ? new float[]{1, 0, 0, 0, 1, 0, 0, 0, 1}
+                : new float[]{1 / scale[0], 0, 0, 0, 1 / scale[1], 0, 0, 0, 1 / scale[2]});
+        return createLinearPart(rotation, inverseScaling);
+    }
+
+    /**
+     * @return Rz * Ry * Rx * scaling, записанное в новую матрицу scaling не меняется
+     */
+    private static Matrix3f createLinearPart(Vector3f rotation, Matrix3f scaling){
+        Matrix3f[] rotationMatrix = createRotationMatrix(rotation);
+        Matrix3f result = Matrix3f.mul(rotationMatrix[0], scaling, new Matrix3f());
+        Matrix3f.mul(rotationMatrix[1], result, result);
+        return Matrix3f.mul(rotationMatrix[2], result, result);
+    }
+
+    /**
+     * Смещает нормаль, используя заданные параметры.
+     * Матрица смещения всегда обратима: обратная к ней - смещение на противоположный вектор
      * @param normal нормаль
      * @param translation Параметры смещения
      * @return Полученная нормаль
      */
     public static Vector3f normalTranslation(Vector3f normal, Vector3f translation){
-        Vector3f result;
-        Matrix4f translationMatrix = createTranslationMatrix(translation);
-        try {
-            Vector4f tempVector = new Vector4f(new float[]{normal.get(0), normal.get(1), normal.get(2), 1});
-            tempVector = (Vector4f) (Matrix.transposeMatrix(Matrix.getInverseMatrix(translationMatrix))).multiplicateOnVector(tempVector);
-            result = new Vector3f(new float[]{tempVector.get(0), tempVector.get(1), tempVector.get(2)});
-            return result;
-        } catch (Exception e) {
-            return normal;
-        }
+        return normalTranslation(normal, translation, new Vector3f());
     }
 
     /**
-     * Вращает нормаль, используя заданные параметры
+     * Смещает нормаль и записывает результат в dst. dst может совпадать с normal
+     * @param normal нормаль
+     * @param translation Параметры смещения
+     * @param dst Полученная нормаль
+     * @return dst
+     */
+    public static Vector3f normalTranslation(Vector3f normal, Vector3f translation, Vector3f dst){
+        final Scratch scratch = Scratch.get();
+        final Vector3f inverseTranslation = Vector3f.scale(translation, -1, scratch.vector3);
+        Matrix4f normalMatrix = Matrix4f.transpose(
+                createTranslationMatrix(inverseTranslation, scratch.matrix4), scratch.matrix4);
+        Vector4f tempVector = scratch.vector4.set(normal.get(0), normal.get(1), normal.get(2), 1);
+        normalMatrix.transform(tempVector, tempVector);
+        return dst.set(tempVector.get(0), tempVector.get(1), tempVector.get(2));
+    }
+
+    /**
+     * Вращает нормаль, используя заданные параметры.
+     * Матрица поворота ортогональна, поэтому транспонированная обратная к ней совпадает с ней самой
      * @param normal нормаль
      * @param rotation Параметры вращения
      * @return Полученная нормаль
      */
     public static Vector3f normalRotation(Vector3f normal, Vector3f rotation){
         Vector3f result = new Vector3f(new float[]{normal.get(0), normal.get(1), normal.get(2)});
-        Matrix3f[] rotationMatrix = createRotationMatrix(rotation);
-        try {
-            result = (Vector3f) (Matrix.transposeMatrix(Matrix.getInverseMatrix(rotationMatrix[0]))).multiplicateOnVector(result);
-            result = (Vector3f) (Matrix.transposeMatrix(Matrix.getInverseMatrix(rotationMatrix[1]))).multiplicateOnVector(result);
-            result = (Vector3f) (Matrix.transposeMatrix(Matrix.getInverseMatrix(rotationMatrix[2]))).multiplicateOnVector(result);
-            return result;
-        } catch (Exception e) {
-            return normal;
+        for (Matrix3f matrix : createRotationMatrix(rotation)) {
+            matrix.transform(result, result);
         }
+        return result;
     }
 
     /**
-     * Масштабирует нормаль, используя заданные параметры
+     * Масштабирует нормаль, используя заданные параметры.
+     * Если масштаб по какой-то оси равен нулю, нормаль не меняется
      * @param normal нормаль
      * @param scaling Параметры масштабирования
      * @return Полученная нормаль
      */
     public static Vector3f normalScaling(Vector3f normal, Vector3f scaling){
-        Vector3f result;
-        Matrix3f scalingMatrix = createScalingMatrix(scaling);
-        try {
-            result = (Vector3f) (Matrix.transposeMatrix(Matrix.getInverseMatrix(scalingMatrix))).multiplicateOnVector(normal);
-            return result;
-        } catch (Exception e) {
+        final float x = scaling.get(0);
+        final float y = scaling.get(1);
+        final float z = scaling.get(2);
+        if (x == 0 || y == 0 || z == 0) {
             return normal;
         }
+        return new Vector3f().set(normal.get(0) / x, normal.get(1) / y, normal.get(2) / z);
     }
 
     /**
@@ -113,16 +212,22 @@ public class AffineTransformation {
      * @return Полученная вершина
      */
     public static Vector3f vertexTranslation(Vector3f vertex, Vector3f translation){
-        Vector3f result;
-        Matrix4f translationMatrix = createTranslationMatrix(translation);
-        try {
-            Vector4f tempVector = new Vector4f(new float[]{vertex.get(0), vertex.get(1), vertex.get(2), 1});
-            tempVector = (Vector4f) translationMatrix.multiplicateOnVector(tempVector);
-            result = new Vector3f(new float[]{tempVector.get(0), tempVector.get(1), tempVector.get(2)});
-            return result;
-        } catch (Exception e) {
-            return vertex;
-        }
+        return vertexTranslation(vertex, translation, new Vector3f());
+    }
+
+    /**
+     * Смещает вершину и записывает результат в dst. dst может совпадать с vertex
+     * @param vertex Вершина
+     * @param translation Параметры смещения
+     * @param dst Полученная вершина
+     * @return dst
+     */
+    public static Vector3f vertexTranslation(Vector3f vertex, Vector3f translation, Vector3f dst){
+        final Scratch scratch = Scratch.get();
+        Matrix4f translationMatrix = createTranslationMatrix(translation, scratch.matrix4);
+        Vector4f tempVector = scratch.vector4.set(vertex.get(0), vertex.get(1), vertex.get(2), 1);
+        translationMatrix.transform(tempVector, tempVector);
+        return dst.set(tempVector.get(0), tempVector.get(1), tempVector.get(2));
     }
 
     /**
@@ -133,15 +238,10 @@ public class AffineTransformation {
      */
     public static Vector3f vertexRotation(Vector3f vertex, Vector3f rotation){
         Vector3f result = new Vector3f(new float[]{vertex.get(0), vertex.get(1), vertex.get(2)});
-        Matrix3f[] rotationMatrix = createRotationMatrix(rotation);
-        try {
-            result = (Vector3f) rotationMatrix[0].multiplicateOnVector(result);
-            result = (Vector3f) rotationMatrix[1].multiplicateOnVector(result);
-            result = (Vector3f) rotationMatrix[2].multiplicateOnVector(result);
-            return result;
-        } catch (Exception e) {
-            return vertex;
+        for (Matrix3f matrix : createRotationMatrix(rotation)) {
+            matrix.transform(result, result);
         }
+        return result;
     }
 
     /**
@@ -151,14 +251,7 @@ public class AffineTransformation {
      * @return Полученная вершина
      */
     public static Vector3f vertexScaling(Vector3f vertex, Vector3f scaling){
-        Vector3f result;
-        Matrix3f scalingMatrix = createScalingMatrix(scaling);
-        try {
-            result = (Vector3f) scalingMatrix.multiplicateOnVector(vertex);
-            return result;
-        } catch (Exception e) {
-            return vertex;
-        }
+        return createScalingMatrix(scaling).transform(vertex, new Vector3f());
     }
 
     /**
@@ -167,12 +260,21 @@ public class AffineTransformation {
      * @return Матрица смещения для каждой из осей
      */
     public static Matrix4f createTranslationMatrix(Vector3f translation){
-        return new Matrix4f(new float[]{
-                1, 0, 0, translation.getVector()[0],
-                0, 1, 0, translation.getVector()[1],
-                0, 0, 1, translation.getVector()[2],
-                0, 0, 0, 1
-        });
+        return createTranslationMatrix(translation, new Matrix4f());
+    }
+
+    /**
+     * Записывает матрицу смещения в dst
+     * @param translation Параметры смещения
+     * @param dst Матрица смещения
+     * @return dst
+     */
+    public static Matrix4f createTranslationMatrix(Vector3f translation, Matrix4f dst){
+        final float[] m = dst.setIdentity().getVector();
+        m[3] = translation.get(0);
+        m[7] = translation.get(1);
+        m[11] = translation.get(2);
+        return dst;
     }
 
     /**
@@ -183,7 +285,7 @@ public class AffineTransformation {
     public static Matrix3f[] createRotationMatrix(Vector3f rotation){
         Matrix3f[] matrices = new Matrix3f[3];
         //Отсутствие поворота
-        Vector3f vector = new Vector3f(new float[]{1, 1, 1});
+        Vector3f vector = new Vector3f(new float[]{0, 0, 0});
         if(rotation.isEqual(vector)){
             Matrix3f identityMatrix = new Matrix3f(new float[]{1, 0, 0, 0, 1, 0, 0, 0, 1});
             for(int i = 0; i < 3; i++){
@@ -1,11 +1,12 @@
 package com.cgvsu.math;
 
-// Это заготовка для собственной библиотеки для работы с линейной алгеброй
+// Это заготовка для собственной библиотеки для работы с линейной алгеброй.
+// Вектор неизменяемый, как и Vector3f
 public class Vector2f {
     public Vector2f(float x, float y) {
         this.x = x;
         this.y = y;
     }
 
-    public float x, y;
+    public final float x, y;
 }
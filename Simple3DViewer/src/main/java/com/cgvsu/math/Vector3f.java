@@ -1,6 +1,8 @@
 package com.cgvsu.math;
 
-// Это заготовка для собственной библиотеки для работы с линейной алгеброй
+// Это заготовка для собственной библиотеки для работы с линейной алгеброй.
+// Вектор неизменяемый: Model.vertices и Model.normals возвращают копии из MeshData,
+// и запись в поле копии не попала бы в модель
 public class Vector3f {
     public Vector3f(float x, float y, float z) {
         this.x = x;
@@ -14,5 +16,5 @@ public class Vector3f {
         return Math.abs(x - other.x) < eps && Math.abs(y - other.y) < eps && Math.abs(z - other.z) < eps;
     }
 
-    public float x, y, z;
+    public final float x, y, z;
 }
@@ -0,0 +1,25 @@
+package com.cgvsu.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+final class DirectMeshStorage implements MeshStorage {
+
+    static final DirectMeshStorage INSTANCE = new DirectMeshStorage();
+
+    @Override
+    public FloatBuffer allocateFloats(final int capacity) {
+        return allocate(capacity).asFloatBuffer();
+    }
+
+    @Override
+    public IntBuffer allocateInts(final int capacity) {
+        return allocate(capacity).asIntBuffer();
+    }
+
+    static ByteBuffer allocate(final int capacity) {
+        return ByteBuffer.allocateDirect(4 * capacity).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,115 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+
+/**
+ * Рёбра сетки без повторов. Ребро - пара индексов вершин (меньший, больший), общее ребро соседних полигонов
+ * встречается один раз. Для каждого ребра хранятся полигоны, которым оно принадлежит (CSR, как в IndexLists),
+ * чтобы при отрисовке можно было узнать, видна ли хотя бы одна из его граней.
+ * Список строится по сетке один раз и не меняется, MeshData пересобирает его после изменения полигонов
+ */
+public final class EdgeList {
+
+    // Начало и конец ребра i лежат в элементах 2 * i и 2 * i + 1
+    private final int[] vertexIndices;
+    // Полигоны ребра i занимают элементы [polygonOffsets[i], polygonOffsets[i + 1]) массива polygonIndices
+    private final int[] polygonOffsets;
+    private final int[] polygonIndices;
+
+    private EdgeList(final int[] vertexIndices, final int[] polygonOffsets, final int[] polygonIndices) {
+        this.vertexIndices = vertexIndices;
+        this.polygonOffsets = polygonOffsets;
+        this.polygonIndices = polygonIndices;
+    }
+
+    /**
+     * Собирает рёбра полигонов без сортировки всего списка: рёбра раскладываются по корзинам по меньшей вершине,
+     * и сортируется только каждая корзина по большей вершине и номеру полигона
+     */
+    static EdgeList build(final IndexLists polygons) {
+        final int polygonCount = polygons.getListCount();
+
+        int maxVertexInd = -1;
+        for (int i = 0; i < polygons.getIndexCount(); i++) {
+            maxVertexInd = Math.max(maxVertexInd, polygons.getIndex(i));
+        }
+        final int[] bucketOffsets = new int[maxVertexInd + 2];
+        for (int polygonInd = 0; polygonInd < polygonCount; polygonInd++) {
+            final int size = polygons.getSize(polygonInd);
+            for (int i = 0; i < size; i++) {
+                final int start = polygons.get(polygonInd, i);
+                final int end = polygons.get(polygonInd, (i + 1) % size);
+                if (start != end) {
+                    ++bucketOffsets[Math.min(start, end) + 1];
+                }
+            }
+        }
+        for (int i = 1; i < bucketOffsets.length; i++) {
+            bucketOffsets[i] += bucketOffsets[i - 1];
+        }
+
+        // Старшие 32 бита - большая вершина ребра, младшие - номер полигона
+        final long[] entries = new long[bucketOffsets[bucketOffsets.length - 1]];
+        final int[] bucketFill = Arrays.copyOf(bucketOffsets, bucketOffsets.length - 1);
+        for (int polygonInd = 0; polygonInd < polygonCount; polygonInd++) {
+            final int size = polygons.getSize(polygonInd);
+            for (int i = 0; i < size; i++) {
+                final int start = polygons.get(polygonInd, i);
+                final int end = polygons.get(polygonInd, (i + 1) % size);
+                if (start != end) {
+                    entries[bucketFill[Math.min(start, end)]++] = ((long) Math.max(start, end) << 32) | polygonInd;
+                }
+            }
+        }
+
+        int edgeCount = 0;
+        for (int vertexInd = 0; vertexInd + 1 < bucketOffsets.length; vertexInd++) {
+            final int from = bucketOffsets[vertexInd];
+            final int to = bucketOffsets[vertexInd + 1];
+            Arrays.sort(entries, from, to);
+            for (int i = from; i < to; i++) {
+                if (i == from || (entries[i] >>> 32) != (entries[i - 1] >>> 32)) {
+                    ++edgeCount;
+                }
+            }
+        }
+
+        final int[] vertexIndices = new int[2 * edgeCount];
+        final int[] polygonOffsets = new int[edgeCount + 1];
+        final int[] polygonIndices = new int[entries.length];
+        int edgeInd = 0;
+        for (int vertexInd = 0; vertexInd + 1 < bucketOffsets.length; vertexInd++) {
+            for (int i = bucketOffsets[vertexInd]; i < bucketOffsets[vertexInd + 1]; i++) {
+                if (i == bucketOffsets[vertexInd] || (entries[i] >>> 32) != (entries[i - 1] >>> 32)) {
+                    vertexIndices[2 * edgeInd] = vertexInd;
+                    vertexIndices[2 * edgeInd + 1] = (int) (entries[i] >>> 32);
+                    polygonOffsets[edgeInd++] = i;
+                }
+                polygonIndices[i] = (int) entries[i];
+            }
+        }
+        polygonOffsets[edgeCount] = entries.length;
+
+        return new EdgeList(vertexIndices, polygonOffsets, polygonIndices);
+    }
+
+    public int size() {
+        return polygonOffsets.length - 1;
+    }
+
+    public int getStartVertexIndex(final int edgeInd) {
+        return vertexIndices[2 * edgeInd];
+    }
+
+    public int getEndVertexIndex(final int edgeInd) {
+        return vertexIndices[2 * edgeInd + 1];
+    }
+
+    public int getPolygonCount(final int edgeInd) {
+        return polygonOffsets[edgeInd + 1] - polygonOffsets[edgeInd];
+    }
+
+    public int getPolygonIndex(final int edgeInd, final int polygonInEdgeInd) {
+        return polygonIndices[polygonOffsets[edgeInd] + polygonInEdgeInd];
+    }
+}
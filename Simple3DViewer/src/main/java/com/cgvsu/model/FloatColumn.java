@@ -0,0 +1,204 @@
+package com.cgvsu.model;
+
+import io.github.annusshka.Math.Matrix.Matrix4f;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Растущий массив float без упаковки в объекты. Память выделяет MeshStorage
+ */
+final class FloatColumn {
+
+    private static final int DEFAULT_CAPACITY = 48;
+    // Столько троек преобразует одна задача transform3
+    private static final int TRIPLES_PER_TASK = 1 << 14;
+    // Буфер вне кучи не даёт доступа к массиву, поэтому тройки копируются в массив частями такого размера
+    private static final int TRIPLES_PER_CHUNK = 1 << 10;
+
+    private final MeshStorage storage;
+    private FloatBuffer data;
+    private int size;
+    // Растёт при каждом изменении, по нему можно понять, что закэшированные по массиву данные устарели
+    private long modificationCount;
+
+    FloatColumn(final MeshStorage storage) {
+        this.storage = storage;
+        data = storage.allocateFloats(DEFAULT_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    float get(final int index) {
+        return data.get(index);
+    }
+
+    void set(final int index, final float value) {
+        data.put(index, value);
+        ++modificationCount;
+    }
+
+    void add(final float value) {
+        ensureCapacity(size + 1);
+        data.put(size++, value);
+        ++modificationCount;
+    }
+
+    void add(final float x, final float y) {
+        ensureCapacity(size + 2);
+        data.put(size, x);
+        data.put(size + 1, y);
+        size += 2;
+        ++modificationCount;
+    }
+
+    void add(final float x, final float y, final float z) {
+        ensureCapacity(size + 3);
+        data.put(size, x);
+        data.put(size + 1, y);
+        data.put(size + 2, z);
+        size += 3;
+        ++modificationCount;
+    }
+
+    void addAll(final FloatColumn other) {
+        ensureCapacity(size + other.size);
+        data.put(size, other.data, 0, other.size);
+        size += other.size;
+        ++modificationCount;
+    }
+
+    /**
+     * Добавляет все элементы от position до limit буфера и сдвигает его position
+     */
+    void addAll(final FloatBuffer source) {
+        final int count = source.remaining();
+        ensureCapacity(size + count);
+        data.put(size, source, source.position(), count);
+        source.position(source.limit());
+        size += count;
+        ++modificationCount;
+    }
+
+    /**
+     * Записывает значение, не увеличивая счётчик изменений. Так место, выделенное resize,
+     * заполняют несколько потоков, каждый в свои элементы
+     */
+    void put(final int index, final float value) {
+        data.put(index, value);
+    }
+
+    /**
+     * Меняет размер массива. Новые элементы не заполняются
+     */
+    void resize(final int newSize) {
+        ensureCapacity(newSize);
+        size = newSize;
+        ++modificationCount;
+    }
+
+    void clear() {
+        size = 0;
+        ++modificationCount;
+    }
+
+    /**
+     * Преобразует на месте все тройки (x, y, z) матрицей matrix как точки или, если directions, как направления:
+     * см. Matrix4f.transformPoints и Matrix4f.transformDirections. Большие массивы делятся на части,
+     * которые преобразуются на общем ForkJoinPool
+     */
+    void transform3(final Matrix4f matrix, final boolean directions) {
+        final int tripleCount = size / 3;
+        final TransformTask task = new TransformTask(data, matrix, directions, 0, tripleCount);
+        if (tripleCount <= TRIPLES_PER_TASK) {
+            task.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+        ++modificationCount;
+    }
+
+    /**
+     * Преобразует тройки с номерами from..to-1 полной матрицей и записывает однородные координаты
+     * четвёрками в dst, начиная с dst[4 * from]. Сам массив не меняется
+     */
+    void transformProjective3(final Matrix4f matrix, final int from, final int to, final float[] dst) {
+        if (data.hasArray()) {
+            matrix.transformProjective(data.array(), data.arrayOffset() + 3 * from, dst, 4 * from, to - from);
+            return;
+        }
+        final float[] chunk = new float[3 * Math.min(to - from, TRIPLES_PER_CHUNK)];
+        for (int start = from; start < to; start += TRIPLES_PER_CHUNK) {
+            final int count = Math.min(to - start, TRIPLES_PER_CHUNK);
+            data.get(3 * start, chunk, 0, 3 * count);
+            matrix.transformProjective(chunk, 0, dst, 4 * start, count);
+        }
+    }
+
+    long getModificationCount() {
+        return modificationCount;
+    }
+
+    void ensureCapacity(final int capacity) {
+        if (capacity <= data.capacity()) {
+            return;
+        }
+        if (capacity > storage.getMaxCapacity()) {
+            throw new OutOfMemoryError("Mesh array size exceeds storage limit: " + capacity);
+        }
+        final int grownCapacity = (int) Math.min(storage.getMaxCapacity(), data.capacity() + (long) (data.capacity() >> 1));
+        data = storage.growFloats(data, size, Math.max(capacity, grownCapacity));
+    }
+
+    private static final class TransformTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FloatBuffer data;
+        private final Matrix4f matrix;
+        private final boolean directions;
+        private final int from;
+        private final int to;
+
+        TransformTask(final FloatBuffer data, final Matrix4f matrix, final boolean directions,
+                      final int from, final int to) {
+            this.data = data;
+            this.matrix = matrix;
+            this.directions = directions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TRIPLES_PER_TASK) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new TransformTask(data, matrix, directions, from, middle),
+                        new TransformTask(data, matrix, directions, middle, to));
+                return;
+            }
+
+            if (data.hasArray()) {
+                transform(data.array(), data.arrayOffset() + 3 * from, to - from);
+                return;
+            }
+            final float[] chunk = new float[3 * Math.min(to - from, TRIPLES_PER_CHUNK)];
+            for (int start = from; start < to; start += TRIPLES_PER_CHUNK) {
+                final int count = Math.min(to - start, TRIPLES_PER_CHUNK);
+                data.get(3 * start, chunk, 0, 3 * count);
+                transform(chunk, 0, count);
+                data.put(3 * start, chunk, 0, 3 * count);
+            }
+        }
+
+        private void transform(final float[] array, final int offset, final int count) {
+            if (directions) {
+                matrix.transformDirections(array, offset, array, offset, count);
+            } else {
+                matrix.transformPoints(array, offset, array, offset, count);
+            }
+        }
+    }
+}
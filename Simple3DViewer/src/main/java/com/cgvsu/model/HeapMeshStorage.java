@@ -0,0 +1,27 @@
+package com.cgvsu.model;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+final class HeapMeshStorage implements MeshStorage {
+
+    static final HeapMeshStorage INSTANCE = new HeapMeshStorage();
+
+    // Ограничение размера массивов в JVM
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    @Override
+    public FloatBuffer allocateFloats(final int capacity) {
+        return FloatBuffer.allocate(capacity);
+    }
+
+    @Override
+    public IntBuffer allocateInts(final int capacity) {
+        return IntBuffer.allocate(capacity);
+    }
+
+    @Override
+    public int getMaxCapacity() {
+        return MAX_ARRAY_SIZE;
+    }
+}
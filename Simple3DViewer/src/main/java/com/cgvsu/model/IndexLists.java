@@ -0,0 +1,101 @@
+package com.cgvsu.model;
+
+/**
+ * Списки индексов, уложенные подряд в один массив (CSR): список i занимает элементы
+ * [offsets[i], offsets[i + 1]) массива indices. Новый список набирается вызовами add и закрывается endList.
+ */
+final class IndexLists {
+
+    private final IntColumn offsets;
+    private final IntColumn indices;
+
+    IndexLists(final MeshStorage storage) {
+        offsets = new IntColumn(storage);
+        indices = new IntColumn(storage);
+        offsets.add(0);
+    }
+
+    int getListCount() {
+        return offsets.size() - 1;
+    }
+
+    int getIndexCount() {
+        return indices.size();
+    }
+
+    int getOffset(final int list) {
+        return offsets.get(list);
+    }
+
+    int getSize(final int list) {
+        return offsets.get(list + 1) - offsets.get(list);
+    }
+
+    int get(final int list, final int indexInList) {
+        return indices.get(offsets.get(list) + indexInList);
+    }
+
+    int getIndex(final int position) {
+        return indices.get(position);
+    }
+
+    void add(final int index) {
+        indices.add(index);
+    }
+
+    void endList() {
+        offsets.add(indices.size());
+    }
+
+    void set(final int list, final int[] values, final int count) {
+        final int from = offsets.get(list);
+        final int to = offsets.get(list + 1);
+        indices.replace(from, to, values, count);
+        final int delta = count - (to - from);
+        if (delta != 0) {
+            for (int i = list + 1; i < offsets.size(); i++) {
+                offsets.set(i, offsets.get(i) + delta);
+            }
+        }
+    }
+
+    void addAll(final IndexLists other) {
+        final int base = indices.size();
+        indices.addAll(other.indices, 0, 0);
+        offsets.addAll(other.offsets, 1, base);
+    }
+
+    /**
+     * Добавляет listCount списков и indexCount индексов, не заполняя их.
+     * Заполняются они методами putIndex и putListEnd
+     */
+    void grow(final int listCount, final int indexCount) {
+        offsets.resize(offsets.size() + listCount);
+        indices.resize(indices.size() + indexCount);
+    }
+
+    void putIndex(final int position, final int index) {
+        indices.put(position, index);
+    }
+
+    /**
+     * Записывает, что список list заканчивается перед элементом end
+     */
+    void putListEnd(final int list, final int end) {
+        offsets.put(list + 1, end);
+    }
+
+    long getModificationCount() {
+        return offsets.getModificationCount() + indices.getModificationCount();
+    }
+
+    void ensureCapacity(final int listCount, final int indexCount) {
+        offsets.ensureCapacity(listCount + 1);
+        indices.ensureCapacity(indexCount);
+    }
+
+    void clear() {
+        offsets.truncate(1);
+        indices.truncate(0);
+    }
+}
@@ -0,0 +1,103 @@
+package com.cgvsu.model;
+
+import java.nio.IntBuffer;
+
+/**
+ * Растущий массив int без упаковки в объекты. Память выделяет MeshStorage
+ */
+final class IntColumn {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final MeshStorage storage;
+    private IntBuffer data;
+    private int size;
+    // Растёт при каждом изменении, по нему можно понять, что закэшированные по массиву данные устарели
+    private long modificationCount;
+
+    IntColumn(final MeshStorage storage) {
+        this.storage = storage;
+        data = storage.allocateInts(DEFAULT_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(final int index) {
+        return data.get(index);
+    }
+
+    void set(final int index, final int value) {
+        data.put(index, value);
+        ++modificationCount;
+    }
+
+    void add(final int value) {
+        ensureCapacity(size + 1);
+        data.put(size++, value);
+        ++modificationCount;
+    }
+
+    /**
+     * Добавляет элементы другого массива, прибавляя к каждому delta
+     */
+    void addAll(final IntColumn other, final int from, final int delta) {
+        final int count = other.size - from;
+        ensureCapacity(size + count);
+        for (int i = 0; i < count; i++) {
+            data.put(size + i, other.data.get(from + i) + delta);
+        }
+        size += count;
+        ++modificationCount;
+    }
+
+    /**
+     * Заменяет элементы [from, to) на count новых значений, сдвигая хвост массива
+     */
+    void replace(final int from, final int to, final int[] values, final int count) {
+        final int newSize = size - (to - from) + count;
+        ensureCapacity(newSize);
+        data.put(from + count, data, to, size - to);
+        data.put(from, values, 0, count);
+        size = newSize;
+        ++modificationCount;
+    }
+
+    /**
+     * Записывает значение, не увеличивая счётчик изменений. Так место, выделенное resize,
+     * заполняют несколько потоков, каждый в свои элементы
+     */
+    void put(final int index, final int value) {
+        data.put(index, value);
+    }
+
+    /**
+     * Меняет размер массива. Новые элементы не заполняются
+     */
+    void resize(final int newSize) {
+        ensureCapacity(newSize);
+        size = newSize;
+        ++modificationCount;
+    }
+
+    void truncate(final int newSize) {
+        size = newSize;
+        ++modificationCount;
+    }
+
+    long getModificationCount() {
+        return modificationCount;
+    }
+
+    void ensureCapacity(final int capacity) {
+        if (capacity <= data.capacity()) {
+            return;
+        }
+        if (capacity > storage.getMaxCapacity()) {
+            throw new OutOfMemoryError("Mesh array size exceeds storage limit: " + capacity);
+        }
+        final int grownCapacity = (int) Math.min(storage.getMaxCapacity(), data.capacity() + (long) (data.capacity() >> 1));
+        data = storage.growInts(data, size, Math.max(capacity, grownCapacity));
+    }
+}
@@ -0,0 +1,98 @@
+package com.cgvsu.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+final class MappedMeshStorage implements MeshStorage {
+
+    // Маленькие буферы не стоят отдельного файла, они выделяются вне кучи без отображения
+    private static final int MIN_MAPPED_CAPACITY = 1 << 18;
+
+    private final Path directory;
+    // Файл каждого отображённого буфера, чтобы при росте отобразить тот же файл заново, а не создавать новый.
+    // Канал держит файл открытым: где файл удалён сразу после открытия, другого доступа к нему нет
+    private final Map<Buffer, FileChannel> channels = new IdentityHashMap<>();
+
+    MappedMeshStorage(final Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public synchronized FloatBuffer allocateFloats(final int capacity) {
+        if (capacity < MIN_MAPPED_CAPACITY) {
+            return DirectMeshStorage.allocate(capacity).asFloatBuffer();
+        }
+        final FileChannel channel = createFile();
+        return register(map(channel, capacity).asFloatBuffer(), channel);
+    }
+
+    @Override
+    public synchronized IntBuffer allocateInts(final int capacity) {
+        if (capacity < MIN_MAPPED_CAPACITY) {
+            return DirectMeshStorage.allocate(capacity).asIntBuffer();
+        }
+        final FileChannel channel = createFile();
+        return register(map(channel, capacity).asIntBuffer(), channel);
+    }
+
+    /**
+     * Файл отображённого буфера отображается заново с большим размером. Данные уже лежат в файле,
+     * поэтому ничего не копируется, а прежнее отображение того же файла не занимает места на диске
+     */
+    @Override
+    public synchronized FloatBuffer growFloats(final FloatBuffer buffer, final int size, final int capacity) {
+        final FileChannel channel = channels.remove(buffer);
+        if (channel == null) {
+            return MeshStorage.super.growFloats(buffer, size, capacity);
+        }
+        return register(map(channel, capacity).asFloatBuffer(), channel);
+    }
+
+    @Override
+    public synchronized IntBuffer growInts(final IntBuffer buffer, final int size, final int capacity) {
+        final FileChannel channel = channels.remove(buffer);
+        if (channel == null) {
+            return MeshStorage.super.growInts(buffer, size, capacity);
+        }
+        return register(map(channel, capacity).asIntBuffer(), channel);
+    }
+
+    private <T extends Buffer> T register(final T buffer, final FileChannel channel) {
+        channels.put(buffer, channel);
+        return buffer;
+    }
+
+    /**
+     * DELETE_ON_CLOSE удаляет файл сразу после открытия там, где открытый файл можно удалить. В Windows файл
+     * удаляется, когда закрыт канал и освобождены все отображения, то есть после сборки мусора
+     */
+    private FileChannel createFile() {
+        try {
+            Files.createDirectories(directory);
+            final Path file = Files.createTempFile(directory, "mesh", ".bin");
+            return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer map(final FileChannel channel, final int capacity) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, 4L * capacity).order(ByteOrder.nativeOrder());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
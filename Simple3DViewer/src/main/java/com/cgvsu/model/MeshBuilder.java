@@ -0,0 +1,25 @@
+package com.cgvsu.model;
+
+/**
+ * Куда добавляются элементы сетки по мере чтения: сама MeshData или её заранее выделенная часть,
+ * которую заполняет MeshData.Writer
+ */
+public interface MeshBuilder {
+
+    void addVertex(float x, float y, float z);
+
+    void addTextureVertex(float x, float y);
+
+    void addNormal(float x, float y, float z);
+
+    void addPolygonVertexIndex(int vertexInd);
+
+    void addPolygonTextureVertexIndex(int textureVertexInd);
+
+    void addPolygonNormalIndex(int normalInd);
+
+    /**
+     * Закрывает полигон, индексы которого были добавлены после предыдущего вызова
+     */
+    void endPolygon();
+}
@@ -0,0 +1,427 @@
+package com.cgvsu.model;
+
+import io.github.annusshka.Math.Matrix.Matrix4f;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Компактное хранение сетки модели: координаты лежат подряд в массивах float (x, y, z для вершин и нормалей,
+ * x, y для текстурных вершин), индексы полигонов - в массивах int со смещениями начала каждого полигона.
+ * Объектов на вершину или индекс не создаётся, поэтому сетка занимает в несколько раз меньше памяти,
+ * чем списки Vector3f и Integer. Model показывает эти данные через привычные списки.
+ * Где лежат массивы - в куче, вне кучи или в отображённых в память файлах - решает MeshStorage.
+ *
+ * Полигон добавляется так: индексы вершин, текстурных вершин и нормалей передаются методами
+ * addPolygonVertexIndex, addPolygonTextureVertexIndex и addPolygonNormalIndex, затем вызывается endPolygon.
+ * Если число элементов известно заранее, сетку можно увеличить методом grow и заполнять её части
+ * из нескольких потоков через writer.
+ */
+public class MeshData implements MeshBuilder {
+
+    private final MeshStorage storage;
+    final FloatColumn vertices;
+    final FloatColumn textureVertices;
+    final FloatColumn normals;
+    final IndexLists vertexIndices;
+    final IndexLists textureVertexIndices;
+    final IndexLists normalIndices;
+
+    // Ограничивающий параллелепипед вершин и число изменений вершин, для которого он посчитан
+    private final float[] bounds = new float[6];
+    private long boundsModificationCount = -1;
+    // Рёбра без повторов и число изменений индексов вершин полигонов, для которого они собраны
+    private EdgeList edges;
+    private long edgesModificationCount = -1;
+
+    public MeshData() {
+        this(MeshStorage.heap());
+    }
+
+    /**
+     * @param storage откуда выделяется память под массивы сетки
+     */
+    public MeshData(final MeshStorage storage) {
+        this.storage = storage;
+        vertices = new FloatColumn(storage);
+        textureVertices = new FloatColumn(storage);
+        normals = new FloatColumn(storage);
+        vertexIndices = new IndexLists(storage);
+        textureVertexIndices = new IndexLists(storage);
+        normalIndices = new IndexLists(storage);
+    }
+
+    public MeshStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * @return число, которое растёт при любом изменении сетки. По нему удобно проверять,
+     * устарели ли посчитанные по сетке данные
+     */
+    public long getModificationCount() {
+        return vertices.getModificationCount() + textureVertices.getModificationCount()
+                + normals.getModificationCount() + vertexIndices.getModificationCount()
+                + textureVertexIndices.getModificationCount() + normalIndices.getModificationCount();
+    }
+
+    public int getVertexCount() {
+        return vertices.size() / 3;
+    }
+
+    public float getVertexX(final int vertexInd) {
+        return vertices.get(3 * vertexInd);
+    }
+
+    public float getVertexY(final int vertexInd) {
+        return vertices.get(3 * vertexInd + 1);
+    }
+
+    public float getVertexZ(final int vertexInd) {
+        return vertices.get(3 * vertexInd + 2);
+    }
+
+    public void setVertex(final int vertexInd, final float x, final float y, final float z) {
+        vertices.set(3 * vertexInd, x);
+        vertices.set(3 * vertexInd + 1, y);
+        vertices.set(3 * vertexInd + 2, z);
+    }
+
+    @Override
+    public void addVertex(final float x, final float y, final float z) {
+        vertices.add(x, y, z);
+    }
+
+    /**
+     * Добавляет вершины из буфера координат x, y, z, читая его от position до limit
+     */
+    public void addVertices(final FloatBuffer coordinates) {
+        vertices.addAll(coordinates);
+    }
+
+    /**
+     * Записывает ограничивающий параллелепипед вершин: minX, minY, minZ, maxX, maxY, maxZ.
+     * Параллелепипед пересчитывается, только если вершины менялись с прошлого вызова
+     * @param result массив минимум из 6 элементов
+     * @return false, если вершин нет
+     */
+    public boolean getBounds(final float[] result) {
+        if (boundsModificationCount != vertices.getModificationCount()) {
+            bounds[0] = bounds[1] = bounds[2] = Float.POSITIVE_INFINITY;
+            bounds[3] = bounds[4] = bounds[5] = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < vertices.size(); i += 3) {
+                for (int axis = 0; axis < 3; axis++) {
+                    final float value = vertices.get(i + axis);
+                    bounds[axis] = Math.min(bounds[axis], value);
+                    bounds[3 + axis] = Math.max(bounds[3 + axis], value);
+                }
+            }
+            boundsModificationCount = vertices.getModificationCount();
+        }
+        System.arraycopy(bounds, 0, result, 0, 6);
+        return vertices.size() > 0;
+    }
+
+    /**
+     * @return рёбра полигонов без повторов. Список собирается при первом вызове и после изменения полигонов
+     */
+    public EdgeList getEdges() {
+        if (edgesModificationCount != vertexIndices.getModificationCount()) {
+            edges = EdgeList.build(vertexIndices);
+            edgesModificationCount = vertexIndices.getModificationCount();
+        }
+        return edges;
+    }
+
+    /**
+     * Преобразует на месте все вершины и нормали. Большие сетки обрабатываются на нескольких ядрах,
+     * новые объекты на вершину не создаются
+     * @param vertexMatrix матрица модели, вершина умножается на неё как столбец (x, y, z, 1)
+     * @param normalMatrix матрица для нормалей, используется только левый верхний блок 3х3
+     */
+    public void transform(final Matrix4f vertexMatrix, final Matrix4f normalMatrix) {
+        vertices.transform3(vertexMatrix, false);
+        normals.transform3(normalMatrix, true);
+    }
+
+    /**
+     * Переводит вершины с номерами from..to-1 в однородные координаты матрицей matrix, например в координаты
+     * отсечения, и записывает их четвёрками x, y, z, w в dst, начиная с dst[4 * from]
+     */
+    public void transformVertices(final Matrix4f matrix, final int from, final int to, final float[] dst) {
+        vertices.transformProjective3(matrix, from, to, dst);
+    }
+
+    public int getTextureVertexCount() {
+        return textureVertices.size() / 2;
+    }
+
+    public float getTextureVertexX(final int textureVertexInd) {
+        return textureVertices.get(2 * textureVertexInd);
+    }
+
+    public float getTextureVertexY(final int textureVertexInd) {
+        return textureVertices.get(2 * textureVertexInd + 1);
+    }
+
+    public void setTextureVertex(final int textureVertexInd, final float x, final float y) {
+        textureVertices.set(2 * textureVertexInd, x);
+        textureVertices.set(2 * textureVertexInd + 1, y);
+    }
+
+    @Override
+    public void addTextureVertex(final float x, final float y) {
+        textureVertices.add(x, y);
+    }
+
+    public void addTextureVertices(final FloatBuffer coordinates) {
+        textureVertices.addAll(coordinates);
+    }
+
+    public int getNormalCount() {
+        return normals.size() / 3;
+    }
+
+    public float getNormalX(final int normalInd) {
+        return normals.get(3 * normalInd);
+    }
+
+    public float getNormalY(final int normalInd) {
+        return normals.get(3 * normalInd + 1);
+    }
+
+    public float getNormalZ(final int normalInd) {
+        return normals.get(3 * normalInd + 2);
+    }
+
+    public void setNormal(final int normalInd, final float x, final float y, final float z) {
+        normals.set(3 * normalInd, x);
+        normals.set(3 * normalInd + 1, y);
+        normals.set(3 * normalInd + 2, z);
+    }
+
+    @Override
+    public void addNormal(final float x, final float y, final float z) {
+        normals.add(x, y, z);
+    }
+
+    public void addNormals(final FloatBuffer coordinates) {
+        normals.addAll(coordinates);
+    }
+
+    public int getPolygonCount() {
+        return vertexIndices.getListCount();
+    }
+
+    public int getPolygonVertexCount(final int polygonInd) {
+        return vertexIndices.getSize(polygonInd);
+    }
+
+    public int getPolygonVertexIndex(final int polygonInd, final int vertexInPolygonInd) {
+        return vertexIndices.get(polygonInd, vertexInPolygonInd);
+    }
+
+    public int getPolygonTextureVertexCount(final int polygonInd) {
+        return textureVertexIndices.getSize(polygonInd);
+    }
+
+    public int getPolygonTextureVertexIndex(final int polygonInd, final int vertexInPolygonInd) {
+        return textureVertexIndices.get(polygonInd, vertexInPolygonInd);
+    }
+
+    public int getPolygonNormalCount(final int polygonInd) {
+        return normalIndices.getSize(polygonInd);
+    }
+
+    public int getPolygonNormalIndex(final int polygonInd, final int vertexInPolygonInd) {
+        return normalIndices.get(polygonInd, vertexInPolygonInd);
+    }
+
+    /**
+     * @return суммарное число индексов вершин во всех полигонах
+     */
+    public int getVertexIndexCount() {
+        return vertexIndices.getIndexCount();
+    }
+
+    public int getTextureVertexIndexCount() {
+        return textureVertexIndices.getIndexCount();
+    }
+
+    public int getNormalIndexCount() {
+        return normalIndices.getIndexCount();
+    }
+
+    @Override
+    public void addPolygonVertexIndex(final int vertexInd) {
+        vertexIndices.add(vertexInd);
+    }
+
+    @Override
+    public void addPolygonTextureVertexIndex(final int textureVertexInd) {
+        textureVertexIndices.add(textureVertexInd);
+    }
+
+    @Override
+    public void addPolygonNormalIndex(final int normalInd) {
+        normalIndices.add(normalInd);
+    }
+
+    @Override
+    public void endPolygon() {
+        vertexIndices.endList();
+        textureVertexIndices.endList();
+        normalIndices.endList();
+    }
+
+    /**
+     * Заменяет индексы полигона. Если число индексов меняется, хвост массивов сдвигается
+     */
+    public void setPolygon(
+            final int polygonInd,
+            final int[] polygonVertexIndices, final int vertexCount,
+            final int[] polygonTextureVertexIndices, final int textureVertexCount,
+            final int[] polygonNormalIndices, final int normalCount) {
+        vertexIndices.set(polygonInd, polygonVertexIndices, vertexCount);
+        textureVertexIndices.set(polygonInd, polygonTextureVertexIndices, textureVertexCount);
+        normalIndices.set(polygonInd, polygonNormalIndices, normalCount);
+    }
+
+    /**
+     * Резервирует место под элементы, чтобы массивы не перевыделялись при добавлении
+     */
+    public void ensureCapacity(
+            final int vertexCount, final int textureVertexCount, final int normalCount,
+            final int polygonCount, final int vertexIndexCount, final int textureVertexIndexCount,
+            final int normalIndexCount) {
+        vertices.ensureCapacity(3 * vertexCount);
+        textureVertices.ensureCapacity(2 * textureVertexCount);
+        normals.ensureCapacity(3 * normalCount);
+        vertexIndices.ensureCapacity(polygonCount, vertexIndexCount);
+        textureVertexIndices.ensureCapacity(polygonCount, textureVertexIndexCount);
+        normalIndices.ensureCapacity(polygonCount, normalIndexCount);
+    }
+
+    /**
+     * Дописывает в конец сетки заданное число элементов, не заполняя их. Их нужно заполнить через writer
+     * до того, как сетку начнут читать
+     */
+    public void grow(
+            final int vertexCount, final int textureVertexCount, final int normalCount,
+            final int polygonCount, final int vertexIndexCount, final int textureVertexIndexCount,
+            final int normalIndexCount) {
+        vertices.resize(vertices.size() + 3 * vertexCount);
+        textureVertices.resize(textureVertices.size() + 2 * textureVertexCount);
+        normals.resize(normals.size() + 3 * normalCount);
+        vertexIndices.grow(polygonCount, vertexIndexCount);
+        textureVertexIndices.grow(polygonCount, textureVertexIndexCount);
+        normalIndices.grow(polygonCount, normalIndexCount);
+    }
+
+    /**
+     * Возвращает объект, который записывает элементы по порядку начиная с заданных номеров, как если бы
+     * они добавлялись в сетку с такими размерами. Место под элементы должно быть выделено методом grow.
+     * Несколько таких объектов могут писать из разных потоков, если их части сетки не пересекаются
+     * @param vertexInd номер первой записываемой вершины
+     * @param textureVertexInd номер первой текстурной вершины
+     * @param normalInd номер первой нормали
+     * @param polygonInd номер первого полигона
+     * @param vertexIndexInd сколько индексов вершин во всех полигонах до polygonInd
+     * @param textureVertexIndexInd сколько индексов текстурных вершин во всех полигонах до polygonInd
+     * @param normalIndexInd сколько индексов нормалей во всех полигонах до polygonInd
+     */
+    public Writer writer(
+            final int vertexInd, final int textureVertexInd, final int normalInd,
+            final int polygonInd, final int vertexIndexInd, final int textureVertexIndexInd,
+            final int normalIndexInd) {
+        return new Writer(vertexInd, textureVertexInd, normalInd,
+                polygonInd, vertexIndexInd, textureVertexIndexInd, normalIndexInd);
+    }
+
+    /**
+     * Дописывает в конец все элементы другой сетки. Индексы полигонов не сдвигаются
+     */
+    public void addAll(final MeshData other) {
+        vertices.addAll(other.vertices);
+        textureVertices.addAll(other.textureVertices);
+        normals.addAll(other.normals);
+        vertexIndices.addAll(other.vertexIndices);
+        textureVertexIndices.addAll(other.textureVertexIndices);
+        normalIndices.addAll(other.normalIndices);
+    }
+
+    void clearPolygons() {
+        vertexIndices.clear();
+        textureVertexIndices.clear();
+        normalIndices.clear();
+    }
+
+    /**
+     * Заполняет часть сетки, выделенную методом grow. Счётчик изменений сетки уже увеличен в grow,
+     * поэтому запись его не меняет
+     */
+    public final class Writer implements MeshBuilder {
+        private int vertexPosition;
+        private int textureVertexPosition;
+        private int normalPosition;
+        private int polygonInd;
+        private int vertexIndexPosition;
+        private int textureVertexIndexPosition;
+        private int normalIndexPosition;
+
+        private Writer(
+                final int vertexInd, final int textureVertexInd, final int normalInd,
+                final int polygonInd, final int vertexIndexInd, final int textureVertexIndexInd,
+                final int normalIndexInd) {
+            vertexPosition = 3 * vertexInd;
+            textureVertexPosition = 2 * textureVertexInd;
+            normalPosition = 3 * normalInd;
+            this.polygonInd = polygonInd;
+            vertexIndexPosition = vertexIndexInd;
+            textureVertexIndexPosition = textureVertexIndexInd;
+            normalIndexPosition = normalIndexInd;
+        }
+
+        @Override
+        public void addVertex(final float x, final float y, final float z) {
+            vertices.put(vertexPosition++, x);
+            vertices.put(vertexPosition++, y);
+            vertices.put(vertexPosition++, z);
+        }
+
+        @Override
+        public void addTextureVertex(final float x, final float y) {
+            textureVertices.put(textureVertexPosition++, x);
+            textureVertices.put(textureVertexPosition++, y);
+        }
+
+        @Override
+        public void addNormal(final float x, final float y, final float z) {
+            normals.put(normalPosition++, x);
+            normals.put(normalPosition++, y);
+            normals.put(normalPosition++, z);
+        }
+
+        @Override
+        public void addPolygonVertexIndex(final int vertexInd) {
+            vertexIndices.putIndex(vertexIndexPosition++, vertexInd);
+        }
+
+        @Override
+        public void addPolygonTextureVertexIndex(final int textureVertexInd) {
+            textureVertexIndices.putIndex(textureVertexIndexPosition++, textureVertexInd);
+        }
+
+        @Override
+        public void addPolygonNormalIndex(final int normalInd) {
+            normalIndices.putIndex(normalIndexPosition++, normalInd);
+        }
+
+        @Override
+        public void endPolygon() {
+            vertexIndices.putListEnd(polygonInd, vertexIndexPosition);
+            textureVertexIndices.putListEnd(polygonInd, textureVertexIndexPosition);
+            normalIndices.putListEnd(polygonInd, normalIndexPosition);
+            ++polygonInd;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.cgvsu.model;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+
+/**
+ * Выделяет память под массивы MeshData. Кроме обычной кучи сетка может лежать в памяти вне кучи
+ * или в отображённых в память временных файлах: тогда её размер не ограничен размером кучи,
+ * а для файлов страницы подгружает и выгружает сама ОС.
+ */
+public interface MeshStorage {
+
+    // Буферы вне кучи адресуются int в байтах, поэтому в них помещается не больше стольких float или int
+    int MAX_OFF_HEAP_CAPACITY = Integer.MAX_VALUE / 4;
+
+    FloatBuffer allocateFloats(int capacity);
+
+    IntBuffer allocateInts(int capacity);
+
+    /**
+     * Увеличивает буфер, выделенный этим хранением, до capacity элементов. Первые size элементов сохраняются,
+     * старый буфер после этого не используется. По умолчанию выделяется новый буфер и элементы копируются в него
+     */
+    default FloatBuffer growFloats(final FloatBuffer buffer, final int size, final int capacity) {
+        final FloatBuffer grown = allocateFloats(capacity);
+        grown.put(0, buffer, 0, size);
+        return grown;
+    }
+
+    /**
+     * @see #growFloats(FloatBuffer, int, int)
+     */
+    default IntBuffer growInts(final IntBuffer buffer, final int size, final int capacity) {
+        final IntBuffer grown = allocateInts(capacity);
+        grown.put(0, buffer, 0, size);
+        return grown;
+    }
+
+    /**
+     * @return наибольшее число элементов в одном буфере
+     */
+    default int getMaxCapacity() {
+        return MAX_OFF_HEAP_CAPACITY;
+    }
+
+    /**
+     * @return хранение в массивах в куче, как у обычных Java объектов
+     */
+    static MeshStorage heap() {
+        return HeapMeshStorage.INSTANCE;
+    }
+
+    /**
+     * @return хранение в прямых ByteBuffer вне кучи
+     */
+    static MeshStorage direct() {
+        return DirectMeshStorage.INSTANCE;
+    }
+
+    /**
+     * @param directory папка для временных файлов, которые отображаются в память
+     * @return хранение в отображённых в память файлах, по одному на массив: при росте массива его файл
+     * отображается заново с большим размером. Где можно, файл удаляется сразу после открытия, иначе,
+     * как в Windows, когда массив больше не используется и его отображения освобождены
+     */
+    static MeshStorage mapped(final Path directory) {
+        return new MappedMeshStorage(directory);
+    }
+}
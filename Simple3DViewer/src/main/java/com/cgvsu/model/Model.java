@@ -4,22 +4,49 @@ import com.cgvsu.math.Vector3f;
 
 import java.util.*;
 
+/**
+ * Модель хранит данные в компактной MeshData. Списки vertices, textureVertices, normals и polygons -
+ * представления этих данных: элементы, которые они возвращают, собираются при каждом обращении,
+ * а изменения через add, set и clear сразу попадают в MeshData. Сами элементы только для чтения:
+ * у Vector3f и Vector2f неизменяемые поля, а изменение полигона из списка бросает
+ * UnsupportedOperationException. Поэтому, например, вершина меняется через vertices.set.
+ */
 public class Model {
+    public Model() {
+        this(new MeshData());
+    }
+    public Model(final MeshData meshData) {
+        this.meshData = meshData;
+        vertices = new Vector3fListView(meshData.vertices);
+        textureVertices = new Vector2fListView(meshData.textureVertices);
+        normals = new Vector3fListView(meshData.normals);
+        polygons = new PolygonListView(meshData);
+    }
+    public MeshData getMeshData() {
+        return meshData;
+    }
+    /**
+     * @return смещение, поворот и масштаб, с которыми модель рисуется. Вершины от них не меняются
+     */
+    public ModelTransform getTransform() {
+        return transform;
+    }
     public void addVertex(float x, float y, float z){
-        vertices.add(new Vector3f(x, y, z));
+        meshData.addVertex(x, y, z);
     }
     public void addNormal(float x, float y, float z){
-        normals.add(new Vector3f(x, y, z));
+        meshData.addNormal(x, y, z);
     }
     public void addPolygon(Integer... args){
-        ArrayList<Integer> arrayList = new ArrayList<>();
-        Polygon polygon = new Polygon();
-        Collections.addAll(arrayList, args);
-        polygon.setVertexIndices(arrayList);
-        polygons.add(polygon);
+        for (Integer vertexInd : args) {
+            meshData.addPolygonVertexIndex(vertexInd);
+        }
+        meshData.endPolygon();
     }
-    public ArrayList<Vector3f> vertices = new ArrayList<Vector3f>();
-    public ArrayList<Vector2f> textureVertices = new ArrayList<Vector2f>();
-    public ArrayList<Vector3f> normals = new ArrayList<Vector3f>();
-    public ArrayList<Polygon> polygons = new ArrayList<Polygon>();
+    private final MeshData meshData;
+    private final ModelTransform transform = new ModelTransform();
+    public final List<Vector3f> vertices;
+    public final List<Vector2f> textureVertices;
+    public final List<Vector3f> normals;
+    public final List<Polygon> polygons;
 }
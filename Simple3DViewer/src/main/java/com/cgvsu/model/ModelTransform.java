@@ -0,0 +1,140 @@
+package com.cgvsu.model;
+
+import com.cgvsu.affinetransformation.AffineTransformation;
+
+import io.github.annusshka.Math.Matrix.Matrix3f;
+import io.github.annusshka.Math.Matrix.Matrix4f;
+import io.github.annusshka.Math.Vector.Vector3f;
+
+import java.util.Arrays;
+
+/**
+ * Преобразование модели. Вершины модели при этом не меняются: преобразование применяется
+ * при отрисовке через матрицу модели и записывается в вершины только явно, например при сохранении.
+ *
+ * Хранится как матрица модели и матрица нормалей. Каждая операция применяется к уже преобразованной модели,
+ * так же как AffineTransformation.modelTransform применяется к её вершинам: шаг умножается на текущие матрицы
+ * слева. Поэтому несколько операций подряд дают ту же модель, что и несколько вызовов modelTransform,
+ * в том числе поворот после неравномерного масштаба. Углы поворота задаются в градусах вокруг осей x, y и z
+ */
+public class ModelTransform {
+
+    private static final Vector3f NO_TRANSLATION = new Vector3f(0, 0, 0);
+    private static final Vector3f NO_ROTATION = new Vector3f(0, 0, 0);
+    private static final Vector3f NO_SCALING = new Vector3f(1, 1, 1);
+
+    private final Matrix4f modelMatrix = new Matrix4f().setIdentity();
+    private final Matrix3f normalMatrix = new Matrix3f().setIdentity();
+    // Растёт при каждом изменении, по нему отрисовка понимает, что кадр устарел
+    private long modificationCount;
+
+    public ModelTransform() {
+    }
+
+    public ModelTransform(final ModelTransform other) {
+        set(other);
+    }
+
+    public float getTranslationX() {
+        return modelMatrix.get(3);
+    }
+
+    public float getTranslationY() {
+        return modelMatrix.get(7);
+    }
+
+    public float getTranslationZ() {
+        return modelMatrix.get(11);
+    }
+
+    /**
+     * Копирует матрицу модели в dst
+     * @return dst
+     */
+    public Matrix4f getModelMatrix(final Matrix4f dst) {
+        return dst.set(modelMatrix);
+    }
+
+    /**
+     * Копирует матрицу нормалей в dst
+     * @return dst
+     */
+    public Matrix3f getNormalMatrix(final Matrix3f dst) {
+        return dst.set(normalMatrix);
+    }
+
+    /**
+     * Меняет смещение модели, не трогая её поворот и масштаб
+     */
+    public void setTranslation(final float x, final float y, final float z) {
+        final float[] m = modelMatrix.getVector();
+        m[3] = x;
+        m[7] = y;
+        m[11] = z;
+        ++modificationCount;
+    }
+
+    /**
+     * Заменяет преобразование на масштабирование, поворот и смещение исходной модели
+     * @param translation Параметры смещения
+     * @param rotation Углы поворота в градусах
+     * @param scaling Параметры масштабирования
+     */
+    public void set(final Vector3f translation, final Vector3f rotation, final Vector3f scaling) {
+        modelMatrix.set(AffineTransformation.createModelMatrix(translation, rotation, scaling));
+        normalMatrix.set(AffineTransformation.createNormalMatrix(rotation, scaling));
+        ++modificationCount;
+    }
+
+    /**
+     * Масштабирует, поворачивает и смещает уже преобразованную модель,
+     * как AffineTransformation.modelTransform с теми же параметрами
+     * @param translation Параметры смещения
+     * @param rotation Углы поворота в градусах
+     * @param scaling Параметры масштабирования
+     */
+    public void apply(final Vector3f translation, final Vector3f rotation, final Vector3f scaling) {
+        Matrix4f.mul(AffineTransformation.createModelMatrix(translation, rotation, scaling), modelMatrix, modelMatrix);
+        Matrix3f.mul(AffineTransformation.createNormalMatrix(rotation, scaling), normalMatrix, normalMatrix);
+        ++modificationCount;
+    }
+
+    public void translate(final float x, final float y, final float z) {
+        apply(new Vector3f(x, y, z), NO_ROTATION, NO_SCALING);
+    }
+
+    /**
+     * @param x угол поворота вокруг оси x в градусах
+     * @param y угол поворота вокруг оси y в градусах
+     * @param z угол поворота вокруг оси z в градусах
+     */
+    public void rotate(final float x, final float y, final float z) {
+        apply(NO_TRANSLATION, new Vector3f(x, y, z), NO_SCALING);
+    }
+
+    public void scale(final float x, final float y, final float z) {
+        apply(NO_TRANSLATION, NO_ROTATION, new Vector3f(x, y, z));
+    }
+
+    public void set(final ModelTransform other) {
+        modelMatrix.set(other.modelMatrix);
+        normalMatrix.set(other.normalMatrix);
+        ++modificationCount;
+    }
+
+    /**
+     * Возвращает преобразование к тождественному: без смещения и поворота, с масштабом 1
+     */
+    public void reset() {
+        set(new ModelTransform());
+    }
+
+    public boolean isIdentity() {
+        return Arrays.equals(modelMatrix.getVector(), new Matrix4f().setIdentity().getVector())
+                && Arrays.equals(normalMatrix.getVector(), new Matrix3f().setIdentity().getVector());
+    }
+
+    public long getModificationCount() {
+        return modificationCount;
+    }
+}
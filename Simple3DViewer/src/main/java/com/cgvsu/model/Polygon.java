@@ -7,29 +7,52 @@ public class Polygon {
     private ArrayList<Integer> vertexIndices;
     private ArrayList<Integer> textureVertexIndices;
     private ArrayList<Integer> normalIndices;
+    // Полигоны из Model.polygons - копии данных MeshData, их изменения не попали бы в модель
+    private final boolean readOnly;
 
 
     public Polygon() {
         vertexIndices = new ArrayList<Integer>();
         textureVertexIndices = new ArrayList<Integer>();
         normalIndices = new ArrayList<Integer>();
+        readOnly = false;
+    }
+
+    /**
+     * Полигон только для чтения с индексами полигона polygonInd сетки meshData
+     */
+    Polygon(final MeshData meshData, final int polygonInd) {
+        vertexIndices = new ReadOnlyIndexList(meshData.vertexIndices, polygonInd);
+        textureVertexIndices = new ReadOnlyIndexList(meshData.textureVertexIndices, polygonInd);
+        normalIndices = new ReadOnlyIndexList(meshData.normalIndices, polygonInd);
+        readOnly = true;
     }
 
     public void setVertexIndices(ArrayList<Integer> vertexIndices) {
         assert vertexIndices.size() >= 3;
+        checkWritable();
         this.vertexIndices = vertexIndices;
     }
 
     public void setTextureVertexIndices(ArrayList<Integer> textureVertexIndices) {
         assert textureVertexIndices.size() >= 3;
+        checkWritable();
         this.textureVertexIndices = textureVertexIndices;
     }
 
     public void setNormalIndices(ArrayList<Integer> normalIndices) {
         assert normalIndices.size() >= 3;
+        checkWritable();
         this.normalIndices = normalIndices;
     }
 
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException(
+                    "Polygons of a model are read-only copies, replace the polygon through Model.polygons.set.");
+        }
+    }
+
     public ArrayList<Integer> getVertexIndices() {
         return vertexIndices;
     }
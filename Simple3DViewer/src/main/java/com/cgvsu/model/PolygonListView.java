@@ -0,0 +1,74 @@
+package com.cgvsu.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.RandomAccess;
+
+/**
+ * Список Polygon поверх массивов индексов MeshData. get собирает новый Polygon только для чтения:
+ * изменения его списков не попали бы в сетку, поэтому они бросают UnsupportedOperationException.
+ * Изменить полигон можно только через set
+ */
+final class PolygonListView extends AbstractList<Polygon> implements RandomAccess {
+
+    private final MeshData meshData;
+
+    PolygonListView(final MeshData meshData) {
+        this.meshData = meshData;
+    }
+
+    @Override
+    public int size() {
+        return meshData.getPolygonCount();
+    }
+
+    @Override
+    public Polygon get(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return new Polygon(meshData, index);
+    }
+
+    @Override
+    public Polygon set(final int index, final Polygon element) {
+        final Polygon previous = get(index);
+        meshData.setPolygon(index,
+                toArray(element.getVertexIndices()), element.getVertexIndices().size(),
+                toArray(element.getTextureVertexIndices()), element.getTextureVertexIndices().size(),
+                toArray(element.getNormalIndices()), element.getNormalIndices().size());
+        return previous;
+    }
+
+    @Override
+    public void add(final int index, final Polygon element) {
+        if (index != size()) {
+            throw new UnsupportedOperationException("Elements can only be added to the end.");
+        }
+        for (Integer vertexInd : element.getVertexIndices()) {
+            meshData.addPolygonVertexIndex(vertexInd);
+        }
+        for (Integer textureVertexInd : element.getTextureVertexIndices()) {
+            meshData.addPolygonTextureVertexIndex(textureVertexInd);
+        }
+        for (Integer normalInd : element.getNormalIndices()) {
+            meshData.addPolygonNormalIndex(normalInd);
+        }
+        meshData.endPolygon();
+        ++modCount;
+    }
+
+    @Override
+    public void clear() {
+        meshData.clearPolygons();
+        ++modCount;
+    }
+
+    private static int[] toArray(final ArrayList<Integer> indices) {
+        int[] result = new int[indices.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = indices.get(i);
+        }
+        return result;
+    }
+}
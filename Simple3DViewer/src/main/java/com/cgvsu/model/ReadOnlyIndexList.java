@@ -0,0 +1,106 @@
+package com.cgvsu.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Копия списка индексов полигона из MeshData. Polygon отдаёт свои списки как ArrayList, поэтому это ArrayList,
+ * но любое изменение бросает UnsupportedOperationException: оно всё равно не попало бы в сетку
+ */
+final class ReadOnlyIndexList extends ArrayList<Integer> {
+
+    private static final long serialVersionUID = 1L;
+
+    ReadOnlyIndexList(final IndexLists lists, final int list) {
+        super(lists.getSize(list));
+        for (int i = 0; i < lists.getSize(list); i++) {
+            super.add(lists.get(list, i));
+        }
+    }
+
+    @Override
+    public boolean add(final Integer element) {
+        throw readOnly();
+    }
+
+    @Override
+    public void add(final int index, final Integer element) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends Integer> elements) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean addAll(final int index, final Collection<? extends Integer> elements) {
+        throw readOnly();
+    }
+
+    @Override
+    public Integer set(final int index, final Integer element) {
+        throw readOnly();
+    }
+
+    @Override
+    public Integer remove(final int index) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean remove(final Object element) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> elements) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> elements) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean removeIf(final Predicate<? super Integer> filter) {
+        throw readOnly();
+    }
+
+    @Override
+    public void replaceAll(final UnaryOperator<Integer> operator) {
+        throw readOnly();
+    }
+
+    @Override
+    public void sort(final Comparator<? super Integer> comparator) {
+        throw readOnly();
+    }
+
+    @Override
+    public void clear() {
+        throw readOnly();
+    }
+
+    @Override
+    protected void removeRange(final int fromIndex, final int toIndex) {
+        throw readOnly();
+    }
+
+    // Подсписок ArrayList пишет прямо в массив элементов, минуя методы выше
+    @Override
+    public List<Integer> subList(final int fromIndex, final int toIndex) {
+        return Collections.unmodifiableList(super.subList(fromIndex, toIndex));
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException(
+                "Polygons of a model are read-only copies, replace the polygon through Model.polygons.set.");
+    }
+}
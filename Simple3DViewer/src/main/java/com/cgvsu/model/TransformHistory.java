@@ -0,0 +1,88 @@
+package com.cgvsu.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * История преобразований модели для отмены и повтора. Вершины модели не меняются, пока преобразование
+ * не записано в них явно, поэтому шаг истории - это только состояние ModelTransform до или после операции,
+ * а не копия сетки. Отмена восстанавливает состояние, и модель рисуется по нему из исходных вершин.
+ * Шаг - копия ModelTransform, то есть матрица модели 4x4 и матрица нормалей 3x3: 25 чисел float
+ * независимо от размера модели. Хранится не больше capacity шагов, самые старые отбрасываются.
+ */
+public class TransformHistory {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final int capacity;
+    private final Deque<ModelTransform> undoStack = new ArrayDeque<>();
+    private final Deque<ModelTransform> redoStack = new ArrayDeque<>();
+
+    public TransformHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity сколько шагов можно отменить
+     */
+    public TransformHistory(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Запоминает преобразование перед операцией. Вызывается до того, как операция его изменит.
+     * Повтор отменённых операций после этого невозможен
+     * @param transform преобразование модели
+     */
+    public void record(final ModelTransform transform) {
+        if (undoStack.size() == capacity) {
+            undoStack.removeLast();
+        }
+        undoStack.push(new ModelTransform(transform));
+        redoStack.clear();
+    }
+
+    /**
+     * Возвращает преобразование к состоянию перед последней операцией
+     * @param transform преобразование модели
+     * @return false, если отменять нечего
+     */
+    public boolean undo(final ModelTransform transform) {
+        return move(undoStack, redoStack, transform);
+    }
+
+    /**
+     * Повторяет последнюю отменённую операцию
+     * @param transform преобразование модели
+     * @return false, если повторять нечего
+     */
+    public boolean redo(final ModelTransform transform) {
+        return move(redoStack, undoStack, transform);
+    }
+
+    public boolean canUndo() {
+        return !undoStack.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+
+    public void clear() {
+        undoStack.clear();
+        redoStack.clear();
+    }
+
+    private static boolean move(
+            final Deque<ModelTransform> from, final Deque<ModelTransform> to, final ModelTransform transform) {
+        if (from.isEmpty()) {
+            return false;
+        }
+        to.push(new ModelTransform(transform));
+        transform.set(from.pop());
+        return true;
+    }
+}
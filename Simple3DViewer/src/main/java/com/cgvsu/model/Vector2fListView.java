@@ -0,0 +1,59 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Vector2f;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Список Vector2f поверх массива координат x, y. get возвращает новый неизменяемый вектор,
+ * изменить элемент можно только через set
+ */
+final class Vector2fListView extends AbstractList<Vector2f> implements RandomAccess {
+
+    private final FloatColumn column;
+
+    Vector2fListView(final FloatColumn column) {
+        this.column = column;
+    }
+
+    @Override
+    public int size() {
+        return column.size() / 2;
+    }
+
+    @Override
+    public Vector2f get(final int index) {
+        checkIndex(index);
+        return new Vector2f(column.get(2 * index), column.get(2 * index + 1));
+    }
+
+    @Override
+    public Vector2f set(final int index, final Vector2f element) {
+        final Vector2f previous = get(index);
+        column.set(2 * index, element.x);
+        column.set(2 * index + 1, element.y);
+        return previous;
+    }
+
+    @Override
+    public void add(final int index, final Vector2f element) {
+        if (index != size()) {
+            throw new UnsupportedOperationException("Elements can only be added to the end.");
+        }
+        column.add(element.x, element.y);
+        ++modCount;
+    }
+
+    @Override
+    public void clear() {
+        column.clear();
+        ++modCount;
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+}
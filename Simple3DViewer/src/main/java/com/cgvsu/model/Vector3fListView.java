@@ -0,0 +1,60 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Vector3f;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Список Vector3f поверх массива координат x, y, z. get возвращает новый неизменяемый вектор,
+ * изменить элемент можно только через set
+ */
+final class Vector3fListView extends AbstractList<Vector3f> implements RandomAccess {
+
+    private final FloatColumn column;
+
+    Vector3fListView(final FloatColumn column) {
+        this.column = column;
+    }
+
+    @Override
+    public int size() {
+        return column.size() / 3;
+    }
+
+    @Override
+    public Vector3f get(final int index) {
+        checkIndex(index);
+        return new Vector3f(column.get(3 * index), column.get(3 * index + 1), column.get(3 * index + 2));
+    }
+
+    @Override
+    public Vector3f set(final int index, final Vector3f element) {
+        final Vector3f previous = get(index);
+        column.set(3 * index, element.x);
+        column.set(3 * index + 1, element.y);
+        column.set(3 * index + 2, element.z);
+        return previous;
+    }
+
+    @Override
+    public void add(final int index, final Vector3f element) {
+        if (index != size()) {
+            throw new UnsupportedOperationException("Elements can only be added to the end.");
+        }
+        column.add(element.x, element.y, element.z);
+        ++modCount;
+    }
+
+    @Override
+    public void clear() {
+        column.clear();
+        ++modCount;
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+}
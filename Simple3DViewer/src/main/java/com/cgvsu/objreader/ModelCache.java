@@ -0,0 +1,421 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.MeshData;
+import com.cgvsu.model.MeshStorage;
+import com.cgvsu.model.Model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Двоичный снимок модели, чтобы повторно открывать большие OBJ файлы без разбора текста.
+ * Снимки лежат в отдельной папке, имя файла - хэш абсолютного пути к OBJ. В заголовке снимка записаны
+ * размер и время изменения OBJ, по ним проверяется, что снимок не устарел.
+ *
+ * Папка по умолчанию - simple3dviewer-cache во временной папке системы, её можно задать свойством
+ * cgvsu.model.cache.dir. Общий размер снимков ограничен, по умолчанию DEFAULT_MAX_SIZE байт, предел задаётся
+ * свойством cgvsu.model.cache.maxSize. После записи нового снимка удаляются снимки, которые дольше всех
+ * не открывались, пока общий размер не станет не больше предела. Папку можно удалить целиком в любой момент,
+ * когда программа не запущена: модели просто будут снова разобраны из OBJ.
+ *
+ * Формат (little-endian): заголовок, затем плоские массивы
+ * float[3 * vertexCount], float[2 * textureVertexCount], float[3 * normalCount],
+ * затем для индексов вершин, текстурных вершин и нормалей по массиву смещений int[polygonCount + 1]
+ * и по массиву самих индексов.
+ */
+public class ModelCache {
+
+    private static final int MAGIC = 0x4D443353; // "S3DM"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 * 7;
+    private static final String FILE_EXTENSION = ".s3dm";
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    public static final long DEFAULT_MAX_SIZE = 2L << 30;
+
+    private static final ModelCache DEFAULT = new ModelCache(Path.of(
+            System.getProperty("cgvsu.model.cache.dir",
+                    Path.of(System.getProperty("java.io.tmpdir"), "simple3dviewer-cache").toString())),
+            Long.getLong("cgvsu.model.cache.maxSize", DEFAULT_MAX_SIZE));
+
+    private final Path directory;
+    private final long maxSize;
+
+    public ModelCache(final Path directory) {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param directory папка снимков
+     * @param maxSize сколько байт снимков хранится в папке, последний записанный снимок хранится всегда
+     */
+    public ModelCache(final Path directory, final long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Cache size limit must not be negative: " + maxSize);
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    public static ModelCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Загружает снимок модели, если он есть и не устарел
+     * @param objFile путь к OBJ файлу
+     * @return модель или null, если снимка нет, он устарел или повреждён
+     */
+    public Model load(final Path objFile) {
+        return load(objFile, MeshStorage.heap());
+    }
+
+    /**
+     * Загружает снимок модели в сетку с заданным хранением
+     * @param objFile путь к OBJ файлу
+     * @param storage откуда выделяется память под массивы модели
+     * @return модель или null, если снимка нет, он устарел или повреждён
+     */
+    public Model load(final Path objFile, final MeshStorage storage) {
+        return load(objFile, storage, null);
+    }
+
+    /**
+     * Загружает снимок модели, сообщая слушателю о прогрессе так же, как при разборе OBJ: байты считаются
+     * в размере OBJ файла, от 0 до его полного размера
+     * @param listener получает прогресс загрузки и может её отменить, может быть null
+     * @return модель или null, если снимка нет, он устарел или повреждён
+     * @throws java.util.concurrent.CancellationException если слушатель отменил загрузку
+     */
+    public Model load(final Path objFile, final MeshStorage storage, final ObjReaderListener listener) {
+        try {
+            final long sourceSize = Files.size(objFile);
+            final long sourceModified = Files.getLastModifiedTime(objFile).toMillis();
+            final Path cacheFile = getCacheFile(objFile);
+            if (!Files.isRegularFile(cacheFile)) {
+                return null;
+            }
+
+            try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                        || buffer.getLong() != sourceSize || buffer.getLong() != sourceModified) {
+                    return null;
+                }
+                final ReadProgress progress = new ReadProgress(listener, sourceSize);
+                progress.advance(0, 0);
+                final Model result = readModel(buffer, storage, progress, sourceSize);
+                if (result != null) {
+                    markUsed(cacheFile);
+                }
+                return result;
+            }
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Сохраняет снимок модели. Снимок сначала пишется во временный файл и затем переименовывается,
+     * чтобы при сбое не осталось наполовину записанного снимка.
+     * @param objFile путь к OBJ файлу, из которого прочитана модель
+     * @param sourceSize размер OBJ файла на момент чтения
+     * @param sourceModified время изменения OBJ файла на момент чтения в миллисекундах
+     * @param model модель
+     * @throws IOException если снимок не удалось записать
+     */
+    public void store(final Path objFile, final long sourceSize, final long sourceModified, final Model model)
+            throws IOException {
+        Files.createDirectories(directory);
+        final Path cacheFile = getCacheFile(objFile);
+        final Path tempFile = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                writeModel(channel, sourceSize, sourceModified, model);
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        evict(cacheFile);
+    }
+
+    /**
+     * Время изменения снимка отмечает, когда его последний раз открывали, по нему выбираются снимки для удаления
+     */
+    private static void markUsed(final Path cacheFile) {
+        try {
+            Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Снимок загружен, без отметки он только раньше попадёт под удаление
+        }
+    }
+
+    /**
+     * Удаляет снимки, которые дольше всех не открывались, пока их общий размер больше maxSize.
+     * Снимок kept не удаляется. Снимки, которые не удалось прочитать или удалить, пропускаются
+     */
+    private void evict(final Path kept) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+
+        final Map<Path, Long> sizes = new HashMap<>();
+        final Map<Path, Long> usedTimes = new HashMap<>();
+        long totalSize = 0;
+        for (Path file : files) {
+            try {
+                final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                sizes.put(file, attributes.size());
+                usedTimes.put(file, attributes.lastModifiedTime().toMillis());
+                totalSize += attributes.size();
+            } catch (IOException e) {
+                // Снимок удалён другим процессом
+            }
+        }
+        files.removeIf(file -> !sizes.containsKey(file) || file.equals(kept));
+        files.sort(Comparator.comparing(usedTimes::get));
+
+        for (Path file : files) {
+            if (totalSize <= maxSize) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(file);
+                totalSize -= sizes.get(file);
+            } catch (IOException e) {
+                // Снимок открыт, например отображён другим процессом, удалится в следующий раз
+            }
+        }
+    }
+
+    Path getCacheFile(final Path objFile) {
+        final String key = objFile.toAbsolutePath().normalize().toString();
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                name.append(String.format("%02x", hash[i]));
+            }
+            return directory.resolve(name + FILE_EXTENSION);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Перед выделением памяти проверяет, что размеры из заголовка совпадают с размером снимка, смещения
+     * полигонов идут по порядку, а индексы не выходят за массивы модели. Иначе снимок повреждён или чужой
+     * @param progress раз в ReadProgress.LINES_PER_REPORT полигонов получает долю sourceSize,
+     * пропорциональную прочитанным полигонам, и в конце весь sourceSize
+     * @return модель или null, если снимок не прошёл проверку
+     */
+    private static Model readModel(
+            final ByteBuffer buffer, final MeshStorage storage, final ReadProgress progress, final long sourceSize) {
+        final int vertexCount = buffer.getInt();
+        final int textureVertexCount = buffer.getInt();
+        final int normalCount = buffer.getInt();
+        final int polygonCount = buffer.getInt();
+        final int vertexIndexCount = buffer.getInt();
+        final int textureVertexIndexCount = buffer.getInt();
+        final int normalIndexCount = buffer.getInt();
+
+        if (vertexCount < 0 || textureVertexCount < 0 || normalCount < 0 || polygonCount < 0
+                || vertexIndexCount < 0 || textureVertexIndexCount < 0 || normalIndexCount < 0) {
+            return null;
+        }
+        final long expectedSize = 4 * (3L * vertexCount + 2L * textureVertexCount + 3L * normalCount
+                + 3 * (polygonCount + 1L) + vertexIndexCount + textureVertexIndexCount + normalIndexCount);
+        if (expectedSize != buffer.remaining()) {
+            return null;
+        }
+
+        // Размер снимка не больше Integer.MAX_VALUE, поэтому дальше произведения не переполняются
+        final FloatBuffer vertices = readFloats(buffer, 3 * vertexCount);
+        final FloatBuffer textureVertices = readFloats(buffer, 2 * textureVertexCount);
+        final FloatBuffer normals = readFloats(buffer, 3 * normalCount);
+
+        final IntBuffer vertexOffsets = readInts(buffer, polygonCount + 1);
+        final IntBuffer vertexIndices = readInts(buffer, vertexIndexCount);
+        final IntBuffer textureVertexOffsets = readInts(buffer, polygonCount + 1);
+        final IntBuffer textureVertexIndices = readInts(buffer, textureVertexIndexCount);
+        final IntBuffer normalOffsets = readInts(buffer, polygonCount + 1);
+        final IntBuffer normalIndices = readInts(buffer, normalIndexCount);
+
+        if (!isValidIndexList(vertexOffsets, vertexIndices, vertexCount)
+                || !isValidIndexList(textureVertexOffsets, textureVertexIndices, textureVertexCount)
+                || !isValidIndexList(normalOffsets, normalIndices, normalCount)) {
+            return null;
+        }
+
+        Model result = new Model(new MeshData(storage));
+        MeshData meshData = result.getMeshData();
+        meshData.ensureCapacity(vertexCount, textureVertexCount, normalCount,
+                polygonCount, vertexIndexCount, textureVertexIndexCount, normalIndexCount);
+
+        // Координаты копируются из отображённого снимка целыми блоками, без промежуточных массивов в куче
+        meshData.addVertices(vertices);
+        meshData.addTextureVertices(textureVertices);
+        meshData.addNormals(normals);
+
+        long reportedBytes = 0;
+        for (int i = 0; i < polygonCount; i++) {
+            if ((i + 1) % ReadProgress.LINES_PER_REPORT == 0) {
+                final long bytes = sourceSize * (i + 1) / polygonCount;
+                progress.advance(bytes - reportedBytes, 0);
+                reportedBytes = bytes;
+            }
+            for (int j = vertexOffsets.get(i); j < vertexOffsets.get(i + 1); j++) {
+                meshData.addPolygonVertexIndex(vertexIndices.get(j));
+            }
+            for (int j = textureVertexOffsets.get(i); j < textureVertexOffsets.get(i + 1); j++) {
+                meshData.addPolygonTextureVertexIndex(textureVertexIndices.get(j));
+            }
+            for (int j = normalOffsets.get(i); j < normalOffsets.get(i + 1); j++) {
+                meshData.addPolygonNormalIndex(normalIndices.get(j));
+            }
+            meshData.endPolygon();
+        }
+        progress.advance(sourceSize - reportedBytes, 0);
+
+        return result;
+    }
+
+    /**
+     * @return true, если смещения начинаются с 0, не убывают и заканчиваются числом индексов,
+     * а каждый индекс меньше elementCount и не меньше 0
+     */
+    private static boolean isValidIndexList(final IntBuffer offsets, final IntBuffer indices, final int elementCount) {
+        if (offsets.get(0) != 0 || offsets.get(offsets.limit() - 1) != indices.limit()) {
+            return false;
+        }
+        for (int i = 1; i < offsets.limit(); i++) {
+            if (offsets.get(i) < offsets.get(i - 1)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < indices.limit(); i++) {
+            final int index = indices.get(i);
+            if (index < 0 || index >= elementCount) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeModel(
+            final FileChannel channel, final long sourceSize, final long sourceModified, final Model model)
+            throws IOException {
+        final MeshData meshData = model.getMeshData();
+        final int polygonCount = meshData.getPolygonCount();
+
+        final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(sourceSize).putLong(sourceModified);
+        buffer.putInt(meshData.getVertexCount()).putInt(meshData.getTextureVertexCount())
+                .putInt(meshData.getNormalCount());
+        buffer.putInt(polygonCount);
+        buffer.putInt(meshData.getVertexIndexCount()).putInt(meshData.getTextureVertexIndexCount())
+                .putInt(meshData.getNormalIndexCount());
+
+        for (int i = 0; i < meshData.getVertexCount(); i++) {
+            ensureRemaining(channel, buffer, 12);
+            buffer.putFloat(meshData.getVertexX(i)).putFloat(meshData.getVertexY(i)).putFloat(meshData.getVertexZ(i));
+        }
+        for (int i = 0; i < meshData.getTextureVertexCount(); i++) {
+            ensureRemaining(channel, buffer, 8);
+            buffer.putFloat(meshData.getTextureVertexX(i)).putFloat(meshData.getTextureVertexY(i));
+        }
+        for (int i = 0; i < meshData.getNormalCount(); i++) {
+            ensureRemaining(channel, buffer, 12);
+            buffer.putFloat(meshData.getNormalX(i)).putFloat(meshData.getNormalY(i)).putFloat(meshData.getNormalZ(i));
+        }
+
+        for (int kind = 0; kind < 3; kind++) {
+            int offset = 0;
+            ensureRemaining(channel, buffer, 4);
+            buffer.putInt(offset);
+            for (int i = 0; i < polygonCount; i++) {
+                offset += getIndexCount(meshData, i, kind);
+                ensureRemaining(channel, buffer, 4);
+                buffer.putInt(offset);
+            }
+            for (int i = 0; i < polygonCount; i++) {
+                final int count = getIndexCount(meshData, i, kind);
+                for (int j = 0; j < count; j++) {
+                    ensureRemaining(channel, buffer, 4);
+                    buffer.putInt(getIndex(meshData, i, j, kind));
+                }
+            }
+        }
+
+        flush(channel, buffer);
+    }
+
+    private static int getIndexCount(final MeshData meshData, final int polygonInd, final int kind) {
+        return switch (kind) {
+            case 0 -> meshData.getPolygonVertexCount(polygonInd);
+            case 1 -> meshData.getPolygonTextureVertexCount(polygonInd);
+            default -> meshData.getPolygonNormalCount(polygonInd);
+        };
+    }
+
+    private static int getIndex(final MeshData meshData, final int polygonInd, final int indexInd, final int kind) {
+        return switch (kind) {
+            case 0 -> meshData.getPolygonVertexIndex(polygonInd, indexInd);
+            case 1 -> meshData.getPolygonTextureVertexIndex(polygonInd, indexInd);
+            default -> meshData.getPolygonNormalIndex(polygonInd, indexInd);
+        };
+    }
+
+    private static void ensureRemaining(final FileChannel channel, final ByteBuffer buffer, final int bytes)
+            throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static FloatBuffer readFloats(final ByteBuffer buffer, final int count) {
+        final FloatBuffer result = buffer.asFloatBuffer().limit(count);
+        buffer.position(buffer.position() + 4 * count);
+        return result;
+    }
+
+    private static IntBuffer readInts(final ByteBuffer buffer, final int count) {
+        final IntBuffer result = buffer.asIntBuffer().limit(count);
+        buffer.position(buffer.position() + 4 * count);
+        return result;
+    }
+}
@@ -1,156 +1,428 @@
 package com.cgvsu.objreader;
 
-import com.cgvsu.math.Vector2f;
-import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.MeshBuilder;
+import com.cgvsu.model.MeshData;
+import com.cgvsu.model.MeshStorage;
 import com.cgvsu.model.Model;
-import com.cgvsu.model.Polygon;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Scanner;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class ObjReader {
 
-	private static final String OBJ_VERTEX_TOKEN = "v";
-	private static final String OBJ_TEXTURE_TOKEN = "vt";
-	private static final String OBJ_NORMAL_TOKEN = "vn";
-	private static final String OBJ_FACE_TOKEN = "f";
+	// Одно отображение FileChannel.map не может превышать Integer.MAX_VALUE байт
+	private static final long MAPPED_WINDOW_SIZE = 1L << 30;
+
+	// При параллельном чтении на каждый поток приходится несколько кусков, чтобы потоки не простаивали,
+	// если строки в разных частях файла разбираются с разной скоростью
+	private static final int CHUNKS_PER_THREAD = 4;
+	private static final int MIN_CHUNK_SIZE = 1 << 20;
 
 	public static Model read(String fileContent) {
 		Model result = new Model();
+		final ByteBuffer buffer = ByteBuffer.wrap(fileContent.getBytes(StandardCharsets.UTF_8));
+		parse(buffer, 0, result.getMeshData(), new ReadProgress(null, buffer.limit()));
+		return result;
+	}
 
-		int lineInd = 0;
-		Scanner scanner = new Scanner(fileContent);
-		while (scanner.hasNextLine()) {
-			final String line = scanner.nextLine();
-			ArrayList<String> wordsInLine = new ArrayList<String>(Arrays.asList(line.split("\\s+")));
-			if (wordsInLine.isEmpty()) {
-				continue;
+	public static Model read(Path path) throws IOException {
+		return read(path, null);
+	}
+
+	/**
+	 * Читает модель прямо из файла. Файл не загружается в память целиком: он отображается в память
+	 * через FileChannel.map окнами, выровненными по концам строк, и разбирается построчно прямо из буфера.
+	 * @param path путь к OBJ файлу
+	 * @param listener получает прогресс чтения и может его отменить, может быть null
+	 * @return прочитанная модель
+	 * @throws IOException если файл не удалось открыть или отобразить в память
+	 * @throws java.util.concurrent.CancellationException если слушатель отменил чтение
+	 */
+	public static Model read(Path path, ObjReaderListener listener) throws IOException {
+		return read(path, listener, MeshStorage.heap());
+	}
+
+	/**
+	 * Читает модель из файла прямо в сетку с заданным хранением, например вне кучи для моделей,
+	 * которые не помещаются в кучу
+	 * @param storage откуда выделяется память под массивы модели
+	 */
+	public static Model read(Path path, ObjReaderListener listener, MeshStorage storage) throws IOException {
+		return parseFile(path, listener, storage);
+	}
+
+	/**
+	 * Читает модель через двоичный кэш: если снимок файла свежий, модель берётся из него без разбора текста.
+	 * Иначе файл разбирается, и перед возвратом в кэш записывается новый снимок, так что первое чтение
+	 * примерно вдвое дольше пишет на диск. Поэтому кэш включается только явно, этим методом
+	 * @param cache где хранятся снимки, например ModelCache.getDefault()
+	 */
+	public static Model read(Path path, ObjReaderListener listener, MeshStorage storage, ModelCache cache)
+			throws IOException {
+		return readCached(path, listener, false, storage, cache);
+	}
+
+	/**
+	 * Возвращает модель из кэша, если снимок файла свежий. Иначе разбирает файл и обновляет кэш.
+	 * Слушатель получает прогресс и может отменить чтение в обоих случаях
+	 */
+	private static Model readCached(
+			final Path path, final ObjReaderListener listener, final boolean parallel, final MeshStorage storage,
+			final ModelCache cache)
+			throws IOException {
+		final Model cached = cache.load(path, storage, listener);
+		if (cached != null) {
+			return cached;
+		}
+
+		// Размер и время изменения запоминаются до чтения, чтобы снимок не выдал себя за более свежий, чем он есть
+		final long sourceSize = Files.size(path);
+		final long sourceModified = Files.getLastModifiedTime(path).toMillis();
+		final Model result = parallel
+				? parseFileParallel(path, listener, storage)
+				: parseFile(path, listener, storage);
+		try {
+			cache.store(path, sourceSize, sourceModified, result);
+		} catch (IOException e) {
+			// Кэш только ускоряет повторное открытие, модель прочитана и без него
+		}
+		return result;
+	}
+
+	static Model parseFile(final Path path, final ObjReaderListener listener, final MeshStorage storage)
+			throws IOException {
+		Model result = new Model(new MeshData(storage));
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final ReadProgress progress = new ReadProgress(listener, channel.size());
+			int lineInd = 0;
+			for (ByteBuffer segment : mapLines(channel)) {
+				lineInd = parse(segment, lineInd, result.getMeshData(), progress);
 			}
+		}
 
-			final String token = wordsInLine.get(0);
-			wordsInLine.remove(0);
-
-			++lineInd;
-			switch (token) {
-				// Для структур типа вершин методы написаны так, чтобы ничего не знать о внешней среде.
-				// Они принимают только то, что им нужно для работы, а возвращают только то, что могут создать.
-				// Исключение - индекс строки. Он прокидывается, чтобы выводить сообщение об ошибке.
-				// Могло быть иначе. Например, метод parseVertex мог вместо возвращения вершины принимать вектор вершин
-				// модели или сам класс модели, работать с ним.
-				// Но такой подход может привести к большему количеству ошибок в коде. Например, в нем что-то может
-				// тайно сделаться с классом модели.
-				// А еще это портит читаемость
-				// И не стоит забывать про тесты. Чем проще вам задать данные для теста, проверить, что метод рабочий,
-				// тем лучше.
-				case OBJ_VERTEX_TOKEN -> result.vertices.add(parseVertex(wordsInLine, lineInd));
-				case OBJ_TEXTURE_TOKEN -> result.textureVertices.add(parseTextureVertex(wordsInLine, lineInd));
-				case OBJ_NORMAL_TOKEN -> result.normals.add(parseNormal(wordsInLine, lineInd));
-				case OBJ_FACE_TOKEN -> result.polygons.add(parseFace(wordsInLine, lineInd));
+		return result;
+	}
+
+	/**
+	 * Разбирает строки буфера и добавляет прочитанные элементы в сетку
+	 * @param buffer содержимое OBJ, разбираются байты от position до limit
+	 * @param lineInd номер строки, предшествующей первой строке буфера
+	 * @param meshData сетка или её часть, в которую добавляются элементы
+	 * @param progress сюда раз в ReadProgress.LINES_PER_REPORT строк сообщается о прогрессе
+	 * @return номер последней разобранной строки
+	 */
+	static int parse(final ByteBuffer buffer, final int lineInd, final MeshBuilder meshData, final ReadProgress progress) {
+		ObjTokenizer tokenizer = new ObjTokenizer(buffer, lineInd);
+		int reportedLineInd = lineInd;
+		int reportedPosition = buffer.position();
+		while (tokenizer.nextLine()) {
+			if (tokenizer.getLineInd() - reportedLineInd == ReadProgress.LINES_PER_REPORT) {
+				progress.advance(tokenizer.getPosition() - reportedPosition, ReadProgress.LINES_PER_REPORT);
+				reportedLineInd = tokenizer.getLineInd();
+				reportedPosition = tokenizer.getPosition();
+			}
+			switch (tokenizer.nextKeyword()) {
+				// Элементы пишутся сразу в массивы MeshData, без промежуточных Vector3f и списков Integer.
+				// Каждый метод разбора получает только токенизатор и сетку, в которую добавляет ровно один элемент.
+				// Токенизатор знает номер текущей строки, поэтому сообщения об ошибках остаются прежними.
+				case ObjTokenizer.VERTEX -> parseVertex(tokenizer, meshData);
+				case ObjTokenizer.TEXTURE -> parseTextureVertex(tokenizer, meshData);
+				case ObjTokenizer.NORMAL -> parseNormal(tokenizer, meshData);
+				case ObjTokenizer.FACE -> parseFace(tokenizer, meshData);
 				default -> {}
 			}
 		}
+		progress.advance(tokenizer.getPosition() - reportedPosition, tokenizer.getLineInd() - reportedLineInd);
+		return tokenizer.getLineInd();
+	}
 
-		return result;
+	protected static void parseVertex(final ObjTokenizer tokenizer, final MeshBuilder meshData) {
+		meshData.addVertex(
+				tokenizer.nextFloat("Too few vertex arguments."),
+				tokenizer.nextFloat("Too few vertex arguments."),
+				tokenizer.nextFloat("Too few vertex arguments."));
 	}
 
-	// Всем методам кроме основного я поставил модификатор доступа protected, чтобы обращаться к ним в тестах
-	protected static Vector3f parseVertex(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
-		try {
-			return new Vector3f(
-					Float.parseFloat(wordsInLineWithoutToken.get(0)),
-					Float.parseFloat(wordsInLineWithoutToken.get(1)),
-					Float.parseFloat(wordsInLineWithoutToken.get(2)));
+	protected static void parseTextureVertex(final ObjTokenizer tokenizer, final MeshBuilder meshData) {
+		meshData.addTextureVertex(
+				tokenizer.nextFloat("Too few texture vertex arguments."),
+				tokenizer.nextFloat("Too few texture vertex arguments."));
+	}
+
+	protected static void parseNormal(final ObjTokenizer tokenizer, final MeshBuilder meshData) {
+		meshData.addNormal(
+				tokenizer.nextFloat("Too few normal arguments."),
+				tokenizer.nextFloat("Too few normal arguments."),
+				tokenizer.nextFloat("Too few normal arguments."));
+	}
 
-		} catch(NumberFormatException e) {
-			throw new ObjReaderException("Failed to parse float value.", lineInd);
+	protected static void parseFace(final ObjTokenizer tokenizer, final MeshBuilder meshData) {
+		tokenizer.readFace();
 
-		} catch(IndexOutOfBoundsException e) {
-			throw new ObjReaderException("Too few vertex arguments.", lineInd);
+		for (int i = 0; i < tokenizer.getFaceVertexCount(); i++) {
+			meshData.addPolygonVertexIndex(tokenizer.getFaceVertexIndex(i));
 		}
+		for (int i = 0; i < tokenizer.getFaceTextureVertexCount(); i++) {
+			meshData.addPolygonTextureVertexIndex(tokenizer.getFaceTextureVertexIndex(i));
+		}
+		for (int i = 0; i < tokenizer.getFaceNormalCount(); i++) {
+			meshData.addPolygonNormalIndex(tokenizer.getFaceNormalIndex(i));
+		}
+		meshData.endPolygon();
 	}
 
-	protected static Vector2f parseTextureVertex(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
-		try {
-			return new Vector2f(
-					Float.parseFloat(wordsInLineWithoutToken.get(0)),
-					Float.parseFloat(wordsInLineWithoutToken.get(1)));
+	/**
+	 * Читает модель из файла в несколько потоков. Файл разбивается на куски, выровненные по концам строк,
+	 * и обрабатывается на ForkJoinPool в два прохода. Сначала каждый кусок считает свои элементы без разбора
+	 * координат, по этим числам сетка сразу выделяется целиком, и каждый кусок получает своё место в ней.
+	 * Затем куски разбираются прямо на свои места, так что промежуточных сеток и их склейки нет и в памяти
+	 * лежит только итоговая сетка. Индексы в полигонах в OBJ глобальные для всего файла, поэтому их не нужно сдвигать.
+	 * @param path путь к OBJ файлу
+	 * @param listener получает прогресс чтения и может его отменить, может быть null
+	 * @return прочитанная модель
+	 * @throws IOException если файл не удалось открыть или отобразить в память
+	 * @throws java.util.concurrent.CancellationException если слушатель отменил чтение
+	 */
+	public static Model readParallel(Path path, ObjReaderListener listener) throws IOException {
+		return readParallel(path, listener, MeshStorage.heap());
+	}
+
+	/**
+	 * Читает модель из файла в несколько потоков прямо в сетку с заданным хранением
+	 * @param storage откуда выделяется память под массивы модели
+	 */
+	public static Model readParallel(Path path, ObjReaderListener listener, MeshStorage storage) throws IOException {
+		return parseFileParallel(path, listener, storage);
+	}
 
-		} catch(NumberFormatException e) {
-			throw new ObjReaderException("Failed to parse float value.", lineInd);
+	/**
+	 * Читает модель в несколько потоков через двоичный кэш, как read(Path, ObjReaderListener, MeshStorage, ModelCache)
+	 * @param cache где хранятся снимки, например ModelCache.getDefault()
+	 */
+	public static Model readParallel(Path path, ObjReaderListener listener, MeshStorage storage, ModelCache cache)
+			throws IOException {
+		return readCached(path, listener, true, storage, cache);
+	}
 
-		} catch(IndexOutOfBoundsException e) {
-			throw new ObjReaderException("Too few texture vertex arguments.", lineInd);
+	static Model parseFileParallel(final Path path, final ObjReaderListener listener, final MeshStorage storage)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final List<ByteBuffer> segments = mapLines(channel);
+			final long fileSize = channel.size();
+			return readParallel(segments, getChunkSize(fileSize), new ReadProgress(listener, fileSize), storage);
 		}
 	}
 
-	protected static Vector3f parseNormal(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
-		try {
-			return new Vector3f(
-					Float.parseFloat(wordsInLineWithoutToken.get(0)),
-					Float.parseFloat(wordsInLineWithoutToken.get(1)),
-					Float.parseFloat(wordsInLineWithoutToken.get(2)));
+	public static Model readParallel(Path path) throws IOException {
+		return readParallel(path, null);
+	}
 
-		} catch(NumberFormatException e) {
-			throw new ObjReaderException("Failed to parse float value.", lineInd);
+	public static Model readParallel(String fileContent) {
+		final byte[] bytes = fileContent.getBytes(StandardCharsets.UTF_8);
+		return readParallel(List.of(ByteBuffer.wrap(bytes)), getChunkSize(bytes.length),
+				new ReadProgress(null, bytes.length), MeshStorage.heap());
+	}
 
-		} catch(IndexOutOfBoundsException e) {
-			throw new ObjReaderException("Too few normal arguments.", lineInd);
+	static Model readParallel(
+			final List<ByteBuffer> segments, final int chunkSize, final ReadProgress progress,
+			final MeshStorage storage) {
+		List<ChunkParseTask> tasks = new ArrayList<ChunkParseTask>();
+		for (ByteBuffer segment : segments) {
+			for (ByteBuffer chunk : splitLines(segment, chunkSize)) {
+				tasks.add(new ChunkParseTask(chunk, progress));
+			}
 		}
-	}
+		invokeAll(tasks);
 
-	protected static Polygon parseFace(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
-		ArrayList<Integer> onePolygonVertexIndices = new ArrayList<Integer>();
-		ArrayList<Integer> onePolygonTextureVertexIndices = new ArrayList<Integer>();
-		ArrayList<Integer> onePolygonNormalIndices = new ArrayList<Integer>();
+		// Места кусков в сетке идут подряд в порядке следования кусков
+		final ElementCounts total = new ElementCounts();
+		for (ChunkParseTask task : tasks) {
+			total.add(task.counts);
+		}
+		Model result = new Model(new MeshData(storage));
+		final MeshData meshData = result.getMeshData();
+		meshData.grow(total.vertexCount, total.textureVertexCount, total.normalCount, total.polygonCount,
+				total.vertexIndexCount, total.textureVertexIndexCount, total.normalIndexCount);
+		final ElementCounts start = new ElementCounts();
+		for (ChunkParseTask task : tasks) {
+			task.writer = meshData.writer(start.vertexCount, start.textureVertexCount, start.normalCount,
+					start.polygonCount, start.vertexIndexCount, start.textureVertexIndexCount, start.normalIndexCount);
+			start.add(task.counts);
+			task.reinitialize();
+		}
+		invokeAll(tasks);
 
-		for (String s : wordsInLineWithoutToken) {
-			parseFaceWord(s, onePolygonVertexIndices, onePolygonTextureVertexIndices, onePolygonNormalIndices, lineInd);
+		// Номер строки ошибки пересчитывается из номера внутри куска
+		int lineInd = 0;
+		for (ChunkParseTask task : tasks) {
+			if (task.error != null) {
+				throw new ObjReaderException(task.error.getErrorMessage(), lineInd + task.error.getLineInd());
+			}
+			lineInd += task.lineCount;
 		}
 
-		Polygon result = new Polygon();
-		result.setVertexIndices(onePolygonVertexIndices);
-		result.setTextureVertexIndices(onePolygonTextureVertexIndices);
-		result.setNormalIndices(onePolygonNormalIndices);
 		return result;
 	}
 
-	// Обратите внимание, что для чтения полигонов я выделил еще один вспомогательный метод.
-	// Это бывает очень полезно и с точки зрения структурирования алгоритма в голове, и с точки зрения тестирования.
-	// В радикальных случаях не бойтесь выносить в отдельные методы и тестировать код из одной-двух строчек.
-	protected static void parseFaceWord(
-			String wordInLine,
-			ArrayList<Integer> onePolygonVertexIndices,
-			ArrayList<Integer> onePolygonTextureVertexIndices,
-			ArrayList<Integer> onePolygonNormalIndices,
-			int lineInd) {
+	private static void invokeAll(final List<ChunkParseTask> tasks) {
+		ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+			@Override
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		});
+	}
+
+	/**
+	 * Считает элементы, которые parse добавит из буфера. Координаты не разбираются, а индексы граней
+	 * разбираются, чтобы узнать, есть ли у граней текстурные вершины и нормали. Если в грани ошибка,
+	 * счёт останавливается перед ней: parse остановится на той же строке или раньше, поэтому не запишет
+	 * больше посчитанного
+	 */
+	static void count(final ByteBuffer buffer, final ElementCounts counts, final ReadProgress progress) {
+		ObjTokenizer tokenizer = new ObjTokenizer(buffer, 0);
 		try {
-			String[] wordIndices = wordInLine.split("/");
-			switch (wordIndices.length) {
-				case 1 -> {
-					onePolygonVertexIndices.add(Integer.parseInt(wordIndices[0]) - 1);
-				}
-				case 2 -> {
-					onePolygonVertexIndices.add(Integer.parseInt(wordIndices[0]) - 1);
-					onePolygonTextureVertexIndices.add(Integer.parseInt(wordIndices[1]) - 1);
+			while (tokenizer.nextLine()) {
+				if (tokenizer.getLineInd() % ReadProgress.LINES_PER_REPORT == 0) {
+					progress.checkCancelled();
 				}
-				case 3 -> {
-					onePolygonVertexIndices.add(Integer.parseInt(wordIndices[0]) - 1);
-					onePolygonNormalIndices.add(Integer.parseInt(wordIndices[2]) - 1);
-					if (!wordIndices[1].equals("")) {
-						onePolygonTextureVertexIndices.add(Integer.parseInt(wordIndices[1]) - 1);
+				switch (tokenizer.nextKeyword()) {
+					case ObjTokenizer.VERTEX -> ++counts.vertexCount;
+					case ObjTokenizer.TEXTURE -> ++counts.textureVertexCount;
+					case ObjTokenizer.NORMAL -> ++counts.normalCount;
+					case ObjTokenizer.FACE -> {
+						tokenizer.readFace();
+						++counts.polygonCount;
+						counts.vertexIndexCount += tokenizer.getFaceVertexCount();
+						counts.textureVertexIndexCount += tokenizer.getFaceTextureVertexCount();
+						counts.normalIndexCount += tokenizer.getFaceNormalCount();
 					}
+					default -> {}
 				}
-				default -> {
-					throw new ObjReaderException("Invalid element size.", lineInd);
-				}
 			}
+		} catch (ObjReaderException e) {
+			// Об ошибке сообщит parse
+		}
+	}
+
+	private static int getChunkSize(final long contentSize) {
+		final long chunkCount = (long) ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD;
+		return (int) Math.min(MAPPED_WINDOW_SIZE, Math.max(MIN_CHUNK_SIZE, contentSize / chunkCount));
+	}
+
+	/**
+	 * Делит буфер на куски примерно по chunkSize байт. Каждый кусок, кроме последнего,
+	 * продлевается до ближайшего перевода строки.
+	 */
+	static List<ByteBuffer> splitLines(final ByteBuffer buffer, final int chunkSize) {
+		List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+
+		int chunkStart = buffer.position();
+		final int limit = buffer.limit();
+		while (chunkStart < limit) {
+			int chunkEnd = (int) Math.min((long) chunkStart + chunkSize, limit);
+			while (chunkEnd < limit && buffer.get(chunkEnd - 1) != '\n') {
+				++chunkEnd;
+			}
+			chunks.add(buffer.slice(chunkStart, chunkEnd - chunkStart));
+			chunkStart = chunkEnd;
+		}
+
+		return chunks;
+	}
+
+	/**
+	 * Число элементов каждого вида в куске файла
+	 */
+	static final class ElementCounts {
+		int vertexCount;
+		int textureVertexCount;
+		int normalCount;
+		int polygonCount;
+		int vertexIndexCount;
+		int textureVertexIndexCount;
+		int normalIndexCount;
+
+		void add(final ElementCounts other) {
+			vertexCount += other.vertexCount;
+			textureVertexCount += other.textureVertexCount;
+			normalCount += other.normalCount;
+			polygonCount += other.polygonCount;
+			vertexIndexCount += other.vertexIndexCount;
+			textureVertexIndexCount += other.textureVertexIndexCount;
+			normalIndexCount += other.normalIndexCount;
+		}
+	}
+
+	/**
+	 * Пока writer не задан, считает элементы куска, затем разбирает кусок через writer
+	 */
+	private static class ChunkParseTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final ByteBuffer chunk;
+		private final ReadProgress progress;
+		private final ElementCounts counts = new ElementCounts();
+		private MeshBuilder writer;
+		private int lineCount;
+		private ObjReaderException error;
+
+		ChunkParseTask(final ByteBuffer chunk, final ReadProgress progress) {
+			this.chunk = chunk;
+			this.progress = progress;
+		}
+
+		@Override
+		protected void compute() {
+			if (writer == null) {
+				count(chunk.duplicate(), counts, progress);
+				return;
+			}
+			try {
+				lineCount = parse(chunk.duplicate(), 0, writer, progress);
+			} catch (ObjReaderException e) {
+				error = e;
+			}
+		}
+	}
+
+	/**
+	 * Отображает файл в память окнами не больше MAPPED_WINDOW_SIZE байт. Каждое окно, кроме последнего,
+	 * обрезается по последнему переводу строки, так что ни одна строка не разрывается между окнами.
+	 */
+	static List<ByteBuffer> mapLines(final FileChannel channel) throws IOException {
+		final long fileSize = channel.size();
+		List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
 
-		} catch(NumberFormatException e) {
-			throw new ObjReaderException("Failed to parse int value.", lineInd);
+		long position = 0;
+		while (position < fileSize) {
+			final long windowSize = Math.min(MAPPED_WINDOW_SIZE, fileSize - position);
+			ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
 
-		} catch(IndexOutOfBoundsException e) {
-			throw new ObjReaderException("Too few arguments.", lineInd);
+			int segmentSize = (int) windowSize;
+			if (position + windowSize < fileSize) {
+				while (segmentSize > 0 && window.get(segmentSize - 1) != '\n') {
+					--segmentSize;
+				}
+				if (segmentSize == 0) {
+					throw new IOException("OBJ line at byte " + position + " is longer than " + MAPPED_WINDOW_SIZE + " bytes");
+				}
+			}
+
+			segments.add(window.limit(segmentSize));
+			position += segmentSize;
 		}
+
+		return segments;
 	}
 }
@@ -1,7 +1,22 @@
 package com.cgvsu.objreader;
 
 public class ObjReaderException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String errorMessage;
+    private final int lineInd;
+
     public ObjReaderException(String errorMessage, int lineInd) {
         super("Error parsing OBJ file on line: " + lineInd + ". " + errorMessage);
+        this.errorMessage = errorMessage;
+        this.lineInd = lineInd;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public int getLineInd() {
+        return lineInd;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package com.cgvsu.objreader;
+
+/**
+ * Получает от ObjReader сведения о ходе чтения и может его прервать.
+ * При параллельном чтении методы вызываются из рабочих потоков ForkJoinPool.
+ */
+public interface ObjReaderListener {
+
+    /**
+     * @param bytesConsumed сколько байт файла уже разобрано
+     * @param bytesTotal размер файла в байтах
+     * @param linesParsed сколько строк уже разобрано
+     */
+    void onProgress(long bytesConsumed, long bytesTotal, long linesParsed);
+
+    /**
+     * Проверяется между порциями строк. Если вернуть true, чтение прерывается с CancellationException
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
@@ -0,0 +1,434 @@
+package com.cgvsu.objreader;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Токенизатор OBJ, который один раз проходит по байтам буфера и разбирает числа прямо в нём,
+ * не создавая строк на каждое слово. Строки вида "1.5" или "3/1/2" превращаются в числа без split и regex.
+ * Если число записано в непривычной форме (например, "1e100" или "NaN"), разбор отдаётся Float.parseFloat,
+ * чтобы результат и ошибки совпадали со старым поведением ObjReader.
+ */
+final class ObjTokenizer {
+
+	static final int OTHER = 0;
+	static final int VERTEX = 1;
+	static final int TEXTURE = 2;
+	static final int NORMAL = 3;
+	static final int FACE = 4;
+
+	// Степени десятки, которые представимы в double точно. Нужны для быстрого пути разбора float
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	// Для поиска перевода строки по восемь байт за раз
+	private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+	private static final long NEW_LINES = 0x0A0A0A0A0A0A0A0AL;
+
+	private final ByteBuffer buffer;
+	// true, если первый байт слова, прочитанного getLong, старший
+	private final boolean bigEndian;
+	private int position;
+	private int lineEnd;
+	private int nextLineStart;
+	private int lineInd;
+
+	private int[] faceVertexIndices = new int[8];
+	private int[] faceTextureVertexIndices = new int[8];
+	private int[] faceNormalIndices = new int[8];
+	private int faceVertexCount;
+	private int faceTextureVertexCount;
+	private int faceNormalCount;
+
+	/**
+	 * @param buffer буфер с содержимым файла, разбираются байты от position до limit
+	 * @param lineInd номер строки, предшествующей первой строке буфера
+	 */
+	ObjTokenizer(final ByteBuffer buffer, final int lineInd) {
+		this.buffer = buffer;
+		this.bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+		this.nextLineStart = buffer.position();
+		this.lineInd = lineInd;
+	}
+
+	int getLineInd() {
+		return lineInd;
+	}
+
+	/**
+	 * @return индекс в буфере, с которого начнётся следующая строка
+	 */
+	int getPosition() {
+		return Math.min(nextLineStart, buffer.limit());
+	}
+
+	/**
+	 * Переходит к следующей строке
+	 * @return false, если строки закончились
+	 */
+	boolean nextLine() {
+		final int limit = buffer.limit();
+		if (nextLineStart >= limit) {
+			return false;
+		}
+
+		position = nextLineStart;
+		int end = findLineEnd(position, limit);
+		nextLineStart = end + 1;
+		if (end > position && buffer.get(end - 1) == '\r') {
+			--end;
+		}
+		lineEnd = end;
+		++lineInd;
+		return true;
+	}
+
+	/**
+	 * @return индекс первого '\n' начиная с from или limit, если его нет. Байты читаются по восемь:
+	 * после xor с NEW_LINES переводы строки становятся нулевыми байтами, и выражение ниже оставляет
+	 * старший бит только у нулевых байтов, без ложных срабатываний на соседних
+	 */
+	private int findLineEnd(final int from, final int limit) {
+		int end = from;
+		while (end + Long.BYTES <= limit) {
+			final long word = buffer.getLong(end) ^ NEW_LINES;
+			final long found = ~(((word & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | word | LOW_SEVEN_BITS);
+			if (found != 0) {
+				return end + (bigEndian ? Long.numberOfLeadingZeros(found) : Long.numberOfTrailingZeros(found)) / 8;
+			}
+			end += Long.BYTES;
+		}
+		while (end < limit && buffer.get(end) != '\n') {
+			++end;
+		}
+		return end;
+	}
+
+	/**
+	 * Пропускает пробелы и проверяет, осталось ли в строке ещё одно слово
+	 */
+	boolean hasNextWord() {
+		while (position < lineEnd && isWhitespace(buffer.get(position))) {
+			++position;
+		}
+		return position < lineEnd;
+	}
+
+	/**
+	 * Читает первое слово строки
+	 * @return одна из констант VERTEX, TEXTURE, NORMAL, FACE или OTHER
+	 */
+	int nextKeyword() {
+		if (!hasNextWord()) {
+			return OTHER;
+		}
+
+		final int start = position;
+		final int end = wordEnd(start);
+		position = end;
+
+		final byte first = buffer.get(start);
+		if (end - start == 1) {
+			if (first == 'v') {
+				return VERTEX;
+			}
+			if (first == 'f') {
+				return FACE;
+			}
+		} else if (end - start == 2 && first == 'v') {
+			final byte second = buffer.get(start + 1);
+			if (second == 't') {
+				return TEXTURE;
+			}
+			if (second == 'n') {
+				return NORMAL;
+			}
+		}
+		return OTHER;
+	}
+
+	/**
+	 * Читает следующее слово строки как float
+	 * @param tooFewArgumentsMessage сообщение об ошибке, если в строке больше нет слов
+	 */
+	float nextFloat(final String tooFewArgumentsMessage) {
+		if (!hasNextWord()) {
+			throw new ObjReaderException(tooFewArgumentsMessage, lineInd);
+		}
+
+		final int start = position;
+		final int end = wordEnd(start);
+		position = end;
+
+		final float value = parseFloat(start, end);
+		if (Float.isNaN(value)) {
+			return parseFloatFallback(start, end);
+		}
+		return value;
+	}
+
+	/**
+	 * Читает оставшиеся слова строки как вершины полигона вида v, v/vt, v/vt/vn или v//vn.
+	 * Индексы переводятся из нумерации OBJ (с единицы) в нумерацию с нуля.
+	 */
+	void readFace() {
+		faceVertexCount = 0;
+		faceTextureVertexCount = 0;
+		faceNormalCount = 0;
+
+		while (hasNextWord()) {
+			final int start = position;
+			final int end = wordEnd(start);
+			position = end;
+			readFaceWord(start, end);
+		}
+	}
+
+	int getFaceVertexCount() {
+		return faceVertexCount;
+	}
+
+	int getFaceTextureVertexCount() {
+		return faceTextureVertexCount;
+	}
+
+	int getFaceNormalCount() {
+		return faceNormalCount;
+	}
+
+	int getFaceVertexIndex(final int index) {
+		return faceVertexIndices[index];
+	}
+
+	int getFaceTextureVertexIndex(final int index) {
+		return faceTextureVertexIndices[index];
+	}
+
+	int getFaceNormalIndex(final int index) {
+		return faceNormalIndices[index];
+	}
+
+	// Повторяет поведение word.split("/"): пустые части в конце слова отбрасываются
+	private void readFaceWord(final int start, final int end) {
+		int vEnd = end;
+		int vtStart = end;
+		int vtEnd = end;
+		int vnStart = end;
+		int vnEnd = end;
+
+		int partIndex = 0;
+		int partStart = start;
+		int partCount = 0;
+		for (int i = start; i <= end; i++) {
+			if (i < end && buffer.get(i) != '/') {
+				continue;
+			}
+			if (i > partStart) {
+				partCount = partIndex + 1;
+			}
+			switch (partIndex) {
+				case 0 -> {
+					vEnd = i;
+					vtStart = i + 1;
+				}
+				case 1 -> {
+					vtEnd = i;
+					vnStart = i + 1;
+				}
+				case 2 -> vnEnd = i;
+				default -> {}
+			}
+			++partIndex;
+			partStart = i + 1;
+		}
+
+		switch (partCount) {
+			case 1 -> {
+				addFaceVertexIndex(parseInt(start, vEnd) - 1);
+			}
+			case 2 -> {
+				addFaceVertexIndex(parseInt(start, vEnd) - 1);
+				addFaceTextureVertexIndex(parseInt(vtStart, vtEnd) - 1);
+			}
+			case 3 -> {
+				addFaceVertexIndex(parseInt(start, vEnd) - 1);
+				addFaceNormalIndex(parseInt(vnStart, vnEnd) - 1);
+				if (vtStart != vtEnd) {
+					addFaceTextureVertexIndex(parseInt(vtStart, vtEnd) - 1);
+				}
+			}
+			default -> {
+				throw new ObjReaderException("Invalid element size.", lineInd);
+			}
+		}
+	}
+
+	private void addFaceVertexIndex(final int value) {
+		if (faceVertexCount == faceVertexIndices.length) {
+			faceVertexIndices = grow(faceVertexIndices);
+		}
+		faceVertexIndices[faceVertexCount++] = value;
+	}
+
+	private void addFaceTextureVertexIndex(final int value) {
+		if (faceTextureVertexCount == faceTextureVertexIndices.length) {
+			faceTextureVertexIndices = grow(faceTextureVertexIndices);
+		}
+		faceTextureVertexIndices[faceTextureVertexCount++] = value;
+	}
+
+	private void addFaceNormalIndex(final int value) {
+		if (faceNormalCount == faceNormalIndices.length) {
+			faceNormalIndices = grow(faceNormalIndices);
+		}
+		faceNormalIndices[faceNormalCount++] = value;
+	}
+
+	private static int[] grow(final int[] array) {
+		int[] result = new int[array.length * 2];
+		System.arraycopy(array, 0, result, 0, array.length);
+		return result;
+	}
+
+	private int parseInt(final int start, final int end) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+			negative = buffer.get(i) == '-';
+			++i;
+		}
+		if (i == end) {
+			throw new ObjReaderException("Failed to parse int value.", lineInd);
+		}
+
+		// Считаем в отрицательных числах, как Integer.parseInt, чтобы поместился Integer.MIN_VALUE
+		final int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+		int result = 0;
+		for (; i < end; i++) {
+			final int digit = buffer.get(i) - '0';
+			if (digit < 0 || digit > 9 || result < limit / 10 || result * 10 < limit + digit) {
+				throw new ObjReaderException("Failed to parse int value.", lineInd);
+			}
+			result = result * 10 - digit;
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Быстрый разбор десятичной записи [+-]digits[.digits][(e|E)[+-]digits].
+	 * Пока мантисса меньше 2^53, а порядок по модулю не больше 22, результат в double получается одной
+	 * корректно округлённой операцией. Приведение к float может ошибиться только тогда, когда double попал
+	 * ровно в середину между двумя соседними float, такой случай отдаём Float.parseFloat.
+	 * @return разобранное значение или NaN, если запись не подходит для быстрого пути
+	 */
+	private float parseFloat(final int start, final int end) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+			negative = buffer.get(i) == '-';
+			++i;
+		}
+
+		long mantissa = 0;
+		int significantDigits = 0;
+		int exponent = 0;
+		boolean hasDigits = false;
+
+		for (; i < end; i++) {
+			final int digit = buffer.get(i) - '0';
+			if (digit < 0 || digit > 9) {
+				break;
+			}
+			hasDigits = true;
+			if (mantissa != 0 || digit != 0) {
+				mantissa = mantissa * 10 + digit;
+				++significantDigits;
+			}
+		}
+		if (i < end && buffer.get(i) == '.') {
+			for (++i; i < end; i++) {
+				final int digit = buffer.get(i) - '0';
+				if (digit < 0 || digit > 9) {
+					break;
+				}
+				hasDigits = true;
+				if (mantissa != 0 || digit != 0) {
+					mantissa = mantissa * 10 + digit;
+					++significantDigits;
+				}
+				--exponent;
+			}
+		}
+		if (!hasDigits || significantDigits > 18) {
+			return Float.NaN;
+		}
+
+		if (i < end && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+			++i;
+			boolean negativeExponent = false;
+			if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+				negativeExponent = buffer.get(i) == '-';
+				++i;
+			}
+			if (i == end) {
+				return Float.NaN;
+			}
+			int explicitExponent = 0;
+			for (; i < end; i++) {
+				final int digit = buffer.get(i) - '0';
+				if (digit < 0 || digit > 9 || explicitExponent > 1000) {
+					return Float.NaN;
+				}
+				explicitExponent = explicitExponent * 10 + digit;
+			}
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+		if (i != end) {
+			return Float.NaN;
+		}
+
+		if (mantissa == 0) {
+			return negative ? -0.0f : 0.0f;
+		}
+		if (mantissa >= MAX_EXACT_MANTISSA || exponent < -22 || exponent > 22) {
+			return Float.NaN;
+		}
+
+		final double value = exponent < 0
+				? mantissa / POWERS_OF_TEN[-exponent]
+				: mantissa * POWERS_OF_TEN[exponent];
+		// Младшие 29 бит мантиссы double отбрасываются при приведении к float.
+		// Ровно 1 << 28 означает середину между двумя float
+		if ((Double.doubleToRawLongBits(value) & 0x1FFFFFFFL) == 0x10000000L) {
+			return Float.NaN;
+		}
+
+		final float result = (float) value;
+		return negative ? -result : result;
+	}
+
+	private float parseFloatFallback(final int start, final int end) {
+		byte[] word = new byte[end - start];
+		buffer.get(start, word);
+		try {
+			return Float.parseFloat(new String(word, StandardCharsets.UTF_8));
+		} catch (NumberFormatException e) {
+			throw new ObjReaderException("Failed to parse float value.", lineInd);
+		}
+	}
+
+	private int wordEnd(int index) {
+		while (index < lineEnd && !isWhitespace(buffer.get(index))) {
+			++index;
+		}
+		return index;
+	}
+
+	private static boolean isWhitespace(final byte value) {
+		return value == ' ' || value == '\t' || value == '\u000B' || value == '\f' || value == '\r';
+	}
+}
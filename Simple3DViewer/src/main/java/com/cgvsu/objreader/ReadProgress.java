@@ -0,0 +1,40 @@
+package com.cgvsu.objreader;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Собирает прогресс чтения со всех кусков файла и передаёт его слушателю
+ */
+final class ReadProgress {
+
+    // Раз в столько строк каждый кусок сообщает о прогрессе и проверяет отмену
+    static final int LINES_PER_REPORT = 1 << 16;
+
+    private final ObjReaderListener listener;
+    private final long bytesTotal;
+    private final AtomicLong bytesConsumed = new AtomicLong();
+    private final AtomicLong linesParsed = new AtomicLong();
+
+    ReadProgress(final ObjReaderListener listener, final long bytesTotal) {
+        this.listener = listener;
+        this.bytesTotal = bytesTotal;
+    }
+
+    void advance(final long bytes, final long lines) {
+        if (listener == null) {
+            return;
+        }
+        checkCancelled();
+        listener.onProgress(bytesConsumed.addAndGet(bytes), bytesTotal, linesParsed.addAndGet(lines));
+    }
+
+    /**
+     * @throws CancellationException если слушатель отменил чтение
+     */
+    void checkCancelled() {
+        if (listener != null && listener.isCancelled()) {
+            throw new CancellationException("OBJ reading was cancelled");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.cgvsu.objwriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Locale;
+
+/**
+ * Пишет текст OBJ байтами в буфер. Если задан канал, заполненный буфер сбрасывается в него,
+ * иначе буфер растёт и весь текст остаётся в памяти.
+ */
+class ObjEncoder {
+
+    // Числа меньше этой границы после умножения на 10^4 точно помещаются в целую часть double
+    private static final float MAX_FAST_FIXED_VALUE = 1e11f;
+
+    private static final byte[] DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9'};
+
+    private final WritableByteChannel channel;
+    private ByteBuffer buffer;
+
+    ObjEncoder(final WritableByteChannel channel, final int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    ObjEncoder(final int initialCapacity) {
+        this.channel = null;
+        this.buffer = ByteBuffer.allocate(initialCapacity);
+    }
+
+    ObjEncoder writeAscii(final String value) throws IOException {
+        ensureRemaining(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer.put((byte) value.charAt(i));
+        }
+        return this;
+    }
+
+    ObjEncoder writeByte(final char value) throws IOException {
+        ensureRemaining(1);
+        buffer.put((byte) value);
+        return this;
+    }
+
+    ObjEncoder writeInt(final int value) throws IOException {
+        ensureRemaining(11);
+        long rest = value;
+        if (rest < 0) {
+            buffer.put((byte) '-');
+            rest = -rest;
+        }
+        writeDigits(rest, 1);
+        return this;
+    }
+
+    /**
+     * Пишет число так же, как String.format("%.4f", value) с точкой в качестве разделителя:
+     * четыре знака после точки, округление половины от нуля. Значение float умножается на 10^4 в double
+     * без потери точности, поэтому округлять можно прямо полученное произведение.
+     */
+    ObjEncoder writeFixed4(final float value) throws IOException {
+        if (!(Math.abs(value) < MAX_FAST_FIXED_VALUE)) {
+            return writeAscii(String.format(Locale.ROOT, "%.4f", value));
+        }
+
+        ensureRemaining(32);
+        if (Float.floatToRawIntBits(value) < 0) {
+            buffer.put((byte) '-');
+        }
+        final long units = (long) (Math.abs((double) value) * 10000.0 + 0.5);
+        writeDigits(units / 10000, 1);
+        buffer.put((byte) '.');
+        writeDigits(units % 10000, 4);
+        return this;
+    }
+
+    /**
+     * Сбрасывает накопленные байты в канал
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * @return записанные байты, готовые к чтению. Только для кодировщика без канала
+     */
+    ByteBuffer toByteBuffer() {
+        return buffer.duplicate().flip();
+    }
+
+    private void writeDigits(long value, final int minDigits) {
+        int digitCount = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            ++digitCount;
+        }
+        digitCount = Math.max(digitCount, minDigits);
+
+        final int end = buffer.position() + digitCount;
+        for (int index = end - 1; index >= buffer.position(); index--) {
+            buffer.put(index, DIGITS[(int) (value % 10)]);
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+
+    private void ensureRemaining(final int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        if (channel != null) {
+            flush();
+        }
+        if (buffer.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            grown.put(buffer.flip());
+            buffer = grown;
+        }
+    }
+}
@@ -1,15 +1,33 @@
 package com.cgvsu.objwriter;
 
-import com.cgvsu.math.Vector2f;
-import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.MeshData;
 import com.cgvsu.model.Model;
-import com.cgvsu.model.Polygon;
 
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class ObjWriter {
 
+    // Размер буфера, через который текст модели пишется в файл. Больше памяти запись не требует
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    // Параллельная запись: сколько элементов кодирует одна задача и сколько задач на поток в одной пачке
+    private static final int PARALLEL_RANGE_SIZE = 1 << 14;
+    private static final int TASKS_PER_THREAD = 4;
+
+    // Примерные размеры строк в байтах, чтобы буферы задач сразу выделялись нужного размера
+    private static final int VERTEX_LINE_SIZE = 36;
+    private static final int POLYGON_LINE_SIZE = 32;
+    private static final int FOOTER_SIZE = 64;
+
     public static void createObjFile(String absoluteFilePath) throws IOException {
         String fileSeparator = System.getProperty("file.separator");
         absoluteFilePath += fileSeparator + "file.obj";
@@ -17,92 +35,193 @@ public class ObjWriter {
     }
 
     public static void writeToFile(Model model, File file) throws IOException {
-        String str = "";
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ObjEncoder encoder = new ObjEncoder(channel, WRITE_BUFFER_SIZE);
 
-        str += writeVertexes(model.vertices);
-        str += writeTextureVertexes(model.textureVertices);
-        str += writeNormals(model.normals);
-        str += writePolygons(model.polygons);
+            final MeshData meshData = model.getMeshData();
+            writeVertexes(encoder, meshData);
+            writeTextureVertexes(encoder, meshData);
+            writeNormals(encoder, meshData);
+            writePolygons(encoder, meshData);
 
-        toFile(str, file.getAbsolutePath());
+            encoder.flush();
+        }
     }
 
-    protected static void toFile(String line, String fileName) throws FileNotFoundException {
-        PrintWriter printWriter = new PrintWriter(fileName);
-        printWriter.print(line);
-        printWriter.close();
+    /**
+     * Записывает модель так же, как writeToFile, но кодирует текст на нескольких ядрах. Каждый раздел
+     * делится на диапазоны, диапазоны кодируются в отдельные буферы задачами на ForkJoinPool и затем
+     * записываются по порядку одной gathering-записью FileChannel. Чтобы не держать весь файл в памяти,
+     * диапазоны обрабатываются пачками по несколько на поток.
+     */
+    public static void writeToFileParallel(Model model, File file) throws IOException {
+        writeToFileParallel(model, file, PARALLEL_RANGE_SIZE);
     }
 
-    protected static String writeVertexes(final ArrayList<Vector3f> v){
-        String str = "";
-        for (int i = 0; i < v.size(); i++){
-            final String vx = String.format("%.4f", v.get(i).x).replace(',', '.');
-            final String vy = String.format("%.4f", v.get(i).y).replace(',', '.');
-            final String vz = String.format("%.4f", v.get(i).z).replace(',', '.');
-            str = str + "v  " + vx + " " + vy + " " + vz + "\n";
+    static void writeToFileParallel(final Model model, final File file, final int rangeSize) throws IOException {
+        final MeshData meshData = model.getMeshData();
+        List<EncodeTask> tasks = new ArrayList<EncodeTask>();
+        addRangeTasks(tasks, meshData.getVertexCount(), rangeSize, VERTEX_LINE_SIZE,
+                (encoder, from, to) -> writeVertexRange(encoder, meshData, from, to));
+        tasks.add(new EncodeTask(FOOTER_SIZE,
+                encoder -> writeSectionFooter(encoder, meshData.getVertexCount(), "vertices")));
+        addRangeTasks(tasks, meshData.getTextureVertexCount(), rangeSize, VERTEX_LINE_SIZE,
+                (encoder, from, to) -> writeTextureVertexRange(encoder, meshData, from, to));
+        tasks.add(new EncodeTask(FOOTER_SIZE,
+                encoder -> writeSectionFooter(encoder, meshData.getTextureVertexCount(), "texture coords")));
+        addRangeTasks(tasks, meshData.getNormalCount(), rangeSize, VERTEX_LINE_SIZE,
+                (encoder, from, to) -> writeNormalRange(encoder, meshData, from, to));
+        tasks.add(new EncodeTask(FOOTER_SIZE,
+                encoder -> writeSectionFooter(encoder, meshData.getNormalCount(), "normals")));
+        addRangeTasks(tasks, meshData.getPolygonCount(), rangeSize, POLYGON_LINE_SIZE,
+                (encoder, from, to) -> writePolygonRange(encoder, meshData, from, to));
+        tasks.add(new EncodeTask(FOOTER_SIZE,
+                encoder -> writeSectionFooter(encoder, meshData.getPolygonCount(), "polygons")));
+
+        final int batchSize = ForkJoinPool.getCommonPoolParallelism() * TASKS_PER_THREAD;
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int batchStart = 0; batchStart < tasks.size(); batchStart += batchSize) {
+                final List<EncodeTask> batch = tasks.subList(batchStart, Math.min(batchStart + batchSize, tasks.size()));
+                ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(batch);
+                    }
+                });
+
+                ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+                long bytesLeft = 0;
+                for (int i = 0; i < buffers.length; i++) {
+                    buffers[i] = batch.get(i).result;
+                    bytesLeft += buffers[i].remaining();
+                }
+                while (bytesLeft > 0) {
+                    bytesLeft -= channel.write(buffers);
+                }
+                for (EncodeTask task : batch) {
+                    task.result = null;
+                }
+            }
         }
-        str = str + "# " + v.size() + " vertices";
-        str+="\n";
-        str+="\n";
-        return str;
-    }
-
-    protected static String writeTextureVertexes(final ArrayList<Vector2f> vt){
-        String str = "";
-        for (int i = 0; i < vt.size(); i++){
-            final String vtx = String.format("%.4f", vt.get(i).x).replace(',', '.');
-            final String vty = String.format("%.4f", vt.get(i).y).replace(',', '.');
-            str = str + "vt " + vtx + " " + vty + " " + "0.0000" + "\n";
+    }
+
+    private static void addRangeTasks(
+            final List<EncodeTask> tasks, final int count, final int rangeSize, final int lineSize,
+            final RangeWriter rangeWriter) {
+        for (int from = 0; from < count; from += rangeSize) {
+            final int rangeFrom = from;
+            final int rangeTo = Math.min(from + rangeSize, count);
+            tasks.add(new EncodeTask((rangeTo - rangeFrom) * lineSize,
+                    encoder -> rangeWriter.write(encoder, rangeFrom, rangeTo)));
         }
-        str = str + "# " + vt.size() + " texture coords";
-        str+="\n";
-        str+="\n";
-        return str;
-    }
-
-    protected static String writeNormals(final ArrayList<Vector3f> vn){
-        String str = "";
-        for (int i = 0; i < vn.size(); i++){
-            final String vx = String.format("%.4f", vn.get(i).x).replace(',', '.');
-            final String vy = String.format("%.4f", vn.get(i).y).replace(',', '.');
-            final String vz = String.format("%.4f", vn.get(i).z).replace(',', '.');
-            str = str + "vn  " + vx + " " + vy + " " + vz + "\n";
+    }
+
+    @FunctionalInterface
+    private interface SectionWriter {
+        void write(ObjEncoder encoder) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface RangeWriter {
+        void write(ObjEncoder encoder, int from, int to) throws IOException;
+    }
+
+    private static class EncodeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int expectedSize;
+        private final SectionWriter sectionWriter;
+        private ByteBuffer result;
+
+        EncodeTask(final int expectedSize, final SectionWriter sectionWriter) {
+            this.expectedSize = expectedSize;
+            this.sectionWriter = sectionWriter;
         }
-        str = str + "# " + vn.size() + " normals";
-        str+="\n";
-        str+="\n";
-        return str;
-    }
-
-    protected static String writePolygons(final ArrayList<Polygon> p){
-        String str = "";
-        for (int i = 0; i < p.size(); i++){
-            str = str + "f ";
-            final Polygon pol = p.get(i);
-            for (int j = 0; j < pol.getVertexIndices().size(); j++){
-                if (!pol.getTextureVertexIndices().isEmpty() && pol.getNormalIndices().isEmpty()){
-                    str = str  + (pol.getVertexIndices().get(j) + 1) + "/"
-                           + (pol.getTextureVertexIndices().get(j) + 1) + " ";
-                }
-                if (pol.getTextureVertexIndices().isEmpty() && pol.getNormalIndices().isEmpty()){
-                    str = str  + (pol.getVertexIndices().get(j) + 1) +  " ";
-                }
-                if (!pol.getTextureVertexIndices().isEmpty() && !pol.getNormalIndices().isEmpty()){
-                    str = str  + (pol.getVertexIndices().get(j) + 1) + "/"
-                            + (pol.getTextureVertexIndices().get(j) + 1) + "/"
-                            + (pol.getNormalIndices().get(j) + 1) + " ";
+
+        @Override
+        protected void compute() {
+            ObjEncoder encoder = new ObjEncoder(Math.max(expectedSize, FOOTER_SIZE));
+            try {
+                sectionWriter.write(encoder);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            result = encoder.toByteBuffer();
+        }
+    }
+
+    protected static void writeVertexes(final ObjEncoder encoder, final MeshData meshData) throws IOException {
+        writeVertexRange(encoder, meshData, 0, meshData.getVertexCount());
+        writeSectionFooter(encoder, meshData.getVertexCount(), "vertices");
+    }
+
+    protected static void writeTextureVertexes(final ObjEncoder encoder, final MeshData meshData) throws IOException {
+        writeTextureVertexRange(encoder, meshData, 0, meshData.getTextureVertexCount());
+        writeSectionFooter(encoder, meshData.getTextureVertexCount(), "texture coords");
+    }
+
+    protected static void writeNormals(final ObjEncoder encoder, final MeshData meshData) throws IOException {
+        writeNormalRange(encoder, meshData, 0, meshData.getNormalCount());
+        writeSectionFooter(encoder, meshData.getNormalCount(), "normals");
+    }
+
+    protected static void writePolygons(final ObjEncoder encoder, final MeshData meshData) throws IOException {
+        writePolygonRange(encoder, meshData, 0, meshData.getPolygonCount());
+        writeSectionFooter(encoder, meshData.getPolygonCount(), "polygons");
+    }
+
+    private static void writeVertexRange(final ObjEncoder encoder, final MeshData meshData, final int from, final int to)
+            throws IOException {
+        for (int i = from; i < to; i++) {
+            encoder.writeAscii("v  ").writeFixed4(meshData.getVertexX(i))
+                    .writeByte(' ').writeFixed4(meshData.getVertexY(i))
+                    .writeByte(' ').writeFixed4(meshData.getVertexZ(i)).writeByte('\n');
+        }
+    }
+
+    private static void writeTextureVertexRange(
+            final ObjEncoder encoder, final MeshData meshData, final int from, final int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            encoder.writeAscii("vt ").writeFixed4(meshData.getTextureVertexX(i))
+                    .writeByte(' ').writeFixed4(meshData.getTextureVertexY(i))
+                    .writeAscii(" 0.0000\n");
+        }
+    }
+
+    private static void writeNormalRange(final ObjEncoder encoder, final MeshData meshData, final int from, final int to)
+            throws IOException {
+        for (int i = from; i < to; i++) {
+            encoder.writeAscii("vn  ").writeFixed4(meshData.getNormalX(i))
+                    .writeByte(' ').writeFixed4(meshData.getNormalY(i))
+                    .writeByte(' ').writeFixed4(meshData.getNormalZ(i)).writeByte('\n');
+        }
+    }
+
+    private static void writePolygonRange(final ObjEncoder encoder, final MeshData meshData, final int from, final int to)
+            throws IOException {
+        for (int i = from; i < to; i++) {
+            encoder.writeAscii("f ");
+            final boolean hasTextures = meshData.getPolygonTextureVertexCount(i) != 0;
+            final boolean hasNormals = meshData.getPolygonNormalCount(i) != 0;
+            for (int j = 0; j < meshData.getPolygonVertexCount(i); j++) {
+                encoder.writeInt(meshData.getPolygonVertexIndex(i, j) + 1);
+                if (hasTextures) {
+                    encoder.writeByte('/').writeInt(meshData.getPolygonTextureVertexIndex(i, j) + 1);
                 }
-                if (pol.getTextureVertexIndices().isEmpty() && !pol.getNormalIndices().isEmpty()){
-                    str = str  + (pol.getVertexIndices().get(j) + 1) + "//"
-                            + (pol.getNormalIndices().get(j) + 1) + " ";
+                if (hasNormals) {
+                    encoder.writeAscii(hasTextures ? "/" : "//").writeInt(meshData.getPolygonNormalIndex(i, j) + 1);
                 }
+                encoder.writeByte(' ');
             }
-            str = str  + "\n";
+            encoder.writeByte('\n');
         }
-        str = str + "# " + p.size() + " polygons";
-        str+="\n";
-        str+="\n";
-        return str;
+    }
+
+    private static void writeSectionFooter(final ObjEncoder encoder, final int count, final String title)
+            throws IOException {
+        encoder.writeAscii("# ").writeInt(count).writeByte(' ').writeAscii(title).writeAscii("\n\n");
     }
 
 }
@@ -1,6 +1,6 @@
 package com.cgvsu.render_engine;
-import javax.vecmath.Vector3f;
-import javax.vecmath.Matrix4f;
+import io.github.annusshka.Math.Matrix.Matrix4f;
+import io.github.annusshka.Math.Vector.Vector3f;
 
 public class Camera {
 
@@ -21,14 +21,19 @@ public class Camera {
 
     public void setPosition(final Vector3f position) {
         this.position = position;
+        ++modificationCount;
     }
 
     public void setTarget(final Vector3f target) {
         this.target = target;
+        ++modificationCount;
     }
 
     public void setAspectRatio(final float aspectRatio) {
-        this.aspectRatio = aspectRatio;
+        if (this.aspectRatio != aspectRatio) {
+            this.aspectRatio = aspectRatio;
+            ++modificationCount;
+        }
     }
 
     public Vector3f getPosition() {
@@ -40,11 +45,21 @@ public class Camera {
     }
 
     public void movePosition(final Vector3f translation) {
-        this.position.add(translation);
+        Vector3f.add(position, translation, position);
+        ++modificationCount;
     }
 
     public void moveTarget(final Vector3f translation) {
-        this.target.add(target);
+        Vector3f.add(target, translation, target);
+        ++modificationCount;
+    }
+
+    /**
+     * @return число, которое растёт при каждом изменении камеры через её методы.
+     * Изменения векторов, полученных из getPosition и getTarget, не учитываются
+     */
+    long getModificationCount() {
+        return modificationCount;
     }
 
     Matrix4f getViewMatrix() {
@@ -61,4 +76,5 @@ public class Camera {
     private float aspectRatio;
     private float nearPlane;
     private float farPlane;
+    private long modificationCount;
 }
\ No newline at end of file
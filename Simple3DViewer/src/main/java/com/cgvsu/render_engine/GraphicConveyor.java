@@ -1,15 +1,25 @@
 package com.cgvsu.render_engine;
-import javax.vecmath.*;
+import com.cgvsu.affinetransformation.AffineTransformation;
+import com.cgvsu.model.ModelTransform;
+import io.github.annusshka.Math.Matrix.Matrix4f;
+import io.github.annusshka.Math.Vector.Vector2f;
+import io.github.annusshka.Math.Vector.Vector3f;
 
+/**
+ * Матрицы модели, вида и проекции. Как и везде в io.github.annusshka.Math, матрицы хранятся по строкам,
+ * а вершина умножается на них как столбец, поэтому model-view-projection - это projection * view * model
+ */
 public class GraphicConveyor {
 
     public static Matrix4f rotateScaleTranslate() {
-        float[] matrix = new float[]{
-                1, 0, 0, 0,
-                0, 1, 0, 0,
-                0, 0, 1, 0,
-                0, 0, 0, 1};
-        return new Matrix4f(matrix);
+        return new Matrix4f().setIdentity();
+    }
+
+    /**
+     * Матрица модели по её смещению, повороту и масштабу
+     */
+    public static Matrix4f rotateScaleTranslate(final ModelTransform transform) {
+        return AffineTransformation.createModelMatrix(transform);
     }
 
     public static Matrix4f lookAt(Vector3f eye, Vector3f target) {
@@ -17,23 +27,15 @@ public class GraphicConveyor {
     }
 
     public static Matrix4f lookAt(Vector3f eye, Vector3f target, Vector3f up) {
-        Vector3f resultX = new Vector3f();
-        Vector3f resultY = new Vector3f();
-        Vector3f resultZ = new Vector3f();
-
-        resultZ.sub(target, eye);
-        resultX.cross(up, resultZ);
-        resultY.cross(resultZ, resultX);
-
-        resultX.normalize();
-        resultY.normalize();
-        resultZ.normalize();
+        Vector3f resultZ = Vector3f.normalize(Vector3f.sub(target, eye, new Vector3f()), new Vector3f());
+        Vector3f resultX = Vector3f.normalize(Vector3f.cross(up, resultZ, new Vector3f()), new Vector3f());
+        Vector3f resultY = Vector3f.normalize(Vector3f.cross(resultZ, resultX, new Vector3f()), new Vector3f());
 
         float[] matrix = new float[]{
-                resultX.x, resultY.x, resultZ.x, 0,
-                resultX.y, resultY.y, resultZ.y, 0,
-                resultX.z, resultY.z, resultZ.z, 0,
-                -resultX.dot(eye), -resultY.dot(eye), -resultZ.dot(eye), 1};
+                resultX.get(0), resultX.get(1), resultX.get(2), -Vector3f.dot(resultX, eye),
+                resultY.get(0), resultY.get(1), resultY.get(2), -Vector3f.dot(resultY, eye),
+                resultZ.get(0), resultZ.get(1), resultZ.get(2), -Vector3f.dot(resultZ, eye),
+                0, 0, 0, 1};
         return new Matrix4f(matrix);
     }
 
@@ -43,24 +45,32 @@ public class GraphicConveyor {
             final float nearPlane,
             final float farPlane) {
         Matrix4f result = new Matrix4f();
+        float[] m = result.getVector();
         float tangentMinusOnDegree = (float) (1.0F / (Math.tan(fov * 0.5F)));
-        result.m00 = tangentMinusOnDegree / aspectRatio;
-        result.m11 = tangentMinusOnDegree;
-        result.m22 = (farPlane + nearPlane) / (farPlane - nearPlane);
-        result.m23 = 1.0F;
-        result.m32 = 2 * (nearPlane * farPlane) / (nearPlane - farPlane);
+        m[0] = tangentMinusOnDegree / aspectRatio;
+        m[5] = tangentMinusOnDegree;
+        m[10] = (farPlane + nearPlane) / (farPlane - nearPlane);
+        m[11] = 2 * (nearPlane * farPlane) / (nearPlane - farPlane);
+        m[14] = 1.0F;
         return result;
     }
 
+    /**
+     * Переводит вершину матрицей и делит на w. Для массивов вершин есть Matrix4f.transformPerspective
+     */
     public static Vector3f multiplyMatrix4ByVector3(final Matrix4f matrix, final Vector3f vertex) {
-        final float x = (vertex.x * matrix.m00) + (vertex.y * matrix.m10) + (vertex.z * matrix.m20) + matrix.m30;
-        final float y = (vertex.x * matrix.m01) + (vertex.y * matrix.m11) + (vertex.z * matrix.m21) + matrix.m31;
-        final float z = (vertex.x * matrix.m02) + (vertex.y * matrix.m12) + (vertex.z * matrix.m22) + matrix.m32;
-        final float w = (vertex.x * matrix.m03) + (vertex.y * matrix.m13) + (vertex.z * matrix.m23) + matrix.m33;
+        final float[] m = matrix.getVector();
+        final float vx = vertex.get(0);
+        final float vy = vertex.get(1);
+        final float vz = vertex.get(2);
+        final float x = (m[0] * vx) + (m[1] * vy) + (m[2] * vz) + m[3];
+        final float y = (m[4] * vx) + (m[5] * vy) + (m[6] * vz) + m[7];
+        final float z = (m[8] * vx) + (m[9] * vy) + (m[10] * vz) + m[11];
+        final float w = (m[12] * vx) + (m[13] * vy) + (m[14] * vz) + m[15];
         return new Vector3f(x / w, y / w, z / w);
     }
 
-    public static Point2f vertexToPoint(final Vector3f vertex, final int width, final int height) {
-        return new Point2f(vertex.x * width + width / 2.0F, -vertex.y * height + height / 2.0F);
+    public static Vector2f vertexToPoint(final Vector3f vertex, final int width, final int height) {
+        return new Vector2f(vertex.get(0) * width + width / 2.0F, -vertex.get(1) * height + height / 2.0F);
     }
 }
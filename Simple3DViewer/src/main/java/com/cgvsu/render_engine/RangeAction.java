@@ -0,0 +1,50 @@
+package com.cgvsu.render_engine;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Делит диапазон индексов пополам, пока он длиннее порога, и обрабатывает части на общем ForkJoinPool
+ */
+final class RangeAction extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    @FunctionalInterface
+    interface Body {
+        void run(int from, int to);
+    }
+
+    private final Body body;
+    private final int from;
+    private final int to;
+    private final int threshold;
+
+    private RangeAction(final Body body, final int from, final int to, final int threshold) {
+        this.body = body;
+        this.from = from;
+        this.to = to;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Выполняет body для частей [0, count). Короткий диапазон выполняется в текущем потоке
+     */
+    static void run(final int count, final int threshold, final Body body) {
+        if (count <= threshold) {
+            body.run(0, count);
+        } else {
+            ForkJoinPool.commonPool().invoke(new RangeAction(body, 0, count, threshold));
+        }
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= threshold) {
+            body.run(from, to);
+            return;
+        }
+        final int middle = (from + to) >>> 1;
+        invokeAll(new RangeAction(body, from, middle, threshold), new RangeAction(body, middle, to, threshold));
+    }
+}
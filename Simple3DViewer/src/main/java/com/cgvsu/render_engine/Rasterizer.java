@@ -0,0 +1,203 @@
+package com.cgvsu.render_engine;
+
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+
+import java.util.Arrays;
+
+/**
+ * Программная растеризация в собственные буферы: цвет в формате ARGB в int[] и глубина в float[].
+ * Готовый кадр передаётся на Canvas одним вызовом PixelWriter.setPixels.
+ * Все методы рисования принимают прямоугольник отсечения, чтобы разные области кадра можно было рисовать независимо.
+ */
+public class Rasterizer {
+
+    private int width;
+    private int height;
+    private int[] colorBuffer = new int[0];
+    private float[] depthBuffer = new float[0];
+
+    /**
+     * Меняет размер кадра. Буферы перевыделяются, только если им не хватает места
+     */
+    public void resize(final int width, final int height) {
+        this.width = width;
+        this.height = height;
+        final int size = width * height;
+        if (colorBuffer.length < size) {
+            colorBuffer = new int[size];
+            depthBuffer = new float[size];
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void clear(final int color) {
+        clear(color, 0, 0, width, height);
+    }
+
+    /**
+     * Заливает прямоугольник [minX, maxX) x [minY, maxY) цветом и сбрасывает в нём глубину
+     */
+    public void clear(final int color, final int minX, final int minY, final int maxX, final int maxY) {
+        for (int y = minY; y < maxY; y++) {
+            Arrays.fill(colorBuffer, y * width + minX, y * width + maxX, color);
+            Arrays.fill(depthBuffer, y * width + minX, y * width + maxX, Float.POSITIVE_INFINITY);
+        }
+    }
+
+    public void fillTriangle(
+            final float x0, final float y0, final float z0,
+            final float x1, final float y1, final float z1,
+            final float x2, final float y2, final float z2,
+            final int color) {
+        fillTriangle(x0, y0, z0, x1, y1, z1, x2, y2, z2, color, 0, 0, width, height);
+    }
+
+    /**
+     * Закрашивает треугольник с проверкой глубины. Пиксель закрашивается, если его центр лежит внутри
+     * треугольника или на ребре, а интерполированная глубина меньше записанной в буфер.
+     * Рисование ограничено прямоугольником [clipMinX, clipMaxX) x [clipMinY, clipMaxY)
+     */
+    public void fillTriangle(
+            final float x0, final float y0, final float z0,
+            final float x1, final float y1, final float z1,
+            final float x2, final float y2, final float z2,
+            final int color,
+            final int clipMinX, final int clipMinY, final int clipMaxX, final int clipMaxY) {
+        final float area = (x1 - x0) * (y2 - y0) - (y1 - y0) * (x2 - x0);
+        if (!(area != 0) || !Float.isFinite(area)) {
+            return;
+        }
+
+        final int minX = Math.max(clipMinX, (int) Math.floor(Math.min(x0, Math.min(x1, x2))));
+        final int maxX = Math.min(clipMaxX - 1, (int) Math.ceil(Math.max(x0, Math.max(x1, x2))));
+        final int minY = Math.max(clipMinY, (int) Math.floor(Math.min(y0, Math.min(y1, y2))));
+        final int maxY = Math.min(clipMaxY - 1, (int) Math.ceil(Math.max(y0, Math.max(y1, y2))));
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+
+        // Функции рёбер в центре пикселя умножаются на знак площади, чтобы внутренние точки были
+        // неотрицательны при любом обходе вершин. Веса для глубины - те же значения, делённые на площадь.
+        // Функции считаются заново в каждом пикселе, а не накоплением шагов, поэтому результат для пикселя
+        // не зависит от прямоугольника отсечения
+        final float sign = area > 0 ? 1 : -1;
+        final float invArea = 1.0f / Math.abs(area);
+
+        for (int y = minY; y <= maxY; y++) {
+            final float pointY = y + 0.5f;
+            final float rowEdge0 = (x2 - x1) * (pointY - y1);
+            final float rowEdge1 = (x0 - x2) * (pointY - y2);
+            final float rowEdge2 = (x1 - x0) * (pointY - y0);
+            int index = y * width + minX;
+
+            for (int x = minX; x <= maxX; x++, index++) {
+                final float pointX = x + 0.5f;
+                final float edge0 = (rowEdge0 - (y2 - y1) * (pointX - x1)) * sign;
+                final float edge1 = (rowEdge1 - (y0 - y2) * (pointX - x2)) * sign;
+                final float edge2 = (rowEdge2 - (y1 - y0) * (pointX - x0)) * sign;
+                if (edge0 >= 0 && edge1 >= 0 && edge2 >= 0) {
+                    final float depth = (edge0 * z0 + edge1 * z1 + edge2 * z2) * invArea;
+                    if (depth < depthBuffer[index]) {
+                        depthBuffer[index] = depth;
+                        colorBuffer[index] = color;
+                    }
+                }
+            }
+        }
+    }
+
+    public void drawLine(final float x0, final float y0, final float x1, final float y1, final int color) {
+        drawLine(x0, y0, x1, y1, color, 0, 0, width, height);
+    }
+
+    /**
+     * Рисует отрезок целочисленным алгоритмом Брезенхэма без проверки глубины. Концы сначала отсекаются
+     * по границам кадра, чтобы далёкие точки не давали длинных циклов. Пиксели ставятся только внутри
+     * прямоугольника [clipMinX, clipMaxX) x [clipMinY, clipMaxY), а путь отрезка от него не зависит,
+     * так что отрезок, нарисованный по частям в разных прямоугольниках, совпадает с нарисованным целиком
+     */
+    public void drawLine(
+            final float x0, final float y0, final float x1, final float y1, final int color,
+            final int clipMinX, final int clipMinY, final int clipMaxX, final int clipMaxY) {
+        // Отсечение Лианга-Барски по прямоугольнику из центров крайних пикселей. Считается в double,
+        // чтобы точка входа не терялась на фоне очень далёких концов отрезка
+        final double dx = (double) x1 - x0;
+        final double dy = (double) y1 - y0;
+        double tEnter = 0;
+        double tExit = 1;
+        final double[] p = {-dx, dx, -dy, dy};
+        final double[] q = {x0, width - 1 - (double) x0, y0, height - 1 - (double) y0};
+        for (int i = 0; i < 4; i++) {
+            if (p[i] == 0) {
+                if (q[i] < 0) {
+                    return;
+                }
+            } else {
+                final double t = q[i] / p[i];
+                if (p[i] < 0) {
+                    tEnter = Math.max(tEnter, t);
+                } else {
+                    tExit = Math.min(tExit, t);
+                }
+            }
+        }
+        if (!(tEnter <= tExit)) {
+            return;
+        }
+
+        int x = (int) Math.round(x0 + tEnter * dx);
+        int y = (int) Math.round(y0 + tEnter * dy);
+        final int endX = (int) Math.round(x0 + tExit * dx);
+        final int endY = (int) Math.round(y0 + tExit * dy);
+
+        final int stepX = x < endX ? 1 : -1;
+        final int stepY = y < endY ? 1 : -1;
+        final int distanceX = Math.abs(endX - x);
+        final int distanceY = -Math.abs(endY - y);
+        int error = distanceX + distanceY;
+        while (true) {
+            if (x >= clipMinX && x < clipMaxX && y >= clipMinY && y < clipMaxY) {
+                colorBuffer[y * width + x] = color;
+            }
+            // Координаты меняются монотонно, так что вышедший за прямоугольник отрезок в него не вернётся
+            if (x == endX && y == endY
+                    || (stepX > 0 ? x >= clipMaxX : x < clipMinX) || (stepY > 0 ? y >= clipMaxY : y < clipMinY)) {
+                break;
+            }
+            final int doubledError = 2 * error;
+            if (doubledError >= distanceY) {
+                error += distanceY;
+                x += stepX;
+            }
+            if (doubledError <= distanceX) {
+                error += distanceX;
+                y += stepY;
+            }
+        }
+    }
+
+    /**
+     * Передаёт кадр на экран одним вызовом
+     */
+    public void present(final PixelWriter pixelWriter) {
+        if (width > 0 && height > 0) {
+            pixelWriter.setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), colorBuffer, 0, width);
+        }
+    }
+
+    int[] getColorBuffer() {
+        return colorBuffer;
+    }
+
+    float[] getDepthBuffer() {
+        return depthBuffer;
+    }
+}
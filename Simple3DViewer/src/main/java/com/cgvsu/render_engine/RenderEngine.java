@@ -1,58 +1,606 @@
 package com.cgvsu.render_engine;
 
-import java.util.ArrayList;
-
-import com.cgvsu.math.Vector3f;
 import javafx.scene.canvas.GraphicsContext;
-import javax.vecmath.*;
+import com.cgvsu.affinetransformation.AffineTransformation;
+import com.cgvsu.model.EdgeList;
+import com.cgvsu.model.MeshData;
 import com.cgvsu.model.Model;
+import com.cgvsu.model.ModelTransform;
+import io.github.annusshka.Math.Matrix.Matrix4f;
+import io.github.annusshka.Math.Vector.Vector3f;
 import static com.cgvsu.render_engine.GraphicConveyor.*;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Рисует модель. Каждая вершина переводится в координаты отсечения и на экран один раз за кадр в общий массив,
+ * после чего полигоны проходят отсечение и собираются в треугольники или отрезки, которые растеризуются
+ * в буферы Rasterizer на нескольких ядрах по плиткам или в одном потоке. Кадр целиком передаётся на Canvas.
+ *
+ * Отсечение: модель целиком пропускается, если её ограничивающий параллелепипед вне пирамиды видимости,
+ * плоскости которой извлекаются из матрицы model-view-projection. Полигон пропускается, если все его вершины
+ * вне одной плоскости пирамиды, полигоны, пересекающие ближнюю плоскость, обрезаются по ней, а грани,
+ * повёрнутые от камеры, отбрасываются по направлению обхода на экране.
+ * Массивы и матрица переиспользуются между кадрами, поэтому отрисовка кадра не создаёт объектов на вершину.
+ */
 public class RenderEngine {
 
-    public static void render(
+    private static final int BACKGROUND_COLOR = 0xFFFFFFFF;
+    private static final int LINE_COLOR = 0xFF000000;
+    // Доля освещения, которую получают и грани, повёрнутые к свету ребром
+    private static final float AMBIENT_LIGHT = 0.2f;
+
+    // Столько вершин переводится в экранные координаты одной задачей
+    private static final int VERTICES_PER_TASK = 1 << 14;
+
+    // Биты кода вершины: с какой стороны от плоскости пирамиды видимости она лежит в координатах отсечения
+    static final int OUTSIDE_LEFT = 1;
+    static final int OUTSIDE_RIGHT = 1 << 1;
+    static final int OUTSIDE_BOTTOM = 1 << 2;
+    static final int OUTSIDE_TOP = 1 << 3;
+    static final int OUTSIDE_NEAR = 1 << 4;
+    static final int OUTSIDE_FAR = 1 << 5;
+    // Экранные координаты считаются как x / w * width + width / 2 (как в vertexToPoint), поэтому на экран попадает
+    // только |x / w| <= 1/2 и |y / w| <= 1/2. Боковые плоскости отсечения строятся по этой границе, а не по |x| <= w
+    static final float VIEWPORT_EXTENT = 0.5F;
+
+    private final Matrix4f modelViewProjectionMatrix = new Matrix4f();
+    private final Vector3f lightDirection = new Vector3f();
+    private final Rasterizer rasterizer = new Rasterizer();
+    private final TileRenderer tileRenderer = new TileRenderer();
+    private RenderMode renderMode = RenderMode.WIREFRAME;
+    private boolean tiled = ForkJoinPool.getCommonPoolParallelism() > 1;
+    private boolean backFaceCulling = true;
+
+    // Координаты отсечения x, y, z, w вершин модели в текущем кадре
+    private float[] clipVertices = new float[0];
+    // Экранные координаты x, y и глубина вершин. Для вершин за ближней плоскостью не используются
+    private float[] screenVertices = new float[0];
+    // Коды вершин из битов OUTSIDE_*
+    private byte[] outcodes = new byte[0];
+
+    // Текущий полигон после отсечения: x, y и глубина каждой вершины
+    private float[] polygonPoints = new float[0];
+    private int polygonPointCount;
+    // Видимые полигоны для отсечения рёбер каркаса вместе с невидимыми гранями
+    private boolean[] visiblePolygons = new boolean[0];
+
+    // Примитивы кадра: треугольники по 9 float и их цвета, отрезки по 4 float
+    private float[] triangles = new float[0];
+    private int[] triangleColors = new int[0];
+    private int triangleCount;
+    private float[] lines = new float[0];
+    private int lineCount;
+
+    private final float[] bounds = new float[6];
+    // Матрица нормалей модели 3х3 по строкам
+    private final float[] normalMatrix = {1, 0, 0, 0, 1, 0, 0, 0, 1};
+    private int drawnPolygonCount;
+
+    // Что было нарисовано последним кадром. Если ничего из этого не изменилось, кадр не перерисовывается
+    private boolean frameValid;
+    private GraphicsContext lastGraphicsContext;
+    private Camera lastCamera;
+    private long lastCameraModificationCount;
+    private MeshData lastMeshData;
+    private long lastMeshModificationCount;
+    private ModelTransform lastTransform;
+    private long lastTransformModificationCount;
+    private int lastWidth;
+    private int lastHeight;
+    private long skippedFrameCount;
+
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    public void setRenderMode(final RenderMode renderMode) {
+        this.renderMode = renderMode;
+        invalidate();
+    }
+
+    public boolean isTiled() {
+        return tiled;
+    }
+
+    /**
+     * @param tiled рисовать ли кадр по плиткам на нескольких ядрах. По умолчанию включено, если ядер больше одного
+     */
+    public void setTiled(final boolean tiled) {
+        this.tiled = tiled;
+        invalidate();
+    }
+
+    public boolean isBackFaceCulling() {
+        return backFaceCulling;
+    }
+
+    /**
+     * @param backFaceCulling отбрасывать ли грани, вершины которых на экране обходятся по часовой стрелке
+     */
+    public void setBackFaceCulling(final boolean backFaceCulling) {
+        this.backFaceCulling = backFaceCulling;
+        invalidate();
+    }
+
+    /**
+     * @return сколько полигонов прошло отсечение и было нарисовано в последнем кадре. В режиме каркаса
+     * полигоны проверяются только при отсечении невидимых граней, иначе рисуются рёбра и счётчик равен нулю
+     */
+    public int getDrawnPolygonCount() {
+        return drawnPolygonCount;
+    }
+
+    /**
+     * @return сколько вызовов render было пропущено, потому что кадр не изменился
+     */
+    public long getSkippedFrameCount() {
+        return skippedFrameCount;
+    }
+
+    /**
+     * Заставляет следующий вызов render перерисовать кадр, даже если камера, модель и размер не менялись
+     */
+    public void invalidate() {
+        frameValid = false;
+    }
+
+    /**
+     * Рисует кадр, если с прошлого вызова изменились камера, модель, размер кадра или настройки отрисовки.
+     * Иначе на Canvas остаётся прошлый кадр, а вызов учитывается в getSkippedFrameCount
+     */
+    public void render(
             final GraphicsContext graphicsContext,
             final Camera camera,
             final Model mesh,
             final int width,
             final int height)
     {
-        Matrix4f modelMatrix = rotateScaleTranslate();
+        if (!updateFrameState(graphicsContext, camera, mesh, width, height)) {
+            ++skippedFrameCount;
+            return;
+        }
+
+        Matrix4f modelMatrix = rotateScaleTranslate(mesh.getTransform());
+        // Нормали граней считаются по вершинам модели, поэтому для освещения их нужно повернуть и растянуть
+        System.arraycopy(AffineTransformation.createNormalMatrix(mesh.getTransform()).getVector(), 0, normalMatrix, 0, 9);
         Matrix4f viewMatrix = camera.getViewMatrix();
         Matrix4f projectionMatrix = camera.getProjectionMatrix();
 
-        Matrix4f modelViewProjectionMatrix = new Matrix4f(modelMatrix);
-        modelViewProjectionMatrix.mul(viewMatrix);
-        modelViewProjectionMatrix.mul(projectionMatrix);
+        Matrix4f.mul(projectionMatrix, viewMatrix, modelViewProjectionMatrix);
+        Matrix4f.mul(modelViewProjectionMatrix, modelMatrix, modelViewProjectionMatrix);
 
-        final int nPolygons = mesh.polygons.size();
+        final MeshData meshData = mesh.getMeshData();
+        if (isInFrustum(meshData, modelViewProjectionMatrix)) {
+            transformVertices(meshData, modelViewProjectionMatrix, width, height);
+
+            Vector3f.normalize(Vector3f.sub(camera.getPosition(), camera.getTarget(), lightDirection), lightDirection);
+            rasterize(meshData, width, height, lightDirection);
+        } else {
+            drawnPolygonCount = 0;
+            rasterizer.resize(width, height);
+            rasterizer.clear(BACKGROUND_COLOR);
+        }
+        rasterizer.present(graphicsContext.getPixelWriter());
+    }
+
+    /**
+     * Запоминает, для чего рисуется кадр
+     * @return true, если кадр нужно перерисовать
+     */
+    boolean updateFrameState(
+            final GraphicsContext graphicsContext, final Camera camera, final Model mesh,
+            final int width, final int height) {
+        final MeshData meshData = mesh.getMeshData();
+        final ModelTransform transform = mesh.getTransform();
+        if (frameValid
+                && graphicsContext == lastGraphicsContext
+                && camera == lastCamera && camera.getModificationCount() == lastCameraModificationCount
+                && meshData == lastMeshData && meshData.getModificationCount() == lastMeshModificationCount
+                && transform == lastTransform && transform.getModificationCount() == lastTransformModificationCount
+                && width == lastWidth && height == lastHeight) {
+            return false;
+        }
+        frameValid = true;
+        lastGraphicsContext = graphicsContext;
+        lastCamera = camera;
+        lastCameraModificationCount = camera.getModificationCount();
+        lastMeshData = meshData;
+        lastMeshModificationCount = meshData.getModificationCount();
+        lastTransform = transform;
+        lastTransformModificationCount = transform.getModificationCount();
+        lastWidth = width;
+        lastHeight = height;
+        return true;
+    }
+
+    /**
+     * Проверяет ограничивающий параллелепипед модели по плоскостям пирамиды видимости. Плоскости извлекаются
+     * из матрицы по Гриббу и Хартманну: при умножении матрицы на вершину-столбец координата отсечения - скалярное
+     * произведение строки на вершину, и, например, условие x >= -VIEWPORT_EXTENT * w даёт плоскость
+     * "VIEWPORT_EXTENT * строка 3 + строка 0"
+     * @return false, если параллелепипед целиком вне хотя бы одной плоскости
+     */
+    boolean isInFrustum(final MeshData meshData, final Matrix4f matrix) {
+        if (!meshData.getBounds(bounds)) {
+            return false;
+        }
+        final float[] m = matrix.getVector();
+        for (int plane = 0; plane < 6; plane++) {
+            final int row = 4 * (plane / 2);
+            final float sign = plane % 2 == 0 ? 1 : -1;
+            // Ближняя и дальняя плоскости - z = -w и z = w, боковые ограничены экраном
+            final float extent = row == 8 ? 1 : VIEWPORT_EXTENT;
+            final float a = extent * m[12] + sign * m[row];
+            final float b = extent * m[13] + sign * m[row + 1];
+            final float c = extent * m[14] + sign * m[row + 2];
+            final float d = extent * m[15] + sign * m[row + 3];
+            // Вершина параллелепипеда, дальше всех продвинутая внутрь плоскости
+            final float x = a > 0 ? bounds[3] : bounds[0];
+            final float y = b > 0 ? bounds[4] : bounds[1];
+            final float z = c > 0 ? bounds[5] : bounds[2];
+            if (a * x + b * y + c * z + d < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Собирает примитивы кадра из вершин, переведённых transformVertices, и рисует их в буферы rasterizer
+     */
+    void rasterize(final MeshData meshData, final int width, final int height, final Vector3f lightDirection) {
+        rasterizer.resize(width, height);
+        collectPrimitives(meshData, width, height, lightDirection.get(0), lightDirection.get(1), lightDirection.get(2));
+        if (renderMode == RenderMode.SOLID) {
+            if (tiled) {
+                tileRenderer.renderTriangles(rasterizer, BACKGROUND_COLOR, triangles, triangleColors, triangleCount);
+            } else {
+                rasterizer.clear(BACKGROUND_COLOR);
+                for (int i = 0; i < triangleCount; i++) {
+                    rasterizer.fillTriangle(
+                            triangles[9 * i], triangles[9 * i + 1], triangles[9 * i + 2],
+                            triangles[9 * i + 3], triangles[9 * i + 4], triangles[9 * i + 5],
+                            triangles[9 * i + 6], triangles[9 * i + 7], triangles[9 * i + 8],
+                            triangleColors[i]);
+                }
+            }
+        } else {
+            if (tiled) {
+                tileRenderer.renderLines(rasterizer, BACKGROUND_COLOR, lines, lineCount, LINE_COLOR);
+            } else {
+                rasterizer.clear(BACKGROUND_COLOR);
+                for (int i = 0; i < lineCount; i++) {
+                    rasterizer.drawLine(lines[4 * i], lines[4 * i + 1], lines[4 * i + 2], lines[4 * i + 3], LINE_COLOR);
+                }
+            }
+        }
+    }
+
+    /**
+     * Переводит все вершины модели в координаты отсечения и, так же как multiplyMatrix4ByVector3
+     * и vertexToPoint, в экранные координаты, и считает их коды. Большие модели обрабатываются на нескольких ядрах
+     */
+    void transformVertices(final MeshData meshData, final Matrix4f matrix, final int width, final int height) {
+        final int vertexCount = meshData.getVertexCount();
+        if (outcodes.length < vertexCount) {
+            clipVertices = new float[4 * vertexCount];
+            screenVertices = new float[3 * vertexCount];
+            outcodes = new byte[vertexCount];
+        }
+
+        final float[] clipResult = clipVertices;
+        final float[] screenResult = screenVertices;
+        final byte[] outcodeResult = outcodes;
+        RangeAction.run(vertexCount, VERTICES_PER_TASK, (from, to) -> {
+            meshData.transformVertices(matrix, from, to, clipResult);
+            for (int i = from; i < to; i++) {
+                final float x = clipResult[4 * i];
+                final float y = clipResult[4 * i + 1];
+                final float z = clipResult[4 * i + 2];
+                final float w = clipResult[4 * i + 3];
+                screenResult[3 * i] = x / w * width + width / 2.0F;
+                screenResult[3 * i + 1] = -(y / w) * height + height / 2.0F;
+                screenResult[3 * i + 2] = z / w;
+                outcodeResult[i] = (byte) computeOutcode(x, y, z, w);
+            }
+        });
+    }
+
+    static int computeOutcode(final float x, final float y, final float z, final float w) {
+        int result = 0;
+        final float extent = VIEWPORT_EXTENT * w;
+        if (x < -extent) {
+            result |= OUTSIDE_LEFT;
+        }
+        if (x > extent) {
+            result |= OUTSIDE_RIGHT;
+        }
+        if (y < -extent) {
+            result |= OUTSIDE_BOTTOM;
+        }
+        if (y > extent) {
+            result |= OUTSIDE_TOP;
+        }
+        // Ближняя плоскость проекции - z = -w, дальняя - z = w
+        if (!(z >= -w)) {
+            result |= OUTSIDE_NEAR;
+        }
+        if (z > w) {
+            result |= OUTSIDE_FAR;
+        }
+        return result;
+    }
+
+    /**
+     * Собирает примитивы кадра: в режиме заливки треугольники полигонов, в режиме каркаса рёбра
+     */
+    private void collectPrimitives(
+            final MeshData meshData, final int width, final int height,
+            final float lightX, final float lightY, final float lightZ) {
+        triangleCount = 0;
+        lineCount = 0;
+        drawnPolygonCount = 0;
+        if (renderMode == RenderMode.SOLID) {
+            collectTriangles(meshData, width, height, lightX, lightY, lightZ);
+        } else {
+            collectEdges(meshData, width, height);
+        }
+    }
+
+    /**
+     * Пропускает полигоны через отсечение и разбивает оставшиеся на треугольники веером из первой вершины
+     */
+    private void collectTriangles(
+            final MeshData meshData, final int width, final int height,
+            final float lightX, final float lightY, final float lightZ) {
+        final int nPolygons = meshData.getPolygonCount();
         for (int polygonInd = 0; polygonInd < nPolygons; ++polygonInd) {
-            final int nVerticesInPolygon = mesh.polygons.get(polygonInd).getVertexIndices().size();
+            if (meshData.getPolygonVertexCount(polygonInd) >= 3 && preparePolygon(meshData, polygonInd, width, height)) {
+                ++drawnPolygonCount;
+                addTriangles(getFlatColor(meshData, polygonInd, lightX, lightY, lightZ));
+            }
+        }
+    }
+
+    /**
+     * Рисует каждое ребро сетки один раз по списку рёбер без повторов, который кэширует MeshData.
+     * При отсечении невидимых граней ребро рисуется, если видна хотя бы одна из его граней
+     */
+    private void collectEdges(final MeshData meshData, final int width, final int height) {
+        if (backFaceCulling) {
+            final int nPolygons = meshData.getPolygonCount();
+            if (visiblePolygons.length < nPolygons) {
+                visiblePolygons = new boolean[nPolygons];
+            }
+            for (int polygonInd = 0; polygonInd < nPolygons; ++polygonInd) {
+                visiblePolygons[polygonInd] = preparePolygon(meshData, polygonInd, width, height);
+                if (visiblePolygons[polygonInd]) {
+                    ++drawnPolygonCount;
+                }
+            }
+        }
 
-            ArrayList<Point2f> resultPoints = new ArrayList<>();
-            for (int vertexInPolygonInd = 0; vertexInPolygonInd < nVerticesInPolygon; ++vertexInPolygonInd) {
-                Vector3f vertex = mesh.vertices.get(mesh.polygons.get(polygonInd).getVertexIndices().get(vertexInPolygonInd));
+        final EdgeList edges = meshData.getEdges();
+        ensureLineCapacity(edges.size());
+        for (int edgeInd = 0; edgeInd < edges.size(); edgeInd++) {
+            if (backFaceCulling && !isAnyPolygonVisible(edges, edgeInd)) {
+                continue;
+            }
+            final int start = edges.getStartVertexIndex(edgeInd);
+            final int end = edges.getEndVertexIndex(edgeInd);
+            if ((outcodes[start] & outcodes[end]) != 0) {
+                continue;
+            }
 
-                javax.vecmath.Vector3f vertexVecmath = new javax.vecmath.Vector3f(vertex.x, vertex.y, vertex.z);
+            final int offset = 4 * lineCount++;
+            if (((outcodes[start] | outcodes[end]) & OUTSIDE_NEAR) == 0) {
+                lines[offset] = screenVertices[3 * start];
+                lines[offset + 1] = screenVertices[3 * start + 1];
+                lines[offset + 2] = screenVertices[3 * end];
+                lines[offset + 3] = screenVertices[3 * end + 1];
+            } else {
+                // Ровно одна вершина за ближней плоскостью, иначе ребро уже отброшено. Она заменяется точкой пересечения
+                final int inside = (outcodes[start] & OUTSIDE_NEAR) == 0 ? start : end;
+                final int outside = inside == start ? end : start;
+                final float insideDistance = clipVertices[4 * inside + 2] + clipVertices[4 * inside + 3];
+                final float outsideDistance = clipVertices[4 * outside + 2] + clipVertices[4 * outside + 3];
+                final float t = insideDistance / (insideDistance - outsideDistance);
+                final float w = lerp(clipVertices[4 * inside + 3], clipVertices[4 * outside + 3], t);
+                lines[offset] = screenVertices[3 * inside];
+                lines[offset + 1] = screenVertices[3 * inside + 1];
+                lines[offset + 2] = lerp(clipVertices[4 * inside], clipVertices[4 * outside], t) / w * width
+                        + width / 2.0F;
+                lines[offset + 3] = -(lerp(clipVertices[4 * inside + 1], clipVertices[4 * outside + 1], t) / w) * height
+                        + height / 2.0F;
+            }
+        }
+    }
 
-                Point2f resultPoint = vertexToPoint(multiplyMatrix4ByVector3(modelViewProjectionMatrix, vertexVecmath), width, height);
-                resultPoints.add(resultPoint);
+    private boolean isAnyPolygonVisible(final EdgeList edges, final int edgeInd) {
+        for (int i = 0; i < edges.getPolygonCount(edgeInd); i++) {
+            if (visiblePolygons[edges.getPolygonIndex(edgeInd, i)]) {
+                return true;
             }
+        }
+        return false;
+    }
 
-            for (int vertexInPolygonInd = 1; vertexInPolygonInd < nVerticesInPolygon; ++vertexInPolygonInd) {
-                graphicsContext.strokeLine(
-                        resultPoints.get(vertexInPolygonInd - 1).x,
-                        resultPoints.get(vertexInPolygonInd - 1).y,
-                        resultPoints.get(vertexInPolygonInd).x,
-                        resultPoints.get(vertexInPolygonInd).y);
+    /**
+     * Пропускает полигон через отсечение по пирамиде видимости и, если включено, по направлению обхода
+     * и оставляет его вершины на экране в polygonPoints
+     * @return false, если полигон не виден
+     */
+    private boolean preparePolygon(final MeshData meshData, final int polygonInd, final int width, final int height) {
+        final int nVerticesInPolygon = meshData.getPolygonVertexCount(polygonInd);
+        if (nVerticesInPolygon == 0) {
+            return false;
+        }
+
+        int outsideAll = 0xFF;
+        int outsideAny = 0;
+        for (int vertexInPolygonInd = 0; vertexInPolygonInd < nVerticesInPolygon; ++vertexInPolygonInd) {
+            final int outcode = outcodes[meshData.getPolygonVertexIndex(polygonInd, vertexInPolygonInd)];
+            outsideAll &= outcode;
+            outsideAny |= outcode;
+        }
+        if (outsideAll != 0) {
+            return false;
+        }
+
+        if ((outsideAny & OUTSIDE_NEAR) == 0) {
+            copyPolygon(meshData, polygonInd);
+        } else {
+            clipPolygonByNearPlane(meshData, polygonInd, width, height);
+        }
+        if (polygonPointCount == 0) {
+            return false;
+        }
+        return !backFaceCulling || polygonPointCount < 3 || getPolygonScreenArea() > 0;
+    }
+
+    private void copyPolygon(final MeshData meshData, final int polygonInd) {
+        final int nVerticesInPolygon = meshData.getPolygonVertexCount(polygonInd);
+        ensurePolygonCapacity(nVerticesInPolygon);
+        for (int vertexInPolygonInd = 0; vertexInPolygonInd < nVerticesInPolygon; ++vertexInPolygonInd) {
+            final int vertexInd = meshData.getPolygonVertexIndex(polygonInd, vertexInPolygonInd);
+            System.arraycopy(screenVertices, 3 * vertexInd, polygonPoints, 3 * vertexInPolygonInd, 3);
+        }
+        polygonPointCount = nVerticesInPolygon;
+    }
+
+    /**
+     * Отсекает полигон по ближней плоскости z + w = 0 алгоритмом Сазерленда-Ходжмана в координатах отсечения
+     * и переводит оставшиеся вершины на экран
+     */
+    private void clipPolygonByNearPlane(final MeshData meshData, final int polygonInd, final int width, final int height) {
+        final int nVerticesInPolygon = meshData.getPolygonVertexCount(polygonInd);
+        // Каждое ребро даёт не больше двух вершин
+        ensurePolygonCapacity(2 * nVerticesInPolygon);
+        polygonPointCount = 0;
+
+        int previousInd = 4 * meshData.getPolygonVertexIndex(polygonInd, nVerticesInPolygon - 1);
+        float previousDistance = clipVertices[previousInd + 2] + clipVertices[previousInd + 3];
+        for (int vertexInPolygonInd = 0; vertexInPolygonInd < nVerticesInPolygon; ++vertexInPolygonInd) {
+            final int vertexInd = meshData.getPolygonVertexIndex(polygonInd, vertexInPolygonInd);
+            final int currentInd = 4 * vertexInd;
+            final float currentDistance = clipVertices[currentInd + 2] + clipVertices[currentInd + 3];
+
+            if ((previousDistance >= 0) != (currentDistance >= 0)) {
+                final float t = previousDistance / (previousDistance - currentDistance);
+                addClippedPoint(
+                        lerp(clipVertices[previousInd], clipVertices[currentInd], t),
+                        lerp(clipVertices[previousInd + 1], clipVertices[currentInd + 1], t),
+                        lerp(clipVertices[previousInd + 2], clipVertices[currentInd + 2], t),
+                        lerp(clipVertices[previousInd + 3], clipVertices[currentInd + 3], t),
+                        width, height);
+            }
+            if (currentDistance >= 0) {
+                System.arraycopy(screenVertices, 3 * vertexInd, polygonPoints, 3 * polygonPointCount, 3);
+                ++polygonPointCount;
             }
 
-            if (nVerticesInPolygon > 0)
-                graphicsContext.strokeLine(
-                        resultPoints.get(nVerticesInPolygon - 1).x,
-                        resultPoints.get(nVerticesInPolygon - 1).y,
-                        resultPoints.get(0).x,
-                        resultPoints.get(0).y);
+            previousInd = currentInd;
+            previousDistance = currentDistance;
         }
+        if (polygonPointCount < 3) {
+            polygonPointCount = 0;
+        }
+    }
+
+    private void addClippedPoint(
+            final float x, final float y, final float z, final float w, final int width, final int height) {
+        polygonPoints[3 * polygonPointCount] = x / w * width + width / 2.0F;
+        polygonPoints[3 * polygonPointCount + 1] = -(y / w) * height + height / 2.0F;
+        polygonPoints[3 * polygonPointCount + 2] = z / w;
+        ++polygonPointCount;
+    }
+
+    private static float lerp(final float from, final float to, final float t) {
+        return from + (to - from) * t;
+    }
+
+    /**
+     * @return удвоенная площадь текущего полигона на экране со знаком, положительная для лицевых граней
+     */
+    private float getPolygonScreenArea() {
+        float result = 0;
+        int previous = polygonPointCount - 1;
+        for (int current = 0; current < polygonPointCount; current++) {
+            result += polygonPoints[3 * previous] * polygonPoints[3 * current + 1]
+                    - polygonPoints[3 * current] * polygonPoints[3 * previous + 1];
+            previous = current;
+        }
+        return result;
+    }
+
+    private void addTriangles(final int color) {
+        ensureTriangleCapacity(triangleCount + polygonPointCount - 2);
+        for (int point = 2; point < polygonPointCount; point++) {
+            final int offset = 9 * triangleCount;
+            System.arraycopy(polygonPoints, 0, triangles, offset, 3);
+            System.arraycopy(polygonPoints, 3 * (point - 1), triangles, offset + 3, 6);
+            triangleColors[triangleCount++] = color;
+        }
+    }
+
+    private void ensurePolygonCapacity(final int pointCount) {
+        if (polygonPoints.length < 3 * pointCount) {
+            polygonPoints = new float[3 * pointCount];
+        }
+    }
+
+    private void ensureTriangleCapacity(final int count) {
+        if (triangleColors.length < count) {
+            final int capacity = Math.max(count, triangleColors.length + (triangleColors.length >> 1));
+            triangles = Arrays.copyOf(triangles, 9 * capacity);
+            triangleColors = Arrays.copyOf(triangleColors, capacity);
+        }
+    }
+
+    private void ensureLineCapacity(final int count) {
+        if (lines.length < 4 * count) {
+            lines = Arrays.copyOf(lines, 4 * Math.max(count, (lines.length >> 2) + (lines.length >> 3)));
+        }
+    }
+
+    private int getFlatColor(
+            final MeshData meshData, final int polygonInd, final float lightX, final float lightY, final float lightZ) {
+        final int i0 = meshData.getPolygonVertexIndex(polygonInd, 0);
+        final int i1 = meshData.getPolygonVertexIndex(polygonInd, 1);
+        final int i2 = meshData.getPolygonVertexIndex(polygonInd, 2);
+        final float ax = meshData.getVertexX(i1) - meshData.getVertexX(i0);
+        final float ay = meshData.getVertexY(i1) - meshData.getVertexY(i0);
+        final float az = meshData.getVertexZ(i1) - meshData.getVertexZ(i0);
+        final float bx = meshData.getVertexX(i2) - meshData.getVertexX(i0);
+        final float by = meshData.getVertexY(i2) - meshData.getVertexY(i0);
+        final float bz = meshData.getVertexZ(i2) - meshData.getVertexZ(i0);
+        final float modelNx = ay * bz - az * by;
+        final float modelNy = az * bx - ax * bz;
+        final float modelNz = ax * by - ay * bx;
+        final float nx = normalMatrix[0] * modelNx + normalMatrix[1] * modelNy + normalMatrix[2] * modelNz;
+        final float ny = normalMatrix[3] * modelNx + normalMatrix[4] * modelNy + normalMatrix[5] * modelNz;
+        final float nz = normalMatrix[6] * modelNx + normalMatrix[7] * modelNy + normalMatrix[8] * modelNz;
+        final float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+
+        float light = AMBIENT_LIGHT;
+        if (length > 0) {
+            light += (1 - AMBIENT_LIGHT) * Math.abs(nx * lightX + ny * lightY + nz * lightZ) / length;
+        }
+        final int channel = Math.min(255, (int) (light * 255));
+        return 0xFF000000 | (channel << 16) | (channel << 8) | channel;
+    }
+
+    float[] getScreenVertices() {
+        return screenVertices;
+    }
+
+    int getLineCount() {
+        return lineCount;
+    }
+
+    Rasterizer getRasterizer() {
+        return rasterizer;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,8 @@
+package com.cgvsu.render_engine;
+
+public enum RenderMode {
+    // Только рёбра полигонов, без проверки глубины
+    WIREFRAME,
+    // Закрашенные полигоны с z-буфером и плоским освещением от камеры
+    SOLID
+}
@@ -0,0 +1,151 @@
+package com.cgvsu.render_engine;
+
+import java.util.Arrays;
+
+/**
+ * Рисует кадр по плиткам на нескольких ядрах. Примитивы раскладываются по плиткам экрана, в которые попадает
+ * их ограничивающий прямоугольник, и плитки растеризуются параллельно. Каждая плитка пишет только в свою
+ * область буферов цвета и глубины, поэтому блокировки не нужны. Внутри плитки примитивы рисуются
+ * в исходном порядке, так что кадр совпадает с нарисованным последовательно.
+ *
+ * Треугольники передаются массивом по 9 float на треугольник (x, y, глубина для каждой вершины),
+ * отрезки - по 4 float (x, y для каждого конца).
+ */
+final class TileRenderer {
+
+    static final int TILE_SIZE = 64;
+
+    // Сколько плиток одна задача рисует без дальнейшего деления
+    private static final int TILES_PER_TASK = 1;
+
+    private int tileCountX;
+    private int tileCountY;
+    // Списки примитивов по плиткам: примитивы плитки i лежат в tilePrimitives[tileOffsets[i], tileOffsets[i + 1])
+    private int[] tileOffsets = new int[1];
+    private int[] tilePrimitives = new int[0];
+    // Плитки, которые задевает текущий примитив при раскладке: minTileX, minTileY, maxTileX, maxTileY
+    private final int[] tileBounds = new int[4];
+
+    void renderTriangles(
+            final Rasterizer rasterizer, final int backgroundColor,
+            final float[] triangles, final int[] colors, final int triangleCount) {
+        binPrimitives(rasterizer, triangles, 9, 3, triangleCount);
+        RangeAction.run(tileCountX * tileCountY, TILES_PER_TASK, (from, to) -> {
+            for (int tile = from; tile < to; tile++) {
+                final int minX = (tile % tileCountX) * TILE_SIZE;
+                final int minY = (tile / tileCountX) * TILE_SIZE;
+                final int maxX = Math.min(minX + TILE_SIZE, rasterizer.getWidth());
+                final int maxY = Math.min(minY + TILE_SIZE, rasterizer.getHeight());
+                rasterizer.clear(backgroundColor, minX, minY, maxX, maxY);
+                for (int i = tileOffsets[tile]; i < tileOffsets[tile + 1]; i++) {
+                    final int triangle = tilePrimitives[i];
+                    final int offset = 9 * triangle;
+                    rasterizer.fillTriangle(
+                            triangles[offset], triangles[offset + 1], triangles[offset + 2],
+                            triangles[offset + 3], triangles[offset + 4], triangles[offset + 5],
+                            triangles[offset + 6], triangles[offset + 7], triangles[offset + 8],
+                            colors[triangle], minX, minY, maxX, maxY);
+                }
+            }
+        });
+    }
+
+    void renderLines(
+            final Rasterizer rasterizer, final int backgroundColor,
+            final float[] lines, final int lineCount, final int lineColor) {
+        binPrimitives(rasterizer, lines, 4, 2, lineCount);
+        RangeAction.run(tileCountX * tileCountY, TILES_PER_TASK, (from, to) -> {
+            for (int tile = from; tile < to; tile++) {
+                final int minX = (tile % tileCountX) * TILE_SIZE;
+                final int minY = (tile / tileCountX) * TILE_SIZE;
+                final int maxX = Math.min(minX + TILE_SIZE, rasterizer.getWidth());
+                final int maxY = Math.min(minY + TILE_SIZE, rasterizer.getHeight());
+                rasterizer.clear(backgroundColor, minX, minY, maxX, maxY);
+                for (int i = tileOffsets[tile]; i < tileOffsets[tile + 1]; i++) {
+                    final int offset = 4 * tilePrimitives[i];
+                    rasterizer.drawLine(lines[offset], lines[offset + 1], lines[offset + 2], lines[offset + 3],
+                            lineColor, minX, minY, maxX, maxY);
+                }
+            }
+        });
+    }
+
+    /**
+     * Раскладывает примитивы по плиткам в два прохода: сначала считается число примитивов в каждой плитке,
+     * затем номера примитивов записываются на свои места
+     */
+    private void binPrimitives(
+            final Rasterizer rasterizer, final float[] coordinates, final int stride, final int pointStride,
+            final int primitiveCount) {
+        tileCountX = (rasterizer.getWidth() + TILE_SIZE - 1) / TILE_SIZE;
+        tileCountY = (rasterizer.getHeight() + TILE_SIZE - 1) / TILE_SIZE;
+        final int tileCount = tileCountX * tileCountY;
+        if (tileOffsets.length < tileCount + 1) {
+            tileOffsets = new int[tileCount + 1];
+        }
+        Arrays.fill(tileOffsets, 0, tileCount + 1, 0);
+
+        long entryCount = 0;
+        for (int primitive = 0; primitive < primitiveCount; primitive++) {
+            if (!findTileBounds(coordinates, stride, pointStride, primitive)) {
+                continue;
+            }
+            for (int tileY = tileBounds[1]; tileY <= tileBounds[3]; tileY++) {
+                for (int tileX = tileBounds[0]; tileX <= tileBounds[2]; tileX++) {
+                    ++tileOffsets[tileY * tileCountX + tileX + 1];
+                    ++entryCount;
+                }
+            }
+        }
+        if (entryCount > Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("Too many primitives in tiles: " + entryCount);
+        }
+        for (int tile = 0; tile < tileCount; tile++) {
+            tileOffsets[tile + 1] += tileOffsets[tile];
+        }
+        if (tilePrimitives.length < entryCount) {
+            tilePrimitives = new int[(int) entryCount];
+        }
+
+        // Пока идёт раскладка, tileOffsets[i] указывает на свободное место плитки i, после неё - на конец плитки
+        for (int primitive = 0; primitive < primitiveCount; primitive++) {
+            if (!findTileBounds(coordinates, stride, pointStride, primitive)) {
+                continue;
+            }
+            for (int tileY = tileBounds[1]; tileY <= tileBounds[3]; tileY++) {
+                for (int tileX = tileBounds[0]; tileX <= tileBounds[2]; tileX++) {
+                    tilePrimitives[tileOffsets[tileY * tileCountX + tileX]++] = primitive;
+                }
+            }
+        }
+        System.arraycopy(tileOffsets, 0, tileOffsets, 1, tileCount);
+        tileOffsets[0] = 0;
+    }
+
+    /**
+     * Записывает в tileBounds плитки, которые задевает ограничивающий прямоугольник примитива
+     * @return false, если примитив целиком вне кадра
+     */
+    private boolean findTileBounds(
+            final float[] coordinates, final int stride, final int pointStride, final int primitive) {
+        final int offset = stride * primitive;
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        for (int point = offset; point < offset + stride; point += pointStride) {
+            minX = Math.min(minX, coordinates[point]);
+            maxX = Math.max(maxX, coordinates[point]);
+            minY = Math.min(minY, coordinates[point + 1]);
+            maxY = Math.max(maxY, coordinates[point + 1]);
+        }
+        if (!(maxX >= 0 && maxY >= 0 && minX < tileCountX * TILE_SIZE && minY < tileCountY * TILE_SIZE)) {
+            return false;
+        }
+        tileBounds[0] = (int) Math.max(0, Math.floor(minX) / TILE_SIZE);
+        tileBounds[1] = (int) Math.max(0, Math.floor(minY) / TILE_SIZE);
+        tileBounds[2] = (int) Math.min(tileCountX - 1, Math.ceil(maxX) / TILE_SIZE);
+        tileBounds[3] = (int) Math.min(tileCountY - 1, Math.ceil(maxY) / TILE_SIZE);
+        return true;
+    }
+}
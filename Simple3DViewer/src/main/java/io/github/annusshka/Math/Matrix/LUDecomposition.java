@@ -0,0 +1,206 @@
+package io.github.annusshka.Math.Matrix;
+
+import io.github.annusshka.Math.Matrix.Matrix.MatrixException;
+import io.github.annusshka.Math.Vector.Vector;
+
+/**
+ * LU-разложение квадратной матрицы с частичным выбором ведущего элемента: P * A = L * U, где P - перестановка
+ * строк, L - нижняя треугольная матрица с единицами на диагонали, U - верхняя треугольная.
+ * В отличие от getDeterminant, getInverseMatrix и solutionByGaussMethod разложение считается один раз
+ * на копии матрицы, исходная матрица не меняется. После этого определитель берётся за O(n), а каждая система
+ * решается за O(n^2), поэтому одно разложение можно использовать для многих правых частей.
+ *
+ * Ведущим выбирается наибольший по модулю элемент столбца. Матрица считается вырожденной, если ведущий элемент
+ * по модулю не больше EPS, умноженного на наибольший по модулю элемент исходной матрицы
+ */
+public class LUDecomposition {
+
+    private final int size;
+    // L без диагонали и U, записанные вместе по строкам. Хранятся в double, чтобы ошибки округления
+    // не накапливались при решении многих систем с плохо обусловленной матрицей
+    private final double[] lu;
+    // pivot[i] - номер строки исходной матрицы, ставшей i-й строкой
+    private final int[] pivot;
+    private final boolean singular;
+    // -1, если при выборе ведущих элементов строки переставлялись нечётное число раз
+    private final int pivotSign;
+    // Исходная матрица нужна только для создания результатов того же типа, её значения не читаются
+    private final Matrix source;
+
+    public LUDecomposition(final Matrix matrix) {
+        size = matrix.getSize();
+        lu = new double[size * size];
+        for (int index = 0; index < size * size; index++) {
+            lu[index] = matrix.getVector()[index];
+        }
+        pivot = new int[size];
+        source = matrix;
+
+        double scale = 0;
+        for (final double value : lu) {
+            scale = Math.max(scale, Math.abs(value));
+        }
+        final double tolerance = Matrix.EPS * scale;
+
+        int sign = 1;
+        boolean isSingular = scale == 0;
+        for (int row = 0; row < size; row++) {
+            pivot[row] = row;
+        }
+        for (int col = 0; col < size; col++) {
+            int pivotRow = col;
+            for (int row = col + 1; row < size; row++) {
+                if (Math.abs(lu[row * size + col]) > Math.abs(lu[pivotRow * size + col])) {
+                    pivotRow = row;
+                }
+            }
+            if (pivotRow != col) {
+                swapRows(col, pivotRow);
+                sign = -sign;
+            }
+
+            final double pivotValue = lu[col * size + col];
+            if (!(Math.abs(pivotValue) > tolerance)) {
+                // Столбец уже исключён, остальные столбцы раскладываются дальше, чтобы определитель был равен 0
+                isSingular = true;
+                continue;
+            }
+            for (int row = col + 1; row < size; row++) {
+                final double factor = lu[row * size + col] / pivotValue;
+                lu[row * size + col] = factor;
+                for (int index = col + 1; index < size; index++) {
+                    lu[row * size + index] -= factor * lu[col * size + index];
+                }
+            }
+        }
+        singular = isSingular;
+        pivotSign = sign;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * @return определитель исходной матрицы: произведение диагонали U со знаком перестановки,
+     * 0 для вырожденной матрицы
+     */
+    public float getDeterminant() {
+        if (singular) {
+            return 0;
+        }
+        double determinant = pivotSign;
+        for (int index = 0; index < size; index++) {
+            determinant *= lu[index * size + index];
+        }
+        return (float) determinant;
+    }
+
+    /**
+     * Решает систему A * x = vector. Вектор не меняется
+     * @param vector вектор-столбец свободных членов
+     * @return вектор-столбец неизвестных переменных
+     * @throws MatrixException если матрица вырождена или размер вектора не совпадает с размером матрицы
+     */
+    public Vector solve(final Vector vector) throws MatrixException {
+        return solve(vector, source.getZeroVector(size));
+    }
+
+    /**
+     * Решает систему A * x = vector и записывает x в dst. dst может совпадать с vector
+     * @return dst
+     * @throws MatrixException если матрица вырождена или размеры векторов не совпадают с размером матрицы
+     */
+    public Vector solve(final Vector vector, final Vector dst) throws MatrixException {
+        if (vector.getSize() != size || dst.getSize() != size) {
+            throw new MatrixException("Vector size doesn't match matrix size");
+        }
+        checkNotSingular();
+        final float[] b = vector.getVector();
+        final double[] x = new double[size];
+        for (int row = 0; row < size; row++) {
+            x[row] = b[pivot[row]];
+        }
+        solveInPlace(x, 0, 1);
+        final float[] result = dst.getVector();
+        for (int row = 0; row < size; row++) {
+            result[row] = (float) x[row];
+        }
+        return dst;
+    }
+
+    /**
+     * @return обратная матрица того же типа, что и исходная
+     * @throws MatrixException сообщает о том, что матрица не имеет обратной матрицы
+     */
+    public Matrix getInverseMatrix() throws MatrixException {
+        return getInverseMatrix(source.getZeroMatrix(size));
+    }
+
+    /**
+     * Записывает обратную матрицу в dst, решая систему для каждого столбца единичной матрицы
+     * @return dst
+     * @throws MatrixException сообщает о том, что матрица не имеет обратной матрицы
+     */
+    public Matrix getInverseMatrix(final Matrix dst) throws MatrixException {
+        if (dst.getSize() != size) {
+            throw new MatrixException("Different sizes can't be multiplicated");
+        }
+        checkNotSingular();
+        // Столбцы обратной матрицы решаются на месте: столбец col - это элементы с шагом size
+        final double[] inverse = new double[size * size];
+        for (int row = 0; row < size; row++) {
+            inverse[row * size + pivot[row]] = 1;
+        }
+        for (int col = 0; col < size; col++) {
+            solveInPlace(inverse, col, size);
+        }
+        final float[] result = dst.getVector();
+        for (int index = 0; index < size * size; index++) {
+            result[index] = (float) inverse[index];
+        }
+        return dst;
+    }
+
+    private void checkNotSingular() throws MatrixException {
+        if (singular) {
+            throw new MatrixException("Matrix hasn't inverse matrix");
+        }
+    }
+
+    /**
+     * Прямой ход по L и обратный по U для уже переставленной правой части, которая лежит
+     * в x[offset], x[offset + stride], ... и заменяется решением
+     */
+    private void solveInPlace(final double[] x, final int offset, final int stride) {
+        for (int row = 1; row < size; row++) {
+            double sum = x[offset + row * stride];
+            for (int col = 0; col < row; col++) {
+                sum -= lu[row * size + col] * x[offset + col * stride];
+            }
+            x[offset + row * stride] = sum;
+        }
+        for (int row = size - 1; row >= 0; row--) {
+            double sum = x[offset + row * stride];
+            for (int col = row + 1; col < size; col++) {
+                sum -= lu[row * size + col] * x[offset + col * stride];
+            }
+            x[offset + row * stride] = sum / lu[row * size + row];
+        }
+    }
+
+    private void swapRows(final int row1, final int row2) {
+        for (int col = 0; col < size; col++) {
+            final double value = lu[row1 * size + col];
+            lu[row1 * size + col] = lu[row2 * size + col];
+            lu[row2 * size + col] = value;
+        }
+        final int index = pivot[row1];
+        pivot[row1] = pivot[row2];
+        pivot[row2] = index;
+    }
+}
@@ -5,6 +5,8 @@ import io.github.annusshka.Math.Vector.Vector;
 public abstract class Matrix {
 
     public static class MatrixException extends Exception {
+        private static final long serialVersionUID = 1L;
+
         public MatrixException(String message) {
             super(message);
         }
@@ -222,6 +224,75 @@ public abstract class Matrix {
         return result;
     }
 
+    /**
+     * Умножает матрицу на вектор и записывает результат в dst вместо создания нового вектора.
+     * dst не должен совпадать с vector
+     * @return dst
+     * @throws MatrixException оповещает о том, что размеры матрицы и векторов не совпадают
+     */
+    public Vector multiplicateOnVector(final Vector vector, final Vector dst) throws MatrixException {
+        if (this.getSize() != vector.getSize() || this.getSize() != dst.getSize()) {
+            throw new MatrixException("Different sizes can't be multiplicated");
+        }
+
+        final float[] m = this.getVector();
+        final float[] v = vector.getVector();
+        final float[] r = dst.getVector();
+        for (int indexRow = 0; indexRow < size; indexRow++) {
+            float value = 0;
+            for (int indexCol = 0; indexCol < size; indexCol++) {
+                value += m[indexRow * size + indexCol] * v[indexCol];
+            }
+            r[indexRow] = value;
+        }
+
+        return dst;
+    }
+
+    /**
+     * Перемножает матрицы и записывает результат в dst вместо создания новой матрицы.
+     * dst не должен совпадать с matrix1 или matrix2
+     * @return dst
+     * @throws MatrixException оповещает о том, что пытались перемножить разные по размеру матрицы
+     */
+    public static Matrix multiplicateMatrices(final Matrix matrix1, final Matrix matrix2, final Matrix dst)
+            throws MatrixException {
+        if (!matrix1.isEqualSize(matrix2) || !matrix1.isEqualSize(dst)) {
+            throw new MatrixException("Different sizes can't be multiplicated");
+        }
+
+        final int size = matrix1.getSize();
+        final float[] a = matrix1.getVector();
+        final float[] b = matrix2.getVector();
+        final float[] r = dst.getVector();
+        for (int indexRow = 0; indexRow < size; indexRow++) {
+            for (int indexCol = 0; indexCol < size; indexCol++) {
+                float value = 0;
+                for (int indexShift = 0; indexShift < size; indexShift++) {
+                    value += a[indexRow * size + indexShift] * b[indexShift * size + indexCol];
+                }
+                r[indexRow * size + indexCol] = value;
+            }
+        }
+
+        return dst;
+    }
+
+    /**
+     * Транспонирует матрицу в dst, не меняя исходную. dst может совпадать с matrix
+     * @return dst
+     * @throws MatrixException оповещает о том, что размеры матриц не совпадают
+     */
+    public static Matrix transposeMatrix(final Matrix matrix, final Matrix dst) throws MatrixException {
+        if (!matrix.isEqualSize(dst)) {
+            throw new MatrixException("Matrices of different sizes");
+        }
+        if (matrix != dst) {
+            System.arraycopy(matrix.getVector(), 0, dst.getVector(), 0, matrix.getLength());
+        }
+        return transposeMatrix(dst);
+    }
+
     public static Matrix multiplicateMatrices(final Matrix matrix1, final Matrix matrix2)
             throws MatrixException {
         if (!matrix1.isEqualSize(matrix2)) {
@@ -367,6 +438,7 @@ public abstract class Matrix {
     /**
      * Метод получения обратной матрицы. Изначальную матрицу умножает на единичную, затем превращает изначальную
      * матрицу в треугольную с параллельным преобразованием единичной, затем вызывает обратный ход метода
+     * Исходная матрица при этом меняется. Чтобы сохранить её или переиспользовать вычисления, есть LUDecomposition
      * @param matrix исходная матрица
      * @return обратный ход метода, который возвращает обратную матрицу
      *  @throws MatrixException сообщает о том, что матрица не имеет обратной матрицы
@@ -460,6 +532,7 @@ public abstract class Matrix {
      * Метод решает систему линейных уравнений методом Гаусса. Если система будет иметь множество решений,
      * метод найдёт частное решение, подставив значение 1.
      * Метод реализует прямой ход методом Гаусса и вызывает обратный ход.
+     * Матрица и вектор при этом меняются. Для нескольких правых частей с одной матрицей есть LUDecomposition
      * @param matrix основная матрица СЛАУ
      * @param vector вектор-столбец свободных членов
      * @return вектор-столбец неизвестных переменных
@@ -106,4 +106,142 @@ public class Matrix3f extends Matrix {
         value2 = this.get((indexRow1) * size + indexCol2) * this.get((indexRow2) * size + indexCol1);
         return value1 - value2;
     }
-}
\ No newline at end of file
+
+    public Matrix3f set(final Matrix3f other) {
+        System.arraycopy(other.getVector(), 0, getVector(), 0, length);
+        return this;
+    }
+
+    public Matrix3f setIdentity() {
+        final float[] m = getVector();
+        m[0] = 1; m[1] = 0; m[2] = 0;
+        m[3] = 0; m[4] = 1; m[5] = 0;
+        m[6] = 0; m[7] = 0; m[8] = 1;
+        return this;
+    }
+
+    /**
+     * Перемножает матрицы и записывает результат в dst без создания новых объектов.
+     * dst может совпадать с left или right
+     * @return dst
+     */
+    public static Matrix3f mul(final Matrix3f left, final Matrix3f right, final Matrix3f dst) {
+        final float[] a = left.getVector();
+        final float[] b = right.getVector();
+        final float r00 = a[0] * b[0] + a[1] * b[3] + a[2] * b[6];
+        final float r01 = a[0] * b[1] + a[1] * b[4] + a[2] * b[7];
+        final float r02 = a[0] * b[2] + a[1] * b[5] + a[2] * b[8];
+        final float r10 = a[3] * b[0] + a[4] * b[3] + a[5] * b[6];
+        final float r11 = a[3] * b[1] + a[4] * b[4] + a[5] * b[7];
+        final float r12 = a[3] * b[2] + a[4] * b[5] + a[5] * b[8];
+        final float r20 = a[6] * b[0] + a[7] * b[3] + a[8] * b[6];
+        final float r21 = a[6] * b[1] + a[7] * b[4] + a[8] * b[7];
+        final float r22 = a[6] * b[2] + a[7] * b[5] + a[8] * b[8];
+        final float[] r = dst.getVector();
+        r[0] = r00; r[1] = r01; r[2] = r02;
+        r[3] = r10; r[4] = r11; r[5] = r12;
+        r[6] = r20; r[7] = r21; r[8] = r22;
+        return dst;
+    }
+
+    /**
+     * Умножает матрицу на вектор-столбец и записывает результат в dst. dst может совпадать с vector
+     * @return dst
+     */
+    public Vector3f transform(final Vector3f vector, final Vector3f dst) {
+        final float[] m = getVector();
+        final float[] v = vector.getVector();
+        final float x = m[0] * v[0] + m[1] * v[1] + m[2] * v[2];
+        final float y = m[3] * v[0] + m[4] * v[1] + m[5] * v[2];
+        final float z = m[6] * v[0] + m[7] * v[1] + m[8] * v[2];
+        final float[] r = dst.getVector();
+        r[0] = x;
+        r[1] = y;
+        r[2] = z;
+        return dst;
+    }
+
+    /**
+     * Транспонирует матрицу в dst. dst может совпадать с matrix
+     * @return dst
+     */
+    public static Matrix3f transpose(final Matrix3f matrix, final Matrix3f dst) {
+        final float[] m = matrix.getVector();
+        final float[] r = dst.getVector();
+        final float m01 = m[1], m02 = m[2], m12 = m[5];
+        r[0] = m[0]; r[4] = m[4]; r[8] = m[8];
+        r[1] = m[3]; r[3] = m01;
+        r[2] = m[6]; r[6] = m02;
+        r[5] = m[7]; r[7] = m12;
+        return dst;
+    }
+
+    /**
+     * Определитель по правилу Саррюса. Матрица не меняется
+     * @return определитель
+     */
+    public float determinant() {
+        final float[] m = getVector();
+        return m[0] * (m[4] * m[8] - m[5] * m[7])
+                - m[1] * (m[3] * m[8] - m[5] * m[6])
+                + m[2] * (m[3] * m[7] - m[4] * m[6]);
+    }
+
+    /**
+     * Находит обратную матрицу через алгебраические дополнения и записывает её в dst.
+     * Исходная матрица не меняется, dst может совпадать с matrix
+     * @return dst
+     * @throws MatrixException сообщает о том, что матрица не имеет обратной матрицы
+     */
+    public static Matrix3f inverse(final Matrix3f matrix, final Matrix3f dst) throws MatrixException {
+        final float[] m = matrix.getVector();
+        final float c00 = m[4] * m[8] - m[5] * m[7];
+        final float c01 = m[5] * m[6] - m[3] * m[8];
+        final float c02 = m[3] * m[7] - m[4] * m[6];
+        final float determinant = m[0] * c00 + m[1] * c01 + m[2] * c02;
+        if (determinant == 0 || !Float.isFinite(determinant)) {
+            throw new MatrixException("Matrix hasn't inverse matrix");
+        }
+        final float inverseDeterminant = 1 / determinant;
+
+        final float r00 = c00 * inverseDeterminant;
+        final float r01 = (m[2] * m[7] - m[1] * m[8]) * inverseDeterminant;
+        final float r02 = (m[1] * m[5] - m[2] * m[4]) * inverseDeterminant;
+        final float r10 = c01 * inverseDeterminant;
+        final float r11 = (m[0] * m[8] - m[2] * m[6]) * inverseDeterminant;
+        final float r12 = (m[2] * m[3] - m[0] * m[5]) * inverseDeterminant;
+        final float r20 = c02 * inverseDeterminant;
+        final float r21 = (m[1] * m[6] - m[0] * m[7]) * inverseDeterminant;
+        final float r22 = (m[0] * m[4] - m[1] * m[3]) * inverseDeterminant;
+        final float[] r = dst.getVector();
+        r[0] = r00; r[1] = r01; r[2] = r02;
+        r[3] = r10; r[4] = r11; r[5] = r12;
+        r[6] = r20; r[7] = r21; r[8] = r22;
+        return dst;
+    }
+
+    /**
+     * Складывает матрицы в dst. Размеры заданы типом, поэтому проверки и исключения, как в sumMatrix, не нужны.
+     * dst может совпадать с аргументом
+     * @return dst
+     */
+    public static Matrix3f add(final Matrix3f left, final Matrix3f right, final Matrix3f dst) {
+        final float[] a = left.getVector();
+        final float[] b = right.getVector();
+        final float[] r = dst.getVector();
+        for (int index = 0; index < r.length; index++) {
+            r[index] = a[index] + b[index];
+        }
+        return dst;
+    }
+
+    public static Matrix3f sub(final Matrix3f left, final Matrix3f right, final Matrix3f dst) {
+        final float[] a = left.getVector();
+        final float[] b = right.getVector();
+        final float[] r = dst.getVector();
+        for (int index = 0; index < r.length; index++) {
+            r[index] = a[index] - b[index];
+        }
+        return dst;
+    }
+}
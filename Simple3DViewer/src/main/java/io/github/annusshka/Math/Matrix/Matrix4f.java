@@ -3,6 +3,8 @@ package io.github.annusshka.Math.Matrix;
 import io.github.annusshka.Math.Vector.Vector;
 import io.github.annusshka.Math.Vector.Vector4f;
 
+import java.util.Arrays;
+
 
 public class Matrix4f extends Matrix {
 
@@ -10,6 +12,9 @@ public class Matrix4f extends Matrix {
 
     private static final int size = 4;
 
+    // Есть ли модуль jdk.incubator.vector. Без него пакетные преобразования выполняются скалярными циклами
+    private static final boolean VECTORIZED = isVectorApiAvailable();
+
     private float[] vector = new float[length];
 
     public Matrix4f(float[] vector) {
@@ -102,4 +107,313 @@ public class Matrix4f extends Matrix {
 
         return determinant;
     }
-}
\ No newline at end of file
+
+    public Matrix4f set(final Matrix4f other) {
+        System.arraycopy(other.getVector(), 0, getVector(), 0, length);
+        return this;
+    }
+
+    public Matrix4f setIdentity() {
+        final float[] m = getVector();
+        Arrays.fill(m, 0);
+        m[0] = 1;
+        m[5] = 1;
+        m[10] = 1;
+        m[15] = 1;
+        return this;
+    }
+
+    /**
+     * Перемножает матрицы и записывает результат в dst без создания новых объектов.
+     * dst может совпадать с left или right
+     * @return dst
+     */
+    public static Matrix4f mul(final Matrix4f left, final Matrix4f right, final Matrix4f dst) {
+        final float[] a = left.getVector();
+        final float[] b = right.getVector();
+        final float b00 = b[0], b01 = b[1], b02 = b[2], b03 = b[3];
+        final float b10 = b[4], b11 = b[5], b12 = b[6], b13 = b[7];
+        final float b20 = b[8], b21 = b[9], b22 = b[10], b23 = b[11];
+        final float b30 = b[12], b31 = b[13], b32 = b[14], b33 = b[15];
+        final float[] r = dst.getVector();
+        // Строка left читается целиком до записи, поэтому запись в ту же матрицу безопасна
+        for (int row = 0; row < 16; row += 4) {
+            final float a0 = a[row], a1 = a[row + 1], a2 = a[row + 2], a3 = a[row + 3];
+            r[row] = a0 * b00 + a1 * b10 + a2 * b20 + a3 * b30;
+            r[row + 1] = a0 * b01 + a1 * b11 + a2 * b21 + a3 * b31;
+            r[row + 2] = a0 * b02 + a1 * b12 + a2 * b22 + a3 * b32;
+            r[row + 3] = a0 * b03 + a1 * b13 + a2 * b23 + a3 * b33;
+        }
+        return dst;
+    }
+
+    /**
+     * Умножает матрицу на вектор-столбец и записывает результат в dst. dst может совпадать с vector
+     * @return dst
+     */
+    public Vector4f transform(final Vector4f vector, final Vector4f dst) {
+        final float[] m = getVector();
+        final float[] v = vector.getVector();
+        final float x = m[0] * v[0] + m[1] * v[1] + m[2] * v[2] + m[3] * v[3];
+        final float y = m[4] * v[0] + m[5] * v[1] + m[6] * v[2] + m[7] * v[3];
+        final float z = m[8] * v[0] + m[9] * v[1] + m[10] * v[2] + m[11] * v[3];
+        final float w = m[12] * v[0] + m[13] * v[1] + m[14] * v[2] + m[15] * v[3];
+        final float[] r = dst.getVector();
+        r[0] = x;
+        r[1] = y;
+        r[2] = z;
+        r[3] = w;
+        return dst;
+    }
+
+    /**
+     * Преобразует count точек, записанных подряд тройками x, y, z, как векторы (x, y, z, 1).
+     * Нижняя строка матрицы не учитывается, то есть матрица считается аффинной.
+     * Тело цикла не зависит от предыдущих итераций и не создаёт объектов, поэтому JIT может его векторизовать.
+     * Если доступен модуль jdk.incubator.vector, точки обрабатываются векторными регистрами, см. isVectorized.
+     * src и dst могут совпадать, если совпадают и смещения
+     * @param src массив с координатами точек
+     * @param srcOffset индекс первой координаты в src
+     * @param dst массив для результата
+     * @param dstOffset индекс первой координаты в dst
+     * @param count количество точек
+     */
+    public void transformPoints(final float[] src, final int srcOffset,
+                                final float[] dst, final int dstOffset, final int count) {
+        final float[] m = getVector();
+        final float m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3];
+        final float m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7];
+        final float m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+        final int done = VECTORIZED ? Matrix4fVectorKernels.transformPoints(m, src, srcOffset, dst, dstOffset, count) : 0;
+        for (int i = done; i < count; i++) {
+            final int from = srcOffset + 3 * i;
+            final int to = dstOffset + 3 * i;
+            final float x = src[from];
+            final float y = src[from + 1];
+            final float z = src[from + 2];
+            dst[to] = m00 * x + m01 * y + m02 * z + m03;
+            dst[to + 1] = m10 * x + m11 * y + m12 * z + m13;
+            dst[to + 2] = m20 * x + m21 * y + m22 * z + m23;
+        }
+    }
+
+    /**
+     * Преобразует count точек, записанных тройками x, y, z, полной матрицей и делит результат на w,
+     * так же как GraphicConveyor.multiplyMatrix4ByVector3, но без создания объектов на точку.
+     * Результат записывается тройками. src и dst могут совпадать, если совпадают и смещения
+     * @see #transformPoints(float[], int, float[], int, int)
+     */
+    public void transformPerspective(final float[] src, final int srcOffset,
+                                     final float[] dst, final int dstOffset, final int count) {
+        final float[] m = getVector();
+        final float m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3];
+        final float m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7];
+        final float m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+        final float m30 = m[12], m31 = m[13], m32 = m[14], m33 = m[15];
+        final int done = VECTORIZED
+                ? Matrix4fVectorKernels.transformPerspective(m, src, srcOffset, dst, dstOffset, count) : 0;
+        for (int i = done; i < count; i++) {
+            final int from = srcOffset + 3 * i;
+            final int to = dstOffset + 3 * i;
+            final float x = src[from];
+            final float y = src[from + 1];
+            final float z = src[from + 2];
+            final float w = m30 * x + m31 * y + m32 * z + m33;
+            dst[to] = (m00 * x + m01 * y + m02 * z + m03) / w;
+            dst[to + 1] = (m10 * x + m11 * y + m12 * z + m13) / w;
+            dst[to + 2] = (m20 * x + m21 * y + m22 * z + m23) / w;
+        }
+    }
+
+    /**
+     * @return true, если пакетные преобразования используют jdk.incubator.vector. Модуль нужно добавить
+     * при запуске: --add-modules jdk.incubator.vector
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    private static boolean isVectorApiAvailable() {
+        try {
+            final Module vectorModule = Class.forName("jdk.incubator.vector.FloatVector").getModule();
+            // Без чтения модуля обращение к его классам из этого модуля закончится ошибкой
+            return Matrix4f.class.getModule().canRead(vectorModule)
+                    && Matrix4fVectorKernels.LANES >= 4;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Преобразует count направлений, например нормалей, записанных подряд тройками x, y, z, как векторы (x, y, z, 0):
+     * используется только левый верхний блок 3x3, смещение не учитывается. Для нормалей матрица должна быть
+     * обратной транспонированной к матрице вершин. src и dst могут совпадать, если совпадают и смещения
+     * @see #transformPoints(float[], int, float[], int, int)
+     */
+    public void transformDirections(final float[] src, final int srcOffset,
+                                    final float[] dst, final int dstOffset, final int count) {
+        final float[] m = getVector();
+        final float m00 = m[0], m01 = m[1], m02 = m[2];
+        final float m10 = m[4], m11 = m[5], m12 = m[6];
+        final float m20 = m[8], m21 = m[9], m22 = m[10];
+        for (int i = 0; i < count; i++) {
+            final int from = srcOffset + 3 * i;
+            final int to = dstOffset + 3 * i;
+            final float x = src[from];
+            final float y = src[from + 1];
+            final float z = src[from + 2];
+            dst[to] = m00 * x + m01 * y + m02 * z;
+            dst[to + 1] = m10 * x + m11 * y + m12 * z;
+            dst[to + 2] = m20 * x + m21 * y + m22 * z;
+        }
+    }
+
+    /**
+     * Преобразует count точек, записанных тройками x, y, z, полной матрицей и записывает однородные координаты
+     * четвёрками x, y, z, w без деления на w, например координаты отсечения для матрицы проекции.
+     * Так RenderEngine каждый кадр переводит вершины в пространство отсечения. Если доступен модуль
+     * jdk.incubator.vector, точки обрабатываются векторными регистрами, см. isVectorized.
+     * src и dst не должны перекрываться
+     * @param src массив с координатами точек, по 3 на точку
+     * @param srcOffset индекс первой координаты в src
+     * @param dst массив для результата, по 4 на точку
+     * @param dstOffset индекс первой координаты в dst
+     * @param count количество точек
+     */
+    public void transformProjective(final float[] src, final int srcOffset,
+                                    final float[] dst, final int dstOffset, final int count) {
+        final float[] m = getVector();
+        final float m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3];
+        final float m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7];
+        final float m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+        final float m30 = m[12], m31 = m[13], m32 = m[14], m33 = m[15];
+        final int done = VECTORIZED
+                ? Matrix4fVectorKernels.transformProjective(m, src, srcOffset, dst, dstOffset, count) : 0;
+        for (int i = done; i < count; i++) {
+            final int from = srcOffset + 3 * i;
+            final int to = dstOffset + 4 * i;
+            final float x = src[from];
+            final float y = src[from + 1];
+            final float z = src[from + 2];
+            dst[to] = m00 * x + m01 * y + m02 * z + m03;
+            dst[to + 1] = m10 * x + m11 * y + m12 * z + m13;
+            dst[to + 2] = m20 * x + m21 * y + m22 * z + m23;
+            dst[to + 3] = m30 * x + m31 * y + m32 * z + m33;
+        }
+    }
+
+    /**
+     * Транспонирует матрицу в dst. dst может совпадать с matrix
+     * @return dst
+     */
+    public static Matrix4f transpose(final Matrix4f matrix, final Matrix4f dst) {
+        final float[] m = matrix.getVector();
+        final float[] r = dst.getVector();
+        for (int row = 0; row < 4; row++) {
+            r[row * 5] = m[row * 5];
+            for (int col = row + 1; col < 4; col++) {
+                final float value = m[row * 4 + col];
+                r[row * 4 + col] = m[col * 4 + row];
+                r[col * 4 + row] = value;
+            }
+        }
+        return dst;
+    }
+
+    /**
+     * Определитель через миноры 2х2 двух верхних и двух нижних строк (разложение Лапласа). Матрица не меняется
+     * @return определитель
+     */
+    public float determinant() {
+        final float[] m = getVector();
+        final float s0 = m[0] * m[5] - m[1] * m[4];
+        final float s1 = m[0] * m[6] - m[2] * m[4];
+        final float s2 = m[0] * m[7] - m[3] * m[4];
+        final float s3 = m[1] * m[6] - m[2] * m[5];
+        final float s4 = m[1] * m[7] - m[3] * m[5];
+        final float s5 = m[2] * m[7] - m[3] * m[6];
+        final float c5 = m[10] * m[15] - m[11] * m[14];
+        final float c4 = m[9] * m[15] - m[11] * m[13];
+        final float c3 = m[9] * m[14] - m[10] * m[13];
+        final float c2 = m[8] * m[15] - m[11] * m[12];
+        final float c1 = m[8] * m[14] - m[10] * m[12];
+        final float c0 = m[8] * m[13] - m[9] * m[12];
+        return s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+    }
+
+    /**
+     * Находит обратную матрицу через алгебраические дополнения, собранные из миноров 2х2,
+     * и записывает её в dst. Исходная матрица не меняется, dst может совпадать с matrix
+     * @return dst
+     * @throws MatrixException сообщает о том, что матрица не имеет обратной матрицы
+     */
+    public static Matrix4f inverse(final Matrix4f matrix, final Matrix4f dst) throws MatrixException {
+        final float[] m = matrix.getVector();
+        final float s0 = m[0] * m[5] - m[1] * m[4];
+        final float s1 = m[0] * m[6] - m[2] * m[4];
+        final float s2 = m[0] * m[7] - m[3] * m[4];
+        final float s3 = m[1] * m[6] - m[2] * m[5];
+        final float s4 = m[1] * m[7] - m[3] * m[5];
+        final float s5 = m[2] * m[7] - m[3] * m[6];
+        final float c5 = m[10] * m[15] - m[11] * m[14];
+        final float c4 = m[9] * m[15] - m[11] * m[13];
+        final float c3 = m[9] * m[14] - m[10] * m[13];
+        final float c2 = m[8] * m[15] - m[11] * m[12];
+        final float c1 = m[8] * m[14] - m[10] * m[12];
+        final float c0 = m[8] * m[13] - m[9] * m[12];
+        final float determinant = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+        if (determinant == 0 || !Float.isFinite(determinant)) {
+            throw new MatrixException("Matrix hasn't inverse matrix");
+        }
+        final float d = 1 / determinant;
+
+        final float r00 = (m[5] * c5 - m[6] * c4 + m[7] * c3) * d;
+        final float r01 = (-m[1] * c5 + m[2] * c4 - m[3] * c3) * d;
+        final float r02 = (m[13] * s5 - m[14] * s4 + m[15] * s3) * d;
+        final float r03 = (-m[9] * s5 + m[10] * s4 - m[11] * s3) * d;
+        final float r10 = (-m[4] * c5 + m[6] * c2 - m[7] * c1) * d;
+        final float r11 = (m[0] * c5 - m[2] * c2 + m[3] * c1) * d;
+        final float r12 = (-m[12] * s5 + m[14] * s2 - m[15] * s1) * d;
+        final float r13 = (m[8] * s5 - m[10] * s2 + m[11] * s1) * d;
+        final float r20 = (m[4] * c4 - m[5] * c2 + m[7] * c0) * d;
+        final float r21 = (-m[0] * c4 + m[1] * c2 - m[3] * c0) * d;
+        final float r22 = (m[12] * s4 - m[13] * s2 + m[15] * s0) * d;
+        final float r23 = (-m[8] * s4 + m[9] * s2 - m[11] * s0) * d;
+        final float r30 = (-m[4] * c3 + m[5] * c1 - m[6] * c0) * d;
+        final float r31 = (m[0] * c3 - m[1] * c1 + m[2] * c0) * d;
+        final float r32 = (-m[12] * s3 + m[13] * s1 - m[14] * s0) * d;
+        final float r33 = (m[8] * s3 - m[9] * s1 + m[10] * s0) * d;
+
+        final float[] r = dst.getVector();
+        r[0] = r00; r[1] = r01; r[2] = r02; r[3] = r03;
+        r[4] = r10; r[5] = r11; r[6] = r12; r[7] = r13;
+        r[8] = r20; r[9] = r21; r[10] = r22; r[11] = r23;
+        r[12] = r30; r[13] = r31; r[14] = r32; r[15] = r33;
+        return dst;
+    }
+
+    /**
+     * Складывает матрицы в dst. Размеры заданы типом, поэтому проверки и исключения, как в sumMatrix, не нужны.
+     * dst может совпадать с аргументом
+     * @return dst
+     */
+    public static Matrix4f add(final Matrix4f left, final Matrix4f right, final Matrix4f dst) {
+        final float[] a = left.getVector();
+        final float[] b = right.getVector();
+        final float[] r = dst.getVector();
+        for (int index = 0; index < r.length; index++) {
+            r[index] = a[index] + b[index];
+        }
+        return dst;
+    }
+
+    public static Matrix4f sub(final Matrix4f left, final Matrix4f right, final Matrix4f dst) {
+        final float[] a = left.getVector();
+        final float[] b = right.getVector();
+        final float[] r = dst.getVector();
+        for (int index = 0; index < r.length; index++) {
+            r[index] = a[index] - b[index];
+        }
+        return dst;
+    }
+}
@@ -0,0 +1,217 @@
+package io.github.annusshka.Math.Matrix;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Пакетные преобразования Matrix4f на jdk.incubator.vector с самой широкой формой регистра процессора.
+ *
+ * Точки лежат тройками x, y, z, поэтому за шаг читаются подряд три регистра - ровно LANES точек - без сборки
+ * по индексам, которая медленнее скалярного цикла. Перестановками они раскладываются в регистры x, y и z,
+ * где в каждой ячейке своя точка, матрица применяется ко всем точкам сразу, и результат так же собирается
+ * обратно в тройки или, для однородных координат, в четвёрки. Порядок операций тот же, что в скалярном цикле,
+ * поэтому результаты совпадают до бита.
+ *
+ * Класс загружается, только если модуль jdk.incubator.vector доступен, иначе Matrix4f использует
+ * скалярные циклы. Каждый метод обрабатывает целое число шагов и возвращает, сколько точек он преобразовал,
+ * остаток дообрабатывает скалярный цикл
+ */
+final class Matrix4fVectorKernels {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    static final int LANES = SPECIES.length();
+
+    // Перестановки и маски по индексу 3 * c + s: какие ячейки регистра координаты c берутся из регистра троек s
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final VectorShuffle<Float>[] SPLIT_SHUFFLES = new VectorShuffle[9];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final VectorMask<Float>[] SPLIT_MASKS = new VectorMask[9];
+    // Обратно: какие ячейки регистра троек q берутся из регистра координаты c, по индексу 3 * q + c
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final VectorShuffle<Float>[] JOIN_SHUFFLES = new VectorShuffle[9];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final VectorMask<Float>[] JOIN_MASKS = new VectorMask[9];
+    // То же для четвёрок x, y, z, w: какие ячейки регистра четвёрок q берутся из регистра координаты c,
+    // по индексу 4 * q + c
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final VectorShuffle<Float>[] JOIN4_SHUFFLES = new VectorShuffle[16];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final VectorMask<Float>[] JOIN4_MASKS = new VectorMask[16];
+
+    static {
+        for (int i = 0; i < 3; i++) {
+            final int[][] splitIndices = new int[3][LANES];
+            final boolean[][] splitLanes = new boolean[3][LANES];
+            final int[][] joinIndices = new int[3][LANES];
+            final boolean[][] joinLanes = new boolean[3][LANES];
+            for (int lane = 0; lane < LANES; lane++) {
+                // Координата i точки lane лежит в element-й ячейке трёх регистров троек
+                final int element = 3 * lane + i;
+                splitIndices[element / LANES][lane] = element % LANES;
+                splitLanes[element / LANES][lane] = true;
+                // Ячейка lane регистра троек i хранит координату (i * LANES + lane) % 3 точки (i * LANES + lane) / 3
+                final int joined = i * LANES + lane;
+                joinIndices[joined % 3][lane] = joined / 3;
+                joinLanes[joined % 3][lane] = true;
+            }
+            for (int j = 0; j < 3; j++) {
+                SPLIT_SHUFFLES[3 * i + j] = VectorShuffle.fromArray(SPECIES, splitIndices[j], 0);
+                SPLIT_MASKS[3 * i + j] = VectorMask.fromArray(SPECIES, splitLanes[j], 0);
+                JOIN_SHUFFLES[3 * i + j] = VectorShuffle.fromArray(SPECIES, joinIndices[j], 0);
+                JOIN_MASKS[3 * i + j] = VectorMask.fromArray(SPECIES, joinLanes[j], 0);
+            }
+        }
+        for (int q = 0; q < 4; q++) {
+            final int[][] joinIndices = new int[4][LANES];
+            final boolean[][] joinLanes = new boolean[4][LANES];
+            for (int lane = 0; lane < LANES; lane++) {
+                // Ячейка lane регистра четвёрок q хранит координату (q * LANES + lane) % 4 точки (q * LANES + lane) / 4
+                final int joined = q * LANES + lane;
+                joinIndices[joined % 4][lane] = joined / 4;
+                joinLanes[joined % 4][lane] = true;
+            }
+            for (int c = 0; c < 4; c++) {
+                JOIN4_SHUFFLES[4 * q + c] = VectorShuffle.fromArray(SPECIES, joinIndices[c], 0);
+                JOIN4_MASKS[4 * q + c] = VectorMask.fromArray(SPECIES, joinLanes[c], 0);
+            }
+        }
+    }
+
+    private Matrix4fVectorKernels() {
+    }
+
+    /**
+     * @see Matrix4f#transformPoints(float[], int, float[], int, int)
+     */
+    static int transformPoints(final float[] m, final float[] src, final int srcOffset,
+                               final float[] dst, final int dstOffset, final int count) {
+        final float m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3];
+        final float m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7];
+        final float m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+        final VectorShuffle<Float> s0 = SPLIT_SHUFFLES[0], s1 = SPLIT_SHUFFLES[1], s2 = SPLIT_SHUFFLES[2],
+                s3 = SPLIT_SHUFFLES[3], s4 = SPLIT_SHUFFLES[4], s5 = SPLIT_SHUFFLES[5],
+                s6 = SPLIT_SHUFFLES[6], s7 = SPLIT_SHUFFLES[7], s8 = SPLIT_SHUFFLES[8];
+        final VectorMask<Float> k1 = SPLIT_MASKS[1], k2 = SPLIT_MASKS[2], k4 = SPLIT_MASKS[4], k5 = SPLIT_MASKS[5],
+                k7 = SPLIT_MASKS[7], k8 = SPLIT_MASKS[8];
+        final VectorShuffle<Float> j0 = JOIN_SHUFFLES[0], j1 = JOIN_SHUFFLES[1], j2 = JOIN_SHUFFLES[2],
+                j3 = JOIN_SHUFFLES[3], j4 = JOIN_SHUFFLES[4], j5 = JOIN_SHUFFLES[5],
+                j6 = JOIN_SHUFFLES[6], j7 = JOIN_SHUFFLES[7], j8 = JOIN_SHUFFLES[8];
+        final VectorMask<Float> l1 = JOIN_MASKS[1], l2 = JOIN_MASKS[2], l4 = JOIN_MASKS[4], l5 = JOIN_MASKS[5],
+                l7 = JOIN_MASKS[7], l8 = JOIN_MASKS[8];
+        final int bound = count - count % LANES;
+        for (int i = 0; i < bound; i += LANES) {
+            final int from = srcOffset + 3 * i;
+            final FloatVector v0 = FloatVector.fromArray(SPECIES, src, from);
+            final FloatVector v1 = FloatVector.fromArray(SPECIES, src, from + LANES);
+            final FloatVector v2 = FloatVector.fromArray(SPECIES, src, from + 2 * LANES);
+            final FloatVector x = v0.rearrange(s0).blend(v1.rearrange(s1), k1).blend(v2.rearrange(s2), k2);
+            final FloatVector y = v0.rearrange(s3).blend(v1.rearrange(s4), k4).blend(v2.rearrange(s5), k5);
+            final FloatVector z = v0.rearrange(s6).blend(v1.rearrange(s7), k7).blend(v2.rearrange(s8), k8);
+            final FloatVector rx = x.mul(m00).add(y.mul(m01)).add(z.mul(m02)).add(m03);
+            final FloatVector ry = x.mul(m10).add(y.mul(m11)).add(z.mul(m12)).add(m13);
+            final FloatVector rz = x.mul(m20).add(y.mul(m21)).add(z.mul(m22)).add(m23);
+            final int to = dstOffset + 3 * i;
+            rx.rearrange(j0).blend(ry.rearrange(j1), l1).blend(rz.rearrange(j2), l2).intoArray(dst, to);
+            rx.rearrange(j3).blend(ry.rearrange(j4), l4).blend(rz.rearrange(j5), l5).intoArray(dst, to + LANES);
+            rx.rearrange(j6).blend(ry.rearrange(j7), l7).blend(rz.rearrange(j8), l8).intoArray(dst, to + 2 * LANES);
+        }
+        return bound;
+    }
+
+    /**
+     * Точки читаются тройками, как в transformPoints, а однородные координаты записываются четвёрками:
+     * за шаг четыре регистра
+     * @see Matrix4f#transformProjective(float[], int, float[], int, int)
+     */
+    static int transformProjective(final float[] m, final float[] src, final int srcOffset,
+                                   final float[] dst, final int dstOffset, final int count) {
+        final float m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3];
+        final float m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7];
+        final float m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+        final float m30 = m[12], m31 = m[13], m32 = m[14], m33 = m[15];
+        final VectorShuffle<Float> s0 = SPLIT_SHUFFLES[0], s1 = SPLIT_SHUFFLES[1], s2 = SPLIT_SHUFFLES[2],
+                s3 = SPLIT_SHUFFLES[3], s4 = SPLIT_SHUFFLES[4], s5 = SPLIT_SHUFFLES[5],
+                s6 = SPLIT_SHUFFLES[6], s7 = SPLIT_SHUFFLES[7], s8 = SPLIT_SHUFFLES[8];
+        final VectorMask<Float> k1 = SPLIT_MASKS[1], k2 = SPLIT_MASKS[2], k4 = SPLIT_MASKS[4], k5 = SPLIT_MASKS[5],
+                k7 = SPLIT_MASKS[7], k8 = SPLIT_MASKS[8];
+        final VectorShuffle<Float> j0 = JOIN4_SHUFFLES[0], j1 = JOIN4_SHUFFLES[1], j2 = JOIN4_SHUFFLES[2],
+                j3 = JOIN4_SHUFFLES[3], j4 = JOIN4_SHUFFLES[4], j5 = JOIN4_SHUFFLES[5],
+                j6 = JOIN4_SHUFFLES[6], j7 = JOIN4_SHUFFLES[7], j8 = JOIN4_SHUFFLES[8],
+                j9 = JOIN4_SHUFFLES[9], j10 = JOIN4_SHUFFLES[10], j11 = JOIN4_SHUFFLES[11],
+                j12 = JOIN4_SHUFFLES[12], j13 = JOIN4_SHUFFLES[13], j14 = JOIN4_SHUFFLES[14],
+                j15 = JOIN4_SHUFFLES[15];
+        final VectorMask<Float> l1 = JOIN4_MASKS[1], l2 = JOIN4_MASKS[2], l3 = JOIN4_MASKS[3],
+                l5 = JOIN4_MASKS[5], l6 = JOIN4_MASKS[6], l7 = JOIN4_MASKS[7],
+                l9 = JOIN4_MASKS[9], l10 = JOIN4_MASKS[10], l11 = JOIN4_MASKS[11],
+                l13 = JOIN4_MASKS[13], l14 = JOIN4_MASKS[14], l15 = JOIN4_MASKS[15];
+        final int bound = count - count % LANES;
+        for (int i = 0; i < bound; i += LANES) {
+            final int from = srcOffset + 3 * i;
+            final FloatVector v0 = FloatVector.fromArray(SPECIES, src, from);
+            final FloatVector v1 = FloatVector.fromArray(SPECIES, src, from + LANES);
+            final FloatVector v2 = FloatVector.fromArray(SPECIES, src, from + 2 * LANES);
+            final FloatVector x = v0.rearrange(s0).blend(v1.rearrange(s1), k1).blend(v2.rearrange(s2), k2);
+            final FloatVector y = v0.rearrange(s3).blend(v1.rearrange(s4), k4).blend(v2.rearrange(s5), k5);
+            final FloatVector z = v0.rearrange(s6).blend(v1.rearrange(s7), k7).blend(v2.rearrange(s8), k8);
+            final FloatVector rx = x.mul(m00).add(y.mul(m01)).add(z.mul(m02)).add(m03);
+            final FloatVector ry = x.mul(m10).add(y.mul(m11)).add(z.mul(m12)).add(m13);
+            final FloatVector rz = x.mul(m20).add(y.mul(m21)).add(z.mul(m22)).add(m23);
+            final FloatVector rw = x.mul(m30).add(y.mul(m31)).add(z.mul(m32)).add(m33);
+            final int to = dstOffset + 4 * i;
+            rx.rearrange(j0).blend(ry.rearrange(j1), l1).blend(rz.rearrange(j2), l2)
+                    .blend(rw.rearrange(j3), l3).intoArray(dst, to);
+            rx.rearrange(j4).blend(ry.rearrange(j5), l5).blend(rz.rearrange(j6), l6)
+                    .blend(rw.rearrange(j7), l7).intoArray(dst, to + LANES);
+            rx.rearrange(j8).blend(ry.rearrange(j9), l9).blend(rz.rearrange(j10), l10)
+                    .blend(rw.rearrange(j11), l11).intoArray(dst, to + 2 * LANES);
+            rx.rearrange(j12).blend(ry.rearrange(j13), l13).blend(rz.rearrange(j14), l14)
+                    .blend(rw.rearrange(j15), l15).intoArray(dst, to + 3 * LANES);
+        }
+        return bound;
+    }
+
+    /**
+     * @see Matrix4f#transformPerspective(float[], int, float[], int, int)
+     */
+    static int transformPerspective(final float[] m, final float[] src, final int srcOffset,
+                                    final float[] dst, final int dstOffset, final int count) {
+        final float m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3];
+        final float m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7];
+        final float m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+        final float m30 = m[12], m31 = m[13], m32 = m[14], m33 = m[15];
+        // Перестановки и маски читаются из массивов до цикла: внутри цикла JIT пришлось бы каждый раз
+        // заново загружать их в регистры
+        final VectorShuffle<Float> s0 = SPLIT_SHUFFLES[0], s1 = SPLIT_SHUFFLES[1], s2 = SPLIT_SHUFFLES[2],
+                s3 = SPLIT_SHUFFLES[3], s4 = SPLIT_SHUFFLES[4], s5 = SPLIT_SHUFFLES[5],
+                s6 = SPLIT_SHUFFLES[6], s7 = SPLIT_SHUFFLES[7], s8 = SPLIT_SHUFFLES[8];
+        final VectorMask<Float> k1 = SPLIT_MASKS[1], k2 = SPLIT_MASKS[2], k4 = SPLIT_MASKS[4], k5 = SPLIT_MASKS[5],
+                k7 = SPLIT_MASKS[7], k8 = SPLIT_MASKS[8];
+        final VectorShuffle<Float> j0 = JOIN_SHUFFLES[0], j1 = JOIN_SHUFFLES[1], j2 = JOIN_SHUFFLES[2],
+                j3 = JOIN_SHUFFLES[3], j4 = JOIN_SHUFFLES[4], j5 = JOIN_SHUFFLES[5],
+                j6 = JOIN_SHUFFLES[6], j7 = JOIN_SHUFFLES[7], j8 = JOIN_SHUFFLES[8];
+        final VectorMask<Float> l1 = JOIN_MASKS[1], l2 = JOIN_MASKS[2], l4 = JOIN_MASKS[4], l5 = JOIN_MASKS[5],
+                l7 = JOIN_MASKS[7], l8 = JOIN_MASKS[8];
+        final int bound = count - count % LANES;
+        for (int i = 0; i < bound; i += LANES) {
+            final int from = srcOffset + 3 * i;
+            final FloatVector v0 = FloatVector.fromArray(SPECIES, src, from);
+            final FloatVector v1 = FloatVector.fromArray(SPECIES, src, from + LANES);
+            final FloatVector v2 = FloatVector.fromArray(SPECIES, src, from + 2 * LANES);
+            final FloatVector x = v0.rearrange(s0).blend(v1.rearrange(s1), k1).blend(v2.rearrange(s2), k2);
+            final FloatVector y = v0.rearrange(s3).blend(v1.rearrange(s4), k4).blend(v2.rearrange(s5), k5);
+            final FloatVector z = v0.rearrange(s6).blend(v1.rearrange(s7), k7).blend(v2.rearrange(s8), k8);
+            final FloatVector w = x.mul(m30).add(y.mul(m31)).add(z.mul(m32)).add(m33);
+            final FloatVector rx = x.mul(m00).add(y.mul(m01)).add(z.mul(m02)).add(m03).div(w);
+            final FloatVector ry = x.mul(m10).add(y.mul(m11)).add(z.mul(m12)).add(m13).div(w);
+            final FloatVector rz = x.mul(m20).add(y.mul(m21)).add(z.mul(m22)).add(m23).div(w);
+            final int to = dstOffset + 3 * i;
+            rx.rearrange(j0).blend(ry.rearrange(j1), l1).blend(rz.rearrange(j2), l2).intoArray(dst, to);
+            rx.rearrange(j3).blend(ry.rearrange(j4), l4).blend(rz.rearrange(j5), l5).intoArray(dst, to + LANES);
+            rx.rearrange(j6).blend(ry.rearrange(j7), l7).blend(rz.rearrange(j8), l8).intoArray(dst, to + 2 * LANES);
+        }
+        return bound;
+    }
+}
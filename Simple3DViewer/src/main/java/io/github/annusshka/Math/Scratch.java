@@ -0,0 +1,29 @@
+package io.github.annusshka.Math;
+
+import io.github.annusshka.Math.Matrix.Matrix4f;
+import io.github.annusshka.Math.Vector.Vector3f;
+import io.github.annusshka.Math.Vector.Vector4f;
+
+/**
+ * Переиспользуемые векторы и матрицы для промежуточных вычислений, чтобы не создавать объекты в циклах.
+ * У каждого потока свой набор. Значения живут до следующего использования того же поля,
+ * поэтому возвращать их наружу и держать между вызовами нельзя
+ */
+public final class Scratch {
+
+    private static final ThreadLocal<Scratch> INSTANCE = ThreadLocal.withInitial(Scratch::new);
+
+    public final Vector3f vector3 = new Vector3f();
+    public final Vector4f vector4 = new Vector4f();
+    public final Matrix4f matrix4 = new Matrix4f();
+
+    private Scratch() {
+    }
+
+    /**
+     * @return набор промежуточных объектов текущего потока
+     */
+    public static Scratch get() {
+        return INSTANCE.get();
+    }
+}
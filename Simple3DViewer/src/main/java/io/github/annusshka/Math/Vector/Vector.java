@@ -3,6 +3,7 @@ package io.github.annusshka.Math.Vector;
 public abstract class Vector {
 
     public static class VectorException extends Exception {
+        private static final long serialVersionUID = 1L;
 
         public VectorException(String message) {
             super(message);
@@ -111,6 +112,81 @@ public abstract class Vector {
         return resultVector;
     }
 
+    /**
+     * Складывает векторы и записывает результат в dst вместо создания нового вектора.
+     * dst может совпадать с одним из слагаемых
+     * @return dst
+     * @throws VectorException оповещает о том, что размеры векторов не совпадают
+     */
+    public static Vector sumVector(final Vector vector1, final Vector vector2, final Vector dst)
+            throws VectorException {
+        if (!isEqualSize(vector1, vector2) || !isEqualSize(vector1, dst)) {
+            throw new Vector.VectorException("Vectors of different sizes can't be summed");
+        }
+        for (int index = 0; index < dst.getSize(); index++) {
+            dst.getVector()[index] = vector1.getVector()[index] + vector2.getVector()[index];
+        }
+        return dst;
+    }
+
+    /**
+     * Вычитает векторы и записывает результат в dst. dst может совпадать с одним из векторов
+     * @return dst
+     * @throws VectorException оповещает о том, что размеры векторов не совпадают
+     */
+    public static Vector minusVector(final Vector vector1, final Vector vector2, final Vector dst)
+            throws VectorException {
+        if (!isEqualSize(vector1, vector2) || !isEqualSize(vector1, dst)) {
+            throw new Vector.VectorException("Vectors of different sizes can't be summed");
+        }
+        for (int index = 0; index < dst.getSize(); index++) {
+            dst.getVector()[index] = vector1.getVector()[index] - vector2.getVector()[index];
+        }
+        return dst;
+    }
+
+    /**
+     * Умножает вектор на число и записывает результат в dst, не меняя исходный вектор
+     * @return dst
+     * @throws VectorException оповещает о том, что размеры векторов не совпадают
+     */
+    public static Vector multiplicateVectorOnConstant(final Vector vector, final float constant, final Vector dst)
+            throws VectorException {
+        if (!isEqualSize(vector, dst)) {
+            throw new Vector.VectorException("Vectors of different sizes");
+        }
+        for (int index = 0; index < dst.getSize(); index++) {
+            dst.getVector()[index] = vector.getVector()[index] * constant;
+        }
+        return dst;
+    }
+
+    /**
+     * Нормирует вектор и записывает результат в dst, не меняя исходный вектор
+     * @return dst
+     * @throws VectorException оповещает о нулевом векторе или разных размерах векторов
+     */
+    public static Vector normalizeVector(final Vector vector, final Vector dst) throws VectorException {
+        final float length = vector.getVectorLength();
+        if (length < EPS) {
+            throw new VectorException("Division by zero");
+        }
+        return multiplicateVectorOnConstant(vector, 1.0f / length, dst);
+    }
+
+    /**
+     * Копирует значения другого вектора того же размера
+     * @return этот вектор
+     * @throws VectorException оповещает о том, что размеры векторов не совпадают
+     */
+    public Vector set(final Vector other) throws VectorException {
+        if (!isEqualSize(this, other)) {
+            throw new Vector.VectorException("Vectors of different sizes");
+        }
+        System.arraycopy(other.getVector(), 0, this.getVector(), 0, size);
+        return this;
+    }
+
     public Vector sumWithConstant(final float constant) {
         for (int index = 0; index < this.getSize(); index++) {
             this.getVector()[index] += constant;
@@ -137,9 +213,9 @@ public abstract class Vector {
     }
 
     public float getVectorLength() {
-        float length = 0;
+        double length = 0;
         for (float value: this.getVector()) {
-            length += Math.pow(value, 2);
+            length += (double) value * value;
         }
         return (float) Math.sqrt(length);
     }
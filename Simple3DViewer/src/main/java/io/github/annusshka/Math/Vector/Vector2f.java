@@ -19,6 +19,10 @@ public class Vector2f extends Vector {
         super(new float[size], size);
     }
 
+    public Vector2f(final float x, final float y) {
+        this(new float[]{x, y});
+    }
+
     @Override
     public Vector getZeroVector(int size) {
         if (size != this.getSize()) {
@@ -19,6 +19,10 @@ public class Vector3f extends Vector {
         super(new float[size], size);
     }
 
+    public Vector3f(final float x, final float y, final float z) {
+        this(new float[]{x, y, z});
+    }
+
     @Override
     public Vector getZeroVector(int size) {
         if (size != this.getSize()) {
@@ -34,4 +38,55 @@ public class Vector3f extends Vector {
             this.getVector()[2] = vector1.get(0) * vector2.get(1) - vector1.get(1) * vector2.get(0);
         }
     }
-}
\ No newline at end of file
+
+    public Vector3f set(final float x, final float y, final float z) {
+        this.getVector()[0] = x;
+        this.getVector()[1] = y;
+        this.getVector()[2] = z;
+        return this;
+    }
+
+    /**
+     * Складывает векторы в dst без проверок размера и создания объектов. dst может совпадать с аргументом
+     * @return dst
+     */
+    public static Vector3f add(final Vector3f vector1, final Vector3f vector2, final Vector3f dst) {
+        return dst.set(vector1.get(0) + vector2.get(0), vector1.get(1) + vector2.get(1), vector1.get(2) + vector2.get(2));
+    }
+
+    public static Vector3f sub(final Vector3f vector1, final Vector3f vector2, final Vector3f dst) {
+        return dst.set(vector1.get(0) - vector2.get(0), vector1.get(1) - vector2.get(1), vector1.get(2) - vector2.get(2));
+    }
+
+    public static Vector3f scale(final Vector3f vector, final float constant, final Vector3f dst) {
+        return dst.set(vector.get(0) * constant, vector.get(1) * constant, vector.get(2) * constant);
+    }
+
+    /**
+     * Векторное произведение в dst. dst может совпадать с аргументом
+     * @return dst
+     */
+    public static Vector3f cross(final Vector3f vector1, final Vector3f vector2, final Vector3f dst) {
+        return dst.set(
+                vector1.get(1) * vector2.get(2) - vector1.get(2) * vector2.get(1),
+                vector1.get(2) * vector2.get(0) - vector1.get(0) * vector2.get(2),
+                vector1.get(0) * vector2.get(1) - vector1.get(1) * vector2.get(0));
+    }
+
+    public static float dot(final Vector3f vector1, final Vector3f vector2) {
+        return vector1.get(0) * vector2.get(0) + vector1.get(1) * vector2.get(1) + vector1.get(2) * vector2.get(2);
+    }
+
+    /**
+     * Нормирует вектор в dst. В отличие от Vector.normalizeVector не бросает исключений:
+     * нулевой вектор остаётся нулевым. dst может совпадать с аргументом
+     * @return dst
+     */
+    public static Vector3f normalize(final Vector3f vector, final Vector3f dst) {
+        final float length = (float) Math.sqrt(dot(vector, vector));
+        if (length == 0) {
+            return dst.set(0, 0, 0);
+        }
+        return scale(vector, 1 / length, dst);
+    }
+}
@@ -26,4 +26,36 @@ public class Vector4f extends Vector {
         }
         return new Vector4f(new float[size]);
     }
-}
\ No newline at end of file
+
+    public Vector4f set(final float x, final float y, final float z, final float w) {
+        this.getVector()[0] = x;
+        this.getVector()[1] = y;
+        this.getVector()[2] = z;
+        this.getVector()[3] = w;
+        return this;
+    }
+
+    /**
+     * Складывает векторы в dst без проверок размера и создания объектов. dst может совпадать с аргументом
+     * @return dst
+     */
+    public static Vector4f add(final Vector4f vector1, final Vector4f vector2, final Vector4f dst) {
+        return dst.set(vector1.get(0) + vector2.get(0), vector1.get(1) + vector2.get(1),
+                vector1.get(2) + vector2.get(2), vector1.get(3) + vector2.get(3));
+    }
+
+    public static Vector4f sub(final Vector4f vector1, final Vector4f vector2, final Vector4f dst) {
+        return dst.set(vector1.get(0) - vector2.get(0), vector1.get(1) - vector2.get(1),
+                vector1.get(2) - vector2.get(2), vector1.get(3) - vector2.get(3));
+    }
+
+    public static Vector4f scale(final Vector4f vector, final float constant, final Vector4f dst) {
+        return dst.set(vector.get(0) * constant, vector.get(1) * constant,
+                vector.get(2) * constant, vector.get(3) * constant);
+    }
+
+    public static float dot(final Vector4f vector1, final Vector4f vector2) {
+        return vector1.get(0) * vector2.get(0) + vector1.get(1) * vector2.get(1)
+                + vector1.get(2) * vector2.get(2) + vector1.get(3) * vector2.get(3);
+    }
+}
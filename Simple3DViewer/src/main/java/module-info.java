@@ -1,8 +1,9 @@
 module com.cgvsu {
     requires javafx.controls;
     requires javafx.fxml;
-    requires vecmath;
     requires java.desktop;
+    // Необязательный: без него Matrix4f использует скалярные циклы
+    requires static jdk.incubator.vector;
 
     opens com.cgvsu to javafx.fxml;
     exports com.cgvsu;
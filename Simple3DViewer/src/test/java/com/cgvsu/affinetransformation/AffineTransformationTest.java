@@ -118,6 +118,18 @@ class AffineTransformationTest {
         Assertions.assertArrayEquals(newNormal.getVector(), normal.getVector());
     }
 
+    @Test
+    void translationWritesIntoDestination() {
+        Vector3f translation = new Vector3f(new float[]{2, 3, 4});
+        Vector3f vertex = new Vector3f(new float[]{1, 1, 1});
+        Vector3f normal = new Vector3f(new float[]{0, 1, 0});
+
+        Assertions.assertSame(vertex, AffineTransformation.vertexTranslation(vertex, translation, vertex));
+        Assertions.assertArrayEquals(new float[]{3, 4, 5}, vertex.getVector());
+        Assertions.assertSame(normal, AffineTransformation.normalTranslation(normal, translation, normal));
+        Assertions.assertArrayEquals(new float[]{0, 1, 0}, normal.getVector());
+    }
+
     @Test
     void normalRotationTest(){
         Vector3f rotation = new Vector3f(new float[]{90, 0, 0});
@@ -210,4 +222,110 @@ class AffineTransformationTest {
         Assertions.assertEquals(model.polygons.size(), result.polygons.size());
         Assertions.assertEquals(model.textureVertices.size(), result.textureVertices.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void modelTransformMatchesVertexTransforms(){
+        Model model = new Model();
+        for (int i = 0; i < 20; i++) {
+            model.addVertex(i * 0.5f - 3, 7 - i, i * i * 0.01f);
+        }
+        model.addNormal(0, 0, 1);
+        model.addNormal(1, 0, 0);
+
+        Vector3f scaling = new Vector3f(new float[]{2, 0.5f, 3});
+        Vector3f translation = new Vector3f(new float[]{-1, 3, 4});
+        Vector3f rotation = new Vector3f(new float[]{30, 45, 60});
+        Model result = AffineTransformation.modelTransform(model, translation, rotation, scaling);
+        for (int i = 0; i < 20; i++) {
+            Vector3f vertex = new Vector3f(new float[]{
+                    model.vertices.get(i).x, model.vertices.get(i).y, model.vertices.get(i).z});
+            vertex = AffineTransformation.vertexScaling(vertex, scaling);
+            vertex = AffineTransformation.vertexRotation(vertex, rotation);
+            vertex = AffineTransformation.vertexTranslation(vertex, translation);
+            Assertions.assertEquals(vertex.get(0), result.vertices.get(i).x, 1e-4);
+            Assertions.assertEquals(vertex.get(1), result.vertices.get(i).y, 1e-4);
+            Assertions.assertEquals(vertex.get(2), result.vertices.get(i).z, 1e-4);
+        }
+        // Нормали берутся из нормалей модели, а не из вершин
+        Assertions.assertEquals(2, result.normals.size());
+        // Ожидаемые нормали: Rz(60) * Ry(45) * Rx(30) * S^-1 * n
+        final double x = Math.cos(Math.toRadians(45)) * Math.cos(Math.toRadians(30));
+        Assertions.assertEquals((0.5 * x + Math.sin(Math.toRadians(60)) * 0.5) / 3, result.normals.get(0).x, 1e-5);
+        Assertions.assertEquals((Math.sin(Math.toRadians(60)) * x - 0.25) / 3, result.normals.get(0).y, 1e-5);
+        Assertions.assertEquals(x / 3, result.normals.get(0).z, 1e-5);
+        Assertions.assertEquals(0.25f * (float) Math.cos(Math.toRadians(45)), result.normals.get(1).x, 1e-5);
+    }
+
+    @Test
+    void transformInPlaceMatchesModelTransform(){
+        Model model = new Model();
+        for (int i = 0; i < 100_000; i++) {
+            model.addVertex(i % 17, i * 0.001f, -i % 5);
+            model.addNormal(i % 3, 1, 0);
+        }
+        Vector3f scaling = new Vector3f(new float[]{2, 3, 4});
+        Vector3f translation = new Vector3f(new float[]{5, -6, 7});
+        Vector3f rotation = new Vector3f(new float[]{10, 20, 30});
+        Model expected = AffineTransformation.modelTransform(model, translation, rotation, scaling);
+
+        final long modificationCount = model.getMeshData().getModificationCount();
+        AffineTransformation.transformInPlace(model, translation, rotation, scaling);
+        Assertions.assertNotEquals(modificationCount, model.getMeshData().getModificationCount());
+        for (int i = 0; i < 100_000; i += 997) {
+            Assertions.assertTrue(expected.vertices.get(i).equals(model.vertices.get(i)));
+            Assertions.assertTrue(expected.normals.get(i).equals(model.normals.get(i)));
+        }
+    }
+
+    @Test
+    void repeatedTransformMatchesRepeatedModelTransform(){
+        Model model = new Model();
+        for (int i = 0; i < 30; i++) {
+            model.addVertex(i * 0.3f - 4, 2 - i * 0.1f, i % 7);
+            model.addNormal(i % 2, 1, i % 3);
+        }
+        Vector3f scaling = new Vector3f(new float[]{2, 2, 2});
+        Vector3f translation = new Vector3f(new float[]{2, 3, 4});
+        Vector3f rotation = new Vector3f(new float[]{90, 0, 0});
+        Model expected = AffineTransformation.modelTransform(
+                AffineTransformation.modelTransform(model, translation, rotation, scaling),
+                translation, rotation, scaling);
+
+        // Как при двух нажатиях "Transform" в интерфейсе
+        model.getTransform().apply(translation, rotation, scaling);
+        model.getTransform().apply(translation, rotation, scaling);
+        Assertions.assertEquals(6, model.getTransform().getTranslationX(), 1e-5);
+        Assertions.assertEquals(-5, model.getTransform().getTranslationY(), 1e-5);
+        Assertions.assertEquals(10, model.getTransform().getTranslationZ(), 1e-5);
+
+        Model baked = AffineTransformation.bakeTransform(model);
+        for (int i = 0; i < 30; i++) {
+            Assertions.assertEquals(expected.vertices.get(i).x, baked.vertices.get(i).x, 1e-4);
+            Assertions.assertEquals(expected.vertices.get(i).y, baked.vertices.get(i).y, 1e-4);
+            Assertions.assertEquals(expected.vertices.get(i).z, baked.vertices.get(i).z, 1e-4);
+            Assertions.assertEquals(expected.normals.get(i).x, baked.normals.get(i).x, 1e-4);
+            Assertions.assertEquals(expected.normals.get(i).y, baked.normals.get(i).y, 1e-4);
+            Assertions.assertEquals(expected.normals.get(i).z, baked.normals.get(i).z, 1e-4);
+        }
+    }
+
+    @Test
+    void rotationAfterNonUniformScalingIsKept(){
+        Model model = new Model();
+        model.addVertex(1, 1, 0);
+        Vector3f zero = new Vector3f(new float[]{0, 0, 0});
+        Vector3f one = new Vector3f(new float[]{1, 1, 1});
+        Vector3f scaling = new Vector3f(new float[]{3, 1, 1});
+        Vector3f rotation = new Vector3f(new float[]{0, 0, 90});
+        Model expected = AffineTransformation.modelTransform(
+                AffineTransformation.modelTransform(model, zero, rotation, one), zero, zero, scaling);
+
+        model.getTransform().rotate(0, 0, 90);
+        model.getTransform().scale(3, 1, 1);
+        Model baked = AffineTransformation.bakeTransform(model);
+        // (1, 1, 0) -> (-1, 1, 0) -> (-3, 1, 0)
+        Assertions.assertEquals(-3, baked.vertices.get(0).x, 1e-5);
+        Assertions.assertEquals(expected.vertices.get(0).x, baked.vertices.get(0).x, 1e-5);
+        Assertions.assertEquals(expected.vertices.get(0).y, baked.vertices.get(0).y, 1e-5);
+    }
+}
@@ -0,0 +1,256 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import io.github.annusshka.Math.Matrix.Matrix4f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+class MeshDataTest {
+
+    static Polygon createPolygon(List<Integer> vertexIndices, List<Integer> textureVertexIndices, List<Integer> normalIndices) {
+        Polygon polygon = new Polygon();
+        polygon.getVertexIndices().addAll(vertexIndices);
+        polygon.getTextureVertexIndices().addAll(textureVertexIndices);
+        polygon.getNormalIndices().addAll(normalIndices);
+        return polygon;
+    }
+
+    @Test
+    void viewsWriteThroughToMeshData() {
+        Model model = new Model();
+        for (int i = 0; i < 100; i++) {
+            model.vertices.add(new Vector3f(i, -i, 2 * i));
+            model.textureVertices.add(new Vector2f(i, 0.5f));
+        }
+        model.addNormal(0, 1, 0);
+        model.polygons.add(createPolygon(Arrays.asList(0, 1, 2), Arrays.asList(2, 1, 0), Arrays.asList(0, 0, 0)));
+        model.addPolygon(3, 4, 5, 6);
+
+        MeshData meshData = model.getMeshData();
+        Assertions.assertEquals(100, meshData.getVertexCount());
+        Assertions.assertEquals(-42, meshData.getVertexY(42));
+        Assertions.assertEquals(0.5f, model.textureVertices.get(99).y);
+        Assertions.assertEquals(1, model.normals.get(0).y);
+        Assertions.assertEquals(2, meshData.getPolygonCount());
+        Assertions.assertEquals(1, meshData.getPolygonTextureVertexIndex(0, 1));
+        Assertions.assertEquals(Arrays.asList(3, 4, 5, 6), model.polygons.get(1).getVertexIndices());
+        Assertions.assertTrue(model.polygons.get(1).getNormalIndices().isEmpty());
+
+        model.vertices.set(42, new Vector3f(1, 2, 3));
+        Assertions.assertEquals(3, meshData.getVertexZ(42));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> model.vertices.get(100));
+    }
+
+    @Test
+    void polygonsFromViewAreReadOnly() {
+        Model model = new Model();
+        model.addPolygon(0, 1, 2);
+        Polygon polygon = model.polygons.get(0);
+
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> polygon.getVertexIndices().add(3));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> polygon.getVertexIndices().set(0, 3));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> polygon.getVertexIndices().subList(0, 1).clear());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> {
+            Iterator<Integer> iterator = polygon.getVertexIndices().iterator();
+            iterator.next();
+            iterator.remove();
+        });
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> polygon.setNormalIndices(new ArrayList<>(Arrays.asList(0, 0, 0))));
+        Assertions.assertEquals(Arrays.asList(0, 1, 2), model.polygons.get(0).getVertexIndices());
+
+        // Полигон, созданный отдельно, по-прежнему можно менять и записать в модель через set
+        Polygon replacement = new Polygon();
+        replacement.getVertexIndices().addAll(polygon.getVertexIndices());
+        replacement.getVertexIndices().add(3);
+        model.polygons.set(0, replacement);
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3), model.polygons.get(0).getVertexIndices());
+    }
+
+    @Test
+    void setPolygonShiftsFollowingPolygons() {
+        Model model = new Model();
+        model.addPolygon(0, 1, 2);
+        model.addPolygon(3, 4, 5);
+        model.addPolygon(6, 7, 8);
+
+        model.polygons.set(1, createPolygon(Arrays.asList(9, 10, 11, 12, 13), Arrays.asList(1, 2, 3, 4, 5), new ArrayList<>()));
+        Assertions.assertEquals(Arrays.asList(0, 1, 2), model.polygons.get(0).getVertexIndices());
+        Assertions.assertEquals(Arrays.asList(9, 10, 11, 12, 13), model.polygons.get(1).getVertexIndices());
+        Assertions.assertEquals(Arrays.asList(1, 2, 3, 4, 5), model.polygons.get(1).getTextureVertexIndices());
+        Assertions.assertEquals(Arrays.asList(6, 7, 8), model.polygons.get(2).getVertexIndices());
+        Assertions.assertEquals(11, model.getMeshData().getVertexIndexCount());
+
+        model.polygons.set(1, createPolygon(Arrays.asList(3, 4, 5), new ArrayList<>(), new ArrayList<>()));
+        Assertions.assertEquals(Arrays.asList(6, 7, 8), model.polygons.get(2).getVertexIndices());
+        Assertions.assertEquals(0, model.getMeshData().getTextureVertexIndexCount());
+    }
+
+    @Test
+    void addAllAppendsPolygonsInOrder() {
+        Model first = new Model();
+        first.addVertex(1, 2, 3);
+        first.addPolygon(0, 0, 0);
+        Model second = new Model();
+        second.addVertex(4, 5, 6);
+        second.polygons.add(createPolygon(Arrays.asList(1, 1, 1), Arrays.asList(0, 0, 0), Arrays.asList(0, 0, 0)));
+
+        first.getMeshData().addAll(second.getMeshData());
+        Assertions.assertEquals(2, first.vertices.size());
+        Assertions.assertEquals(4, first.vertices.get(1).x);
+        Assertions.assertEquals(Arrays.asList(1, 1, 1), first.polygons.get(1).getVertexIndices());
+        Assertions.assertEquals(Arrays.asList(0, 0, 0), first.polygons.get(1).getTextureVertexIndices());
+        Assertions.assertTrue(first.polygons.get(0).getTextureVertexIndices().isEmpty());
+
+        first.polygons.clear();
+        Assertions.assertEquals(0, first.getMeshData().getPolygonCount());
+        Assertions.assertEquals(2, first.getMeshData().getVertexCount());
+    }
+
+    @Test
+    void writersFillGrownMesh() {
+        Model model = new Model();
+        model.addVertex(1, 2, 3);
+        model.addPolygon(0, 0, 0);
+        MeshData meshData = model.getMeshData();
+        final long modificationCount = meshData.getModificationCount();
+
+        meshData.grow(3, 1, 1, 2, 6, 3, 0);
+        Assertions.assertNotEquals(modificationCount, meshData.getModificationCount());
+        // Вторая часть пишется раньше первой
+        MeshBuilder second = meshData.writer(3, 1, 1, 2, 6, 3, 0);
+        second.addVertex(7, 8, 9);
+        second.addPolygonVertexIndex(3);
+        second.addPolygonVertexIndex(2);
+        second.addPolygonVertexIndex(1);
+        second.endPolygon();
+        MeshBuilder first = meshData.writer(1, 0, 0, 1, 3, 0, 0);
+        first.addVertex(4, 5, 6);
+        first.addTextureVertex(0.5f, 0.25f);
+        first.addNormal(0, 0, 1);
+        first.addPolygonVertexIndex(0);
+        first.addPolygonVertexIndex(1);
+        first.addPolygonVertexIndex(2);
+        first.addPolygonTextureVertexIndex(0);
+        first.addPolygonTextureVertexIndex(0);
+        first.addPolygonTextureVertexIndex(0);
+        first.endPolygon();
+        first.addVertex(-1, -2, -3);
+
+        Assertions.assertEquals(4, model.vertices.size());
+        Assertions.assertEquals(4, model.vertices.get(1).x);
+        Assertions.assertEquals(-3, model.vertices.get(2).z);
+        Assertions.assertEquals(9, model.vertices.get(3).z);
+        Assertions.assertEquals(0.25f, model.textureVertices.get(0).y);
+        Assertions.assertEquals(1, model.normals.get(0).z);
+        Assertions.assertEquals(3, model.polygons.size());
+        Assertions.assertEquals(Arrays.asList(0, 0, 0), model.polygons.get(0).getVertexIndices());
+        Assertions.assertEquals(Arrays.asList(0, 1, 2), model.polygons.get(1).getVertexIndices());
+        Assertions.assertEquals(Arrays.asList(0, 0, 0), model.polygons.get(1).getTextureVertexIndices());
+        Assertions.assertEquals(Arrays.asList(3, 2, 1), model.polygons.get(2).getVertexIndices());
+        Assertions.assertTrue(model.polygons.get(2).getTextureVertexIndices().isEmpty());
+    }
+
+    @Test
+    void boundsFollowVertexChanges() {
+        MeshData meshData = new MeshData();
+        float[] bounds = new float[6];
+        Assertions.assertFalse(meshData.getBounds(bounds));
+
+        meshData.addVertex(1, -2, 3);
+        meshData.addVertex(-4, 5, 0);
+        Assertions.assertTrue(meshData.getBounds(bounds));
+        Assertions.assertArrayEquals(new float[]{-4, -2, 0, 1, 5, 3}, bounds);
+
+        meshData.setVertex(0, 10, -2, 3);
+        meshData.getBounds(bounds);
+        Assertions.assertArrayEquals(new float[]{-4, -2, 0, 10, 5, 3}, bounds);
+    }
+
+    @Test
+    void mappedColumnsKeepDataWhenGrown(@TempDir Path directory) throws IOException {
+        MeshData meshData = new MeshData(MeshStorage.mapped(directory));
+        // Несколько раз больше наименьшего отображаемого буфера, так что файл каждого массива отображается заново
+        final int count = 1 << 20;
+        for (int i = 0; i < count; i++) {
+            meshData.addVertex(i, -i, 0.5f * i);
+            meshData.addPolygonVertexIndex(i);
+            meshData.endPolygon();
+        }
+
+        for (int i = 0; i < count; i += 4099) {
+            Assertions.assertEquals(i, meshData.getVertexX(i));
+            Assertions.assertEquals(-i, meshData.getVertexY(i));
+            Assertions.assertEquals(0.5f * i, meshData.getVertexZ(i));
+            Assertions.assertEquals(i, meshData.getPolygonVertexIndex(i, 0));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            // Там, где открытый файл можно удалить, временных файлов не остаётся
+            if (!System.getProperty("os.name").startsWith("Windows")) {
+                Assertions.assertEquals(0, files.count());
+            }
+        }
+    }
+
+    @Test
+    void transformIsTheSameOnAndOffHeap() {
+        // Перенос на (1, 2, 3) и масштаб 2 по x; для нормалей масштаб 1/2 по x
+        Matrix4f vertexMatrix = new Matrix4f(new float[]{2, 0, 0, 1, 0, 1, 0, 2, 0, 0, 1, 3, 0, 0, 0, 1});
+        Matrix4f normalMatrix = new Matrix4f(new float[]{0.5f, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1});
+        for (MeshStorage storage : new MeshStorage[]{MeshStorage.heap(), MeshStorage.direct()}) {
+            MeshData meshData = new MeshData(storage);
+            meshData.addVertex(1, 1, 1);
+            meshData.addVertex(-1, 0, 2);
+            meshData.addNormal(1, 0, 1);
+            meshData.transform(vertexMatrix, normalMatrix);
+
+            Assertions.assertArrayEquals(new float[]{3, 3, 4},
+                    new float[]{meshData.getVertexX(0), meshData.getVertexY(0), meshData.getVertexZ(0)});
+            Assertions.assertArrayEquals(new float[]{-1, 2, 5},
+                    new float[]{meshData.getVertexX(1), meshData.getVertexY(1), meshData.getVertexZ(1)});
+            Assertions.assertArrayEquals(new float[]{0.5f, 0, 1},
+                    new float[]{meshData.getNormalX(0), meshData.getNormalY(0), meshData.getNormalZ(0)});
+
+            float[] clip = new float[8];
+            meshData.transformVertices(vertexMatrix, 1, 2, clip);
+            Assertions.assertArrayEquals(new float[]{0, 0, 0, 0, -1, 4, 8, 1}, clip);
+        }
+    }
+
+    @Test
+    void edgesAreUniqueAndKnowTheirPolygons() {
+        Model model = new Model();
+        model.addPolygon(0, 1, 2, 3);
+        model.addPolygon(2, 1, 4);
+        model.addPolygon(3, 3, 2);
+        MeshData meshData = model.getMeshData();
+
+        EdgeList edges = meshData.getEdges();
+        Assertions.assertSame(edges, meshData.getEdges());
+        int[][] expected = {{0, 1}, {0, 3}, {1, 2}, {1, 4}, {2, 3}, {2, 4}};
+        Assertions.assertEquals(expected.length, edges.size());
+        for (int i = 0; i < expected.length; i++) {
+            Assertions.assertEquals(expected[i][0], edges.getStartVertexIndex(i));
+            Assertions.assertEquals(expected[i][1], edges.getEndVertexIndex(i));
+        }
+        // Ребро 1-2 общее у первых двух полигонов, ребро 2-3 - у первого и третьего
+        Assertions.assertEquals(2, edges.getPolygonCount(2));
+        Assertions.assertEquals(0, edges.getPolygonIndex(2, 0));
+        Assertions.assertEquals(1, edges.getPolygonIndex(2, 1));
+        Assertions.assertEquals(2, edges.getPolygonIndex(4, 1));
+
+        model.addPolygon(4, 5, 0);
+        Assertions.assertEquals(expected.length + 3, meshData.getEdges().size());
+    }
+}
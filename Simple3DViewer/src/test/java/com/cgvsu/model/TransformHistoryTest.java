@@ -0,0 +1,40 @@
+package com.cgvsu.model;
+
+import io.github.annusshka.Math.Matrix.Matrix4f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TransformHistoryTest {
+
+    @Test
+    void undoAndRedoRestoreTransforms() {
+        ModelTransform transform = new ModelTransform();
+        TransformHistory history = new TransformHistory(3);
+        Assertions.assertFalse(history.undo(transform));
+
+        for (int i = 1; i <= 5; i++) {
+            history.record(transform);
+            transform.translate(1, 0, 0);
+        }
+        Assertions.assertEquals(5, transform.getTranslationX());
+
+        // Помнятся только три последних шага
+        Assertions.assertTrue(history.undo(transform));
+        Assertions.assertTrue(history.undo(transform));
+        Assertions.assertTrue(history.undo(transform));
+        Assertions.assertFalse(history.undo(transform));
+        Assertions.assertEquals(2, transform.getTranslationX());
+
+        Assertions.assertTrue(history.redo(transform));
+        Assertions.assertEquals(3, transform.getTranslationX());
+
+        history.record(transform);
+        transform.rotate(0, 90, 0);
+        Assertions.assertFalse(history.canRedo());
+        Assertions.assertTrue(history.undo(transform));
+        ModelTransform expected = new ModelTransform();
+        expected.setTranslation(3, 0, 0);
+        Assertions.assertArrayEquals(expected.getModelMatrix(new Matrix4f()).getVector(),
+                transform.getModelMatrix(new Matrix4f()).getVector());
+    }
+}
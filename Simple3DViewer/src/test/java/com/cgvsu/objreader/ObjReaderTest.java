@@ -0,0 +1,421 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.MeshData;
+import com.cgvsu.model.MeshStorage;
+import com.cgvsu.model.Model;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+class ObjReaderTest {
+    static final String CUBE_CONTENT = """
+            # cube
+            v 0 0 0
+            v 0 0 1
+            v 1 0 1
+            v 1 0 0
+            vt 0.25 0.5
+            vt 0.75 0.5
+            vt 0.75 1
+            vn 0 -1 0
+            f 1/1/1 2/2/1 3/3/1
+            f 1/1/1 3/3/1 4/2/1
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    static void assertModelsEqual(Model expected, Model actual) {
+        Assertions.assertEquals(expected.vertices.size(), actual.vertices.size());
+        for (int i = 0; i < expected.vertices.size(); i++) {
+            Assertions.assertTrue(expected.vertices.get(i).equals(actual.vertices.get(i)));
+        }
+        Assertions.assertEquals(expected.textureVertices.size(), actual.textureVertices.size());
+        for (int i = 0; i < expected.textureVertices.size(); i++) {
+            Assertions.assertEquals(expected.textureVertices.get(i).x, actual.textureVertices.get(i).x);
+            Assertions.assertEquals(expected.textureVertices.get(i).y, actual.textureVertices.get(i).y);
+        }
+        Assertions.assertEquals(expected.normals.size(), actual.normals.size());
+        for (int i = 0; i < expected.normals.size(); i++) {
+            Assertions.assertTrue(expected.normals.get(i).equals(actual.normals.get(i)));
+        }
+        Assertions.assertEquals(expected.polygons.size(), actual.polygons.size());
+        for (int i = 0; i < expected.polygons.size(); i++) {
+            Assertions.assertEquals(expected.polygons.get(i).getVertexIndices(), actual.polygons.get(i).getVertexIndices());
+            Assertions.assertEquals(expected.polygons.get(i).getTextureVertexIndices(), actual.polygons.get(i).getTextureVertexIndices());
+            Assertions.assertEquals(expected.polygons.get(i).getNormalIndices(), actual.polygons.get(i).getNormalIndices());
+        }
+    }
+
+    @Test
+    void readPathMatchesReadString() throws IOException {
+        Path file = tempDir.resolve("cube.obj");
+        Files.writeString(file, CUBE_CONTENT);
+
+        assertModelsEqual(ObjReader.read(CUBE_CONTENT), ObjReader.read(file));
+    }
+
+    @Test
+    void readPathWithWindowsLineEndings() throws IOException {
+        Path file = tempDir.resolve("cube_crlf.obj");
+        Files.writeString(file, CUBE_CONTENT.replace("\n", "\r\n"));
+
+        Model result = ObjReader.read(file);
+        assertModelsEqual(ObjReader.read(CUBE_CONTENT), result);
+        Assertions.assertEquals(0.75f, result.textureVertices.get(2).x);
+    }
+
+    @Test
+    void readPathReportsLineNumber() throws IOException {
+        Path file = tempDir.resolve("broken.obj");
+        Files.writeString(file, "v 1 2 3\nv 1 2 3\nv 1 x 3\n");
+
+        ObjReaderException exception = Assertions.assertThrows(ObjReaderException.class, () -> ObjReader.read(file));
+        Assertions.assertEquals("Error parsing OBJ file on line: 3. Failed to parse float value.", exception.getMessage());
+    }
+
+    @Test
+    void tokenizerParsesFloatsLikeParseFloat() {
+        Random random = new Random(42);
+        StringBuilder content = new StringBuilder();
+        ArrayList<String> words = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            String word = switch (i % 6) {
+                case 0 -> Float.toString(random.nextFloat() * 200 - 100);
+                case 1 -> String.format(Locale.ROOT, "%.6f", random.nextGaussian() * 1000);
+                case 2 -> String.format(Locale.ROOT, "%.4e", random.nextDouble() * 1e-12);
+                case 3 -> Integer.toString(random.nextInt());
+                case 4 -> Float.toString(Float.intBitsToFloat(random.nextInt()));
+                default -> "-0." + (1 + random.nextInt(999_999_999)) + "12345678901";
+            };
+            words.add(word);
+        }
+        for (int i = 0; i < words.size(); i += 3) {
+            content.append("v ").append(words.get(i)).append(' ')
+                    .append(words.get(i + 1)).append('\t').append(words.get(i + 2)).append('\n');
+        }
+
+        Model result = ObjReader.read(content.toString());
+        for (int i = 0; i < words.size(); i += 3) {
+            Assertions.assertEquals(Float.parseFloat(words.get(i)), result.vertices.get(i / 3).x, words.get(i));
+            Assertions.assertEquals(Float.parseFloat(words.get(i + 1)), result.vertices.get(i / 3).y, words.get(i + 1));
+            Assertions.assertEquals(Float.parseFloat(words.get(i + 2)), result.vertices.get(i / 3).z, words.get(i + 2));
+        }
+    }
+
+    @Test
+    void tokenizerParsesFaceWordsLikeSplit() {
+        String[] words = {"7", "7/3", "7/3/2", "7//2", "7/", "7//", "7/3/", "7/3/2/", "-4/+5/6"};
+        for (String word : words) {
+            ArrayList<Integer> vertexIndices = new ArrayList<>();
+            ArrayList<Integer> textureVertexIndices = new ArrayList<>();
+            ArrayList<Integer> normalIndices = new ArrayList<>();
+            splitFaceWord(word, vertexIndices, textureVertexIndices, normalIndices);
+
+            ObjTokenizer tokenizer = new ObjTokenizer(ByteBuffer.wrap(word.getBytes(StandardCharsets.UTF_8)), 0);
+            tokenizer.nextLine();
+            tokenizer.readFace();
+            Assertions.assertEquals(vertexIndices.size(), tokenizer.getFaceVertexCount(), word);
+            Assertions.assertEquals(vertexIndices.get(0), tokenizer.getFaceVertexIndex(0), word);
+            Assertions.assertEquals(textureVertexIndices.size(), tokenizer.getFaceTextureVertexCount(), word);
+            if (!textureVertexIndices.isEmpty()) {
+                Assertions.assertEquals(textureVertexIndices.get(0), tokenizer.getFaceTextureVertexIndex(0), word);
+            }
+            Assertions.assertEquals(normalIndices.size(), tokenizer.getFaceNormalCount(), word);
+            if (!normalIndices.isEmpty()) {
+                Assertions.assertEquals(normalIndices.get(0), tokenizer.getFaceNormalIndex(0), word);
+            }
+        }
+    }
+
+    // Прежний разбор слова грани через split, по нему проверяется токенизатор
+    private static void splitFaceWord(
+            String word,
+            List<Integer> vertexIndices,
+            List<Integer> textureVertexIndices,
+            List<Integer> normalIndices) {
+        String[] wordIndices = word.split("/");
+        vertexIndices.add(Integer.parseInt(wordIndices[0]) - 1);
+        if (wordIndices.length > 1 && !wordIndices[1].equals("")) {
+            textureVertexIndices.add(Integer.parseInt(wordIndices[1]) - 1);
+        }
+        if (wordIndices.length > 2) {
+            normalIndices.add(Integer.parseInt(wordIndices[2]) - 1);
+        }
+    }
+
+    @Test
+    void tokenizerReportsErrors() {
+        ObjReaderException exception = Assertions.assertThrows(ObjReaderException.class,
+                () -> ObjReader.read("v 1 2 3\n\nv 1 2\n"));
+        Assertions.assertEquals("Error parsing OBJ file on line: 3. Too few vertex arguments.", exception.getMessage());
+
+        exception = Assertions.assertThrows(ObjReaderException.class, () -> ObjReader.read("vt 1 0.5.5\n"));
+        Assertions.assertEquals("Error parsing OBJ file on line: 1. Failed to parse float value.", exception.getMessage());
+
+        exception = Assertions.assertThrows(ObjReaderException.class, () -> ObjReader.read("# faces\nf 1/2/3/4 2 3\n"));
+        Assertions.assertEquals("Error parsing OBJ file on line: 2. Invalid element size.", exception.getMessage());
+
+        exception = Assertions.assertThrows(ObjReaderException.class, () -> ObjReader.read("f 1 2a 3\n"));
+        Assertions.assertEquals("Error parsing OBJ file on line: 1. Failed to parse int value.", exception.getMessage());
+
+        exception = Assertions.assertThrows(ObjReaderException.class, () -> ObjReader.read("f 1 99999999999 3\n"));
+        Assertions.assertEquals("Error parsing OBJ file on line: 1. Failed to parse int value.", exception.getMessage());
+    }
+
+    @Test
+    void readParallelMatchesRead() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            content.append(CUBE_CONTENT.replace("f 1/1/1", "f " + (4 * i + 1) + "/1/1"));
+        }
+        final byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+
+        Model expected = ObjReader.read(content.toString());
+        assertModelsEqual(expected, ObjReader.readParallel(
+                List.of(ByteBuffer.wrap(bytes)), 97, new ReadProgress(null, bytes.length), MeshStorage.heap()));
+        assertModelsEqual(expected, ObjReader.readParallel(content.toString()));
+
+        Path file = tempDir.resolve("cubes.obj");
+        Files.write(file, bytes);
+        assertModelsEqual(expected, ObjReader.readParallel(file));
+
+        // Грани разного вида и пустые куски без элементов
+        StringBuilder mixed = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            mixed.append("v ").append(i).append(" 1 2\nvt 0.5 ").append(i).append('\n');
+            if (i % 3 == 0) {
+                mixed.append("vn 0 0 1\n# ").append("comment ".repeat(20)).append('\n');
+            }
+            mixed.append(switch (i % 4) {
+                case 0 -> "f 1 2 3\n";
+                case 1 -> "f 1/1 2/2 3/3 4/4\n";
+                case 2 -> "f 1//1 2//1 3//1\n";
+                default -> "f 1/2/1 2/3/1 3/4/1\n";
+            });
+        }
+        final byte[] mixedBytes = mixed.toString().getBytes(StandardCharsets.UTF_8);
+        assertModelsEqual(ObjReader.read(mixed.toString()), ObjReader.readParallel(
+                List.of(ByteBuffer.wrap(mixedBytes)), 50, new ReadProgress(null, mixedBytes.length), MeshStorage.direct()));
+    }
+
+    @Test
+    void readParallelReportsFirstErrorLine() {
+        Assertions.assertEquals("Error parsing OBJ file on line: 357. Too few normal arguments.",
+                readParallelWithErrors(357, "vn 1 0", 901, "vn 1 0").getMessage());
+        // Ошибки в гранях находятся уже при подсчёте элементов, а в координатах - только при разборе
+        Assertions.assertEquals("Error parsing OBJ file on line: 357. Too few normal arguments.",
+                readParallelWithErrors(357, "vn 1 0", 901, "f 1 2a 3").getMessage());
+        Assertions.assertEquals("Error parsing OBJ file on line: 200. Failed to parse int value.",
+                readParallelWithErrors(200, "f 1 2a 3", 700, "vn 1 0").getMessage());
+    }
+
+    private static ObjReaderException readParallelWithErrors(
+            int firstLine, String first, int secondLine, String second) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 1000; i++) {
+            content.append(i == firstLine ? first : i == secondLine ? second : "vn 1 0 0").append('\n');
+        }
+        final byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        return Assertions.assertThrows(ObjReaderException.class,
+                () -> ObjReader.readParallel(
+                        List.of(ByteBuffer.wrap(bytes)), 64, new ReadProgress(null, bytes.length), MeshStorage.heap()));
+    }
+
+    @Test
+    void readReportsProgressAndCanBeCancelled() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            content.append("v ").append(i).append(" 0 0\n");
+        }
+        Path file = tempDir.resolve("progress.obj");
+        Files.writeString(file, content);
+
+        final long fileSize = Files.size(file);
+        AtomicLong lastBytes = new AtomicLong();
+        AtomicLong lastLines = new AtomicLong();
+        ObjReaderListener listener = (bytesConsumed, bytesTotal, linesParsed) -> {
+            Assertions.assertEquals(fileSize, bytesTotal);
+            lastBytes.accumulateAndGet(bytesConsumed, Math::max);
+            lastLines.accumulateAndGet(linesParsed, Math::max);
+        };
+        ObjReader.parseFileParallel(file, listener, MeshStorage.heap());
+        Assertions.assertEquals(fileSize, lastBytes.get());
+        Assertions.assertEquals(100_000, lastLines.get());
+
+        ObjReaderListener cancellingListener = new ObjReaderListener() {
+            @Override
+            public void onProgress(long bytesConsumed, long bytesTotal, long linesParsed) {
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        };
+        Assertions.assertThrows(CancellationException.class, () -> ObjReader.parseFile(file, cancellingListener, MeshStorage.heap()));
+    }
+
+    @Test
+    void modelCacheRoundTrip() throws IOException {
+        Path file = tempDir.resolve("cached.obj");
+        Files.writeString(file, CUBE_CONTENT);
+        ModelCache cache = new ModelCache(tempDir.resolve("cache"));
+        Assertions.assertNull(cache.load(file));
+
+        Model model = ObjReader.read(CUBE_CONTENT);
+        cache.store(file, Files.size(file), Files.getLastModifiedTime(file).toMillis(), model);
+        assertModelsEqual(model, cache.load(file));
+
+        Files.writeString(file, CUBE_CONTENT + "v 5 5 5\n");
+        Assertions.assertNull(cache.load(file));
+    }
+
+    @Test
+    void corruptedCacheIsIgnored() throws IOException {
+        Path file = tempDir.resolve("corrupted.obj");
+        Files.writeString(file, CUBE_CONTENT);
+        ModelCache cache = new ModelCache(tempDir.resolve("cache"));
+        Model model = ObjReader.read(CUBE_CONTENT);
+        MeshData meshData = model.getMeshData();
+        // Заголовок: MAGIC, VERSION, размер и время изменения OBJ, затем семь размеров
+        final int vertexCountPosition = 4 + 4 + 8 + 8;
+        final int firstVertexIndexPosition = vertexCountPosition + 4 * 7 + 4 * (3 * meshData.getVertexCount()
+                + 2 * meshData.getTextureVertexCount() + 3 * meshData.getNormalCount() + meshData.getPolygonCount() + 1);
+
+        for (int[] patch : new int[][]{
+                {vertexCountPosition, Integer.MAX_VALUE},
+                {vertexCountPosition, -1},
+                {vertexCountPosition + 4 * 3, Integer.MAX_VALUE / 3},
+                {firstVertexIndexPosition, meshData.getVertexCount()},
+                {firstVertexIndexPosition, -1}}) {
+            cache.store(file, Files.size(file), Files.getLastModifiedTime(file).toMillis(), model);
+            try (FileChannel channel = FileChannel.open(cache.getCacheFile(file), StandardOpenOption.WRITE)) {
+                ByteBuffer value = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, patch[1]);
+                channel.write(value, patch[0]);
+            }
+            Assertions.assertNull(cache.load(file));
+            assertModelsEqual(model, ObjReader.read(file, null, MeshStorage.heap(), cache));
+        }
+    }
+
+    @Test
+    void cacheEvictsLeastRecentlyUsedSnapshots() throws IOException {
+        Model model = ObjReader.read(CUBE_CONTENT);
+        Path[] files = new Path[3];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = tempDir.resolve("evicted" + i + ".obj");
+            Files.writeString(files[i], CUBE_CONTENT);
+        }
+        ModelCache unlimited = new ModelCache(tempDir.resolve("cache"));
+        unlimited.store(files[0], Files.size(files[0]), Files.getLastModifiedTime(files[0]).toMillis(), model);
+        final long snapshotSize = Files.size(unlimited.getCacheFile(files[0]));
+
+        // Помещаются два снимка. Первый открыт позже второго, поэтому при записи третьего удаляется второй
+        ModelCache cache = new ModelCache(tempDir.resolve("cache"), 2 * snapshotSize);
+        cache.store(files[1], Files.size(files[1]), Files.getLastModifiedTime(files[1]).toMillis(), model);
+        Files.setLastModifiedTime(cache.getCacheFile(files[0]), FileTime.fromMillis(2_000_000));
+        Files.setLastModifiedTime(cache.getCacheFile(files[1]), FileTime.fromMillis(1_000_000));
+        Assertions.assertNotNull(cache.load(files[0]));
+        cache.store(files[2], Files.size(files[2]), Files.getLastModifiedTime(files[2]).toMillis(), model);
+
+        Assertions.assertTrue(Files.isRegularFile(cache.getCacheFile(files[0])));
+        Assertions.assertFalse(Files.exists(cache.getCacheFile(files[1])));
+        Assertions.assertTrue(Files.isRegularFile(cache.getCacheFile(files[2])));
+
+        // Снимок больше предела всё равно хранится, пока не записан следующий
+        ModelCache tiny = new ModelCache(tempDir.resolve("cache"), 0);
+        tiny.store(files[1], Files.size(files[1]), Files.getLastModifiedTime(files[1]).toMillis(), model);
+        Assertions.assertTrue(Files.isRegularFile(tiny.getCacheFile(files[1])));
+        Assertions.assertFalse(Files.exists(tiny.getCacheFile(files[0])));
+        Assertions.assertFalse(Files.exists(tiny.getCacheFile(files[2])));
+    }
+
+    @Test
+    void readUsesFreshCache() throws IOException {
+        Path file = tempDir.resolve("reopened.obj");
+        Files.writeString(file, CUBE_CONTENT);
+        ModelCache cache = new ModelCache(tempDir.resolve("cache"));
+
+        // Без явно переданного кэша снимок не пишется
+        Model parsed = ObjReader.read(file);
+        Assertions.assertFalse(Files.exists(cache.getCacheFile(file)));
+        Assertions.assertFalse(Files.exists(ModelCache.getDefault().getCacheFile(file)));
+
+        assertModelsEqual(parsed, ObjReader.read(file, null, MeshStorage.heap(), cache));
+        Assertions.assertTrue(Files.isRegularFile(cache.getCacheFile(file)));
+        assertModelsEqual(parsed, ObjReader.readParallel(file, null, MeshStorage.heap(), cache));
+    }
+
+    @Test
+    void cacheHitReportsProgressAndCanBeCancelled() throws IOException {
+        Path file = tempDir.resolve("hit.obj");
+        Files.writeString(file, CUBE_CONTENT);
+        ModelCache cache = new ModelCache(tempDir.resolve("cache"));
+        cache.store(file, Files.size(file), Files.getLastModifiedTime(file).toMillis(), ObjReader.read(CUBE_CONTENT));
+
+        final long fileSize = Files.size(file);
+        List<Long> reported = new ArrayList<>();
+        ObjReaderListener listener = (bytesConsumed, bytesTotal, linesParsed) -> {
+            Assertions.assertEquals(fileSize, bytesTotal);
+            reported.add(bytesConsumed);
+        };
+        Assertions.assertNotNull(ObjReader.readParallel(file, listener, MeshStorage.heap(), cache));
+        Assertions.assertEquals(0, reported.get(0));
+        Assertions.assertEquals(fileSize, reported.get(reported.size() - 1));
+
+        ObjReaderListener cancellingListener = new ObjReaderListener() {
+            @Override
+            public void onProgress(long bytesConsumed, long bytesTotal, long linesParsed) {
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        };
+        Assertions.assertThrows(CancellationException.class,
+                () -> ObjReader.read(file, cancellingListener, MeshStorage.heap(), cache));
+    }
+
+    @Test
+    void readIntoOffHeapStorage() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            content.append("v ").append(i).append(" 0.5 ").append(-i).append('\n');
+            content.append("vt 0.25 ").append(i).append('\n');
+            content.append("vn 0 1 ").append(i).append('\n');
+        }
+        for (int i = 1; i + 2 <= 100_000; i += 3) {
+            content.append("f ").append(i).append('/').append(i).append('/').append(i).append(' ')
+                    .append(i + 1).append('/').append(i + 1).append('/').append(i + 1).append(' ')
+                    .append(i + 2).append('/').append(i + 2).append('/').append(i + 2).append('\n');
+        }
+        Path file = tempDir.resolve("offheap.obj");
+        Files.writeString(file, content);
+        Model expected = ObjReader.read(content.toString());
+
+        assertModelsEqual(expected, ObjReader.parseFile(file, null, MeshStorage.direct()));
+        assertModelsEqual(expected, ObjReader.parseFileParallel(file, null, MeshStorage.mapped(tempDir.resolve("mesh"))));
+
+        ModelCache cache = new ModelCache(tempDir.resolve("cache"));
+        cache.store(file, Files.size(file), Files.getLastModifiedTime(file).toMillis(), expected);
+        assertModelsEqual(expected, cache.load(file, MeshStorage.mapped(tempDir.resolve("mesh"))));
+    }
+}
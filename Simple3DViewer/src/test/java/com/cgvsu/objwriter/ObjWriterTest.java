@@ -0,0 +1,135 @@
+package com.cgvsu.objwriter;
+
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+class ObjWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    static final float[] SPECIAL_VALUES = {
+            0, -0.0f, 1, -1, 0.03125f, -0.03125f, 0.00005f, -0.00001f, 0.99995f, 123456.78f,
+            1e10f, -9.99999e10f, 1e12f, Float.MAX_VALUE, Float.MIN_VALUE, Float.NaN, Float.NEGATIVE_INFINITY};
+
+    static Model createModel(final int vertexCount) {
+        Random random = new Random(7);
+        Model model = new Model();
+        for (float value : SPECIAL_VALUES) {
+            model.vertices.add(new Vector3f(value, -value, value / 3));
+        }
+        for (int i = 0; i < vertexCount; i++) {
+            model.vertices.add(new Vector3f(
+                    (float) random.nextGaussian() * 100, random.nextFloat(), Float.intBitsToFloat(random.nextInt())));
+            model.textureVertices.add(new Vector2f(random.nextFloat(), -random.nextFloat()));
+            model.normals.add(new Vector3f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, 1e-6f * i));
+        }
+        for (int i = 0; i + 2 < vertexCount; i += 3) {
+            Polygon polygon = new Polygon();
+            polygon.setVertexIndices(new ArrayList<>(Arrays.asList(i, i + 1, i + 2)));
+            if (i % 2 == 0) {
+                polygon.setTextureVertexIndices(new ArrayList<>(Arrays.asList(i + 2, i, i + 1)));
+            }
+            if (i % 3 == 0) {
+                polygon.setNormalIndices(new ArrayList<>(Arrays.asList(i, i, i)));
+            }
+            model.polygons.add(polygon);
+        }
+        return model;
+    }
+
+    // Прежняя реализация записи через String.format, с ней сравнивается потоковая
+    static String formatLikeStringFormat(final Model model) {
+        StringBuilder str = new StringBuilder();
+        for (Vector3f v : model.vertices) {
+            str.append("v  ").append(format(v.x)).append(' ').append(format(v.y)).append(' ')
+                    .append(format(v.z)).append('\n');
+        }
+        str.append("# ").append(model.vertices.size()).append(" vertices\n\n");
+        for (Vector2f vt : model.textureVertices) {
+            str.append("vt ").append(format(vt.x)).append(' ').append(format(vt.y)).append(" 0.0000\n");
+        }
+        str.append("# ").append(model.textureVertices.size()).append(" texture coords\n\n");
+        for (Vector3f vn : model.normals) {
+            str.append("vn  ").append(format(vn.x)).append(' ').append(format(vn.y)).append(' ')
+                    .append(format(vn.z)).append('\n');
+        }
+        str.append("# ").append(model.normals.size()).append(" normals\n\n");
+        for (Polygon pol : model.polygons) {
+            str.append("f ");
+            for (int j = 0; j < pol.getVertexIndices().size(); j++) {
+                str.append(pol.getVertexIndices().get(j) + 1);
+                if (!pol.getTextureVertexIndices().isEmpty()) {
+                    str.append('/').append(pol.getTextureVertexIndices().get(j) + 1);
+                }
+                if (!pol.getNormalIndices().isEmpty()) {
+                    str.append(pol.getTextureVertexIndices().isEmpty() ? "//" : "/")
+                            .append(pol.getNormalIndices().get(j) + 1);
+                }
+                str.append(' ');
+            }
+            str.append('\n');
+        }
+        str.append("# ").append(model.polygons.size()).append(" polygons\n\n");
+        return str.toString();
+    }
+
+    static String format(final float value) {
+        return String.format("%.4f", value).replace(',', '.');
+    }
+
+    @Test
+    void writeToFileMatchesStringFormat() throws IOException {
+        Model model = createModel(30_000);
+        Path file = tempDir.resolve("model.obj");
+        ObjWriter.writeToFile(model, file.toFile());
+
+        Assertions.assertEquals(formatLikeStringFormat(model), Files.readString(file, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void writeFixed4MatchesStringFormat() throws IOException {
+        Random random = new Random(11);
+        ObjEncoder encoder = new ObjEncoder(16);
+        for (int i = 0; i < 200_000; i++) {
+            final float value = i % 2 == 0
+                    ? Float.intBitsToFloat(random.nextInt())
+                    : (random.nextInt(2_000_000) - 1_000_000) / 32768.0f;
+            encoder.writeFixed4(value);
+            Assertions.assertEquals(format(value),
+                    StandardCharsets.US_ASCII.decode(encoder.toByteBuffer()).toString(), Float.toString(value));
+            encoder = new ObjEncoder(16);
+        }
+    }
+
+    @Test
+    void writeToFileParallelIsByteIdentical() throws IOException {
+        Model model = createModel(10_000);
+        Path sequentialFile = tempDir.resolve("sequential.obj");
+        Path parallelFile = tempDir.resolve("parallel.obj");
+        ObjWriter.writeToFile(model, sequentialFile.toFile());
+
+        ObjWriter.writeToFileParallel(model, parallelFile.toFile(), 333);
+        Assertions.assertArrayEquals(Files.readAllBytes(sequentialFile), Files.readAllBytes(parallelFile));
+
+        ObjWriter.writeToFileParallel(model, parallelFile.toFile());
+        Assertions.assertArrayEquals(Files.readAllBytes(sequentialFile), Files.readAllBytes(parallelFile));
+
+        ObjWriter.writeToFileParallel(new Model(), parallelFile.toFile(), 333);
+        ObjWriter.writeToFile(new Model(), sequentialFile.toFile());
+        Assertions.assertArrayEquals(Files.readAllBytes(sequentialFile), Files.readAllBytes(parallelFile));
+    }
+}
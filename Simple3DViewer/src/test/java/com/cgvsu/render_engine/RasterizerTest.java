@@ -0,0 +1,70 @@
+package com.cgvsu.render_engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RasterizerTest {
+
+    static final int WHITE = 0xFFFFFFFF;
+    static final int RED = 0xFFFF0000;
+    static final int BLUE = 0xFF0000FF;
+
+    static int countPixels(final Rasterizer rasterizer, final int color) {
+        int result = 0;
+        for (int i = 0; i < rasterizer.getWidth() * rasterizer.getHeight(); i++) {
+            if (rasterizer.getColorBuffer()[i] == color) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    void fillTriangleCoversPixelCentersInAnyWinding() {
+        Rasterizer rasterizer = new Rasterizer();
+        rasterizer.resize(20, 10);
+        rasterizer.clear(WHITE);
+        rasterizer.fillTriangle(0, 0, 0, 10, 0, 0, 0, 10, 0, RED);
+        // Центры пикселей (x + 0.5, y + 0.5) с x + y + 1 <= 10
+        Assertions.assertEquals(55, countPixels(rasterizer, RED));
+
+        rasterizer.clear(WHITE);
+        rasterizer.fillTriangle(0, 0, 0, 0, 10, 0, 10, 0, 0, RED);
+        Assertions.assertEquals(55, countPixels(rasterizer, RED));
+        Assertions.assertEquals(RED, rasterizer.getColorBuffer()[9 * 20]);
+        Assertions.assertEquals(WHITE, rasterizer.getColorBuffer()[9 * 20 + 1]);
+    }
+
+    @Test
+    void fillTriangleKeepsNearestDepth() {
+        Rasterizer rasterizer = new Rasterizer();
+        rasterizer.resize(16, 16);
+        rasterizer.clear(WHITE);
+        rasterizer.fillTriangle(0, 0, 0.5f, 16, 0, 0.5f, 0, 16, 0.5f, RED);
+        rasterizer.fillTriangle(0, 0, 0.7f, 16, 0, 0.7f, 0, 16, 0.7f, BLUE);
+        rasterizer.fillTriangle(0, 0, 0.2f, 8, 0, 0.2f, 0, 8, 0.2f, BLUE);
+
+        Assertions.assertEquals(BLUE, rasterizer.getColorBuffer()[0]);
+        Assertions.assertEquals(0.2f, rasterizer.getDepthBuffer()[0], 1e-6f);
+        Assertions.assertEquals(RED, rasterizer.getColorBuffer()[10]);
+        Assertions.assertEquals(0.5f, rasterizer.getDepthBuffer()[10], 1e-6f);
+    }
+
+    @Test
+    void drawLineIsClippedToFrame() {
+        Rasterizer rasterizer = new Rasterizer();
+        rasterizer.resize(10, 10);
+        rasterizer.clear(WHITE);
+        rasterizer.drawLine(0, 0, 9, 9, RED);
+        Assertions.assertEquals(10, countPixels(rasterizer, RED));
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals(RED, rasterizer.getColorBuffer()[i * 10 + i]);
+        }
+
+        rasterizer.clear(WHITE);
+        rasterizer.drawLine(-1e9f, 5, 1e9f, 5, RED);
+        rasterizer.drawLine(3, -1e30f, 3, Float.NaN, BLUE);
+        Assertions.assertEquals(10, countPixels(rasterizer, RED));
+        Assertions.assertEquals(0, countPixels(rasterizer, BLUE));
+    }
+}
@@ -0,0 +1,248 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.affinetransformation.AffineTransformation;
+import com.cgvsu.model.Model;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.github.annusshka.Math.Matrix.Matrix4f;
+import io.github.annusshka.Math.Vector.Vector2f;
+import io.github.annusshka.Math.Vector.Vector3f;
+import java.util.Arrays;
+import java.util.Random;
+
+class RenderEngineTest {
+
+    @Test
+    void transformVerticesMatchesGraphicConveyor() {
+        Model model = new Model();
+        for (int i = 0; i < 50; i++) {
+            model.addVertex(i * 0.3f - 7, (i % 7) - 3, i * 0.1f);
+        }
+        Matrix4f matrix = Matrix4f.mul(GraphicConveyor.perspective(1.0f, 1.5f, 0.01f, 100),
+                GraphicConveyor.lookAt(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0)), new Matrix4f());
+
+        RenderEngine renderEngine = new RenderEngine();
+        renderEngine.transformVertices(model.getMeshData(), matrix, 800, 600);
+        for (int i = 0; i < 50; i++) {
+            Vector3f vertex = new Vector3f(model.vertices.get(i).x, model.vertices.get(i).y, model.vertices.get(i).z);
+            Vector2f expected = GraphicConveyor.vertexToPoint(GraphicConveyor.multiplyMatrix4ByVector3(matrix, vertex), 800, 600);
+            Assertions.assertEquals(expected.get(0), renderEngine.getScreenVertices()[3 * i]);
+            Assertions.assertEquals(expected.get(1), renderEngine.getScreenVertices()[3 * i + 1]);
+        }
+    }
+
+    static Model createRandomModel(final int vertexCount, final int polygonCount) {
+        Random random = new Random(5);
+        Model model = new Model();
+        for (int i = 0; i < vertexCount; i++) {
+            model.addVertex((float) random.nextGaussian() * 30, (float) random.nextGaussian() * 30,
+                    (float) random.nextGaussian() * 30);
+        }
+        for (int i = 0; i < polygonCount; i++) {
+            model.addPolygon(random.nextInt(vertexCount), random.nextInt(vertexCount), random.nextInt(vertexCount),
+                    random.nextInt(vertexCount));
+        }
+        return model;
+    }
+
+    @Test
+    void tiledRasterizationMatchesSequential() {
+        Model model = createRandomModel(3000, 2000);
+        Matrix4f matrix = Matrix4f.mul(GraphicConveyor.perspective(1.0f, 1.5f, 0.01f, 100),
+                GraphicConveyor.lookAt(new Vector3f(10, 20, 100), new Vector3f(0, 0, 0)), new Matrix4f());
+        Vector3f lightDirection = new Vector3f(0, 0, 1);
+
+        for (RenderMode renderMode : RenderMode.values()) {
+            RenderEngine sequential = new RenderEngine();
+            sequential.setTiled(false);
+            sequential.setRenderMode(renderMode);
+            sequential.transformVertices(model.getMeshData(), matrix, 301, 203);
+            sequential.rasterize(model.getMeshData(), 301, 203, lightDirection);
+
+            RenderEngine tiled = new RenderEngine();
+            tiled.setTiled(true);
+            tiled.setRenderMode(renderMode);
+            tiled.transformVertices(model.getMeshData(), matrix, 301, 203);
+            tiled.rasterize(model.getMeshData(), 301, 203, lightDirection);
+
+            Assertions.assertTrue(Arrays.stream(tiled.getRasterizer().getColorBuffer()).anyMatch(color -> color != -1));
+            Assertions.assertArrayEquals(
+                    Arrays.copyOf(sequential.getRasterizer().getColorBuffer(), 301 * 203),
+                    Arrays.copyOf(tiled.getRasterizer().getColorBuffer(), 301 * 203), renderMode.name());
+        }
+    }
+
+    static RenderEngine renderSolid(final Model model, final Vector3f cameraPosition, final Vector3f target) {
+        Matrix4f matrix = Matrix4f.mul(GraphicConveyor.perspective(1.0f, 1.0f, 0.01f, 100),
+                GraphicConveyor.lookAt(cameraPosition, target), new Matrix4f());
+        RenderEngine renderEngine = new RenderEngine();
+        renderEngine.setRenderMode(RenderMode.SOLID);
+        renderEngine.transformVertices(model.getMeshData(), matrix, 100, 100);
+        renderEngine.rasterize(model.getMeshData(), 100, 100, new Vector3f(0, 0, 1));
+        return renderEngine;
+    }
+
+    @Test
+    void backFacesAreCulled() {
+        Model front = new Model();
+        front.addVertex(-10, -10, 0);
+        front.addVertex(10, -10, 0);
+        front.addVertex(0, 10, 0);
+        front.addPolygon(0, 1, 2);
+        Model back = new Model();
+        back.addVertex(-10, -10, 0);
+        back.addVertex(10, -10, 0);
+        back.addVertex(0, 10, 0);
+        back.addPolygon(0, 2, 1);
+
+        Vector3f cameraPosition = new Vector3f(0, 0, 50);
+        Vector3f target = new Vector3f(0, 0, 0);
+        RenderEngine frontEngine = renderSolid(front, cameraPosition, target);
+        RenderEngine backEngine = renderSolid(back, cameraPosition, target);
+        Assertions.assertEquals(1, frontEngine.getDrawnPolygonCount() + backEngine.getDrawnPolygonCount());
+        // Сзади видна другая сторона
+        RenderEngine frontFromBehind = renderSolid(front, new Vector3f(0, 0, -50), target);
+        Assertions.assertEquals(backEngine.getDrawnPolygonCount(), frontFromBehind.getDrawnPolygonCount());
+    }
+
+    @Test
+    void polygonCrossingNearPlaneIsClipped() {
+        // Пол под камерой уходит за её спину
+        Model model = new Model();
+        model.addVertex(-20, -5, 40);
+        model.addVertex(-20, -5, -40);
+        model.addVertex(20, -5, -40);
+        model.addVertex(20, -5, 40);
+        model.addPolygon(0, 1, 2, 3);
+        model.addPolygon(0, 3, 2, 1);
+
+        RenderEngine renderEngine = renderSolid(model, new Vector3f(0, 0, 0), new Vector3f(0, 0, -10));
+        Assertions.assertEquals(1, renderEngine.getDrawnPolygonCount());
+        int[] colors = Arrays.copyOf(renderEngine.getRasterizer().getColorBuffer(), 100 * 100);
+        // Нижняя половина кадра закрашена, верхняя - нет
+        Assertions.assertNotEquals(-1, colors[95 * 100 + 50]);
+        Assertions.assertEquals(-1, colors[5 * 100 + 50]);
+    }
+
+    @Test
+    void verticesOutsideFrustumAreMarked() {
+        Assertions.assertEquals(0, RenderEngine.computeOutcode(0, 0, 0, 1));
+        Assertions.assertEquals(RenderEngine.OUTSIDE_LEFT | RenderEngine.OUTSIDE_TOP,
+                RenderEngine.computeOutcode(-2, 2, 0, 1));
+        Assertions.assertEquals(RenderEngine.OUTSIDE_NEAR, RenderEngine.computeOutcode(0, 0, -2, 1));
+
+        Model model = createRandomModel(100, 10);
+        Matrix4f matrix = Matrix4f.mul(GraphicConveyor.perspective(1.0f, 1.0f, 0.01f, 100),
+                GraphicConveyor.lookAt(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0)), new Matrix4f());
+        RenderEngine renderEngine = new RenderEngine();
+        Assertions.assertTrue(renderEngine.isInFrustum(model.getMeshData(), matrix));
+        Matrix4f away = Matrix4f.mul(GraphicConveyor.perspective(1.0f, 1.0f, 0.01f, 100),
+                GraphicConveyor.lookAt(new Vector3f(0, 0, 100), new Vector3f(0, 0, 200)), new Matrix4f());
+        Assertions.assertFalse(renderEngine.isInFrustum(model.getMeshData(), away));
+        Assertions.assertFalse(renderEngine.isInFrustum(new Model().getMeshData(), matrix));
+    }
+
+    @Test
+    void polygonOutsideViewportIsCulled() {
+        // x / w = 0.75: внутри |x| <= w, но за правым краем экрана, который проходит по x / w = 0.5
+        Assertions.assertEquals(RenderEngine.OUTSIDE_RIGHT, RenderEngine.computeOutcode(0.75f, 0, 0, 1));
+        Assertions.assertEquals(0, RenderEngine.computeOutcode(0.5f, -0.5f, 0, 1));
+
+        Vector3f cameraPosition = new Vector3f(0, 0, 50);
+        Vector3f target = new Vector3f(0, 0, 0);
+        Matrix4f matrix = Matrix4f.mul(GraphicConveyor.perspective(1.0f, 1.0f, 0.01f, 100),
+                GraphicConveyor.lookAt(cameraPosition, target), new Matrix4f());
+        // Треугольник в плоскости z = 0 с x / w от 0.6 до 0.9: у всех его вершин одинаковое w
+        float ndcPerUnit = GraphicConveyor.multiplyMatrix4ByVector3(matrix, new Vector3f(1, 0, 0)).get(0);
+        Model model = new Model();
+        model.addVertex(0.6f / ndcPerUnit, -5, 0);
+        model.addVertex(0.9f / ndcPerUnit, 0, 0);
+        model.addVertex(0.75f / ndcPerUnit, 5, 0);
+        model.addPolygon(0, 1, 2);
+        model.addPolygon(0, 2, 1);
+        for (int i = 0; i < 3; i++) {
+            Vector3f vertex = new Vector3f(model.vertices.get(i).x, model.vertices.get(i).y, model.vertices.get(i).z);
+            float x = GraphicConveyor.multiplyMatrix4ByVector3(matrix, vertex).get(0);
+            Assertions.assertTrue(x > 0.5f && x < 1, Float.toString(x));
+        }
+
+        RenderEngine renderEngine = new RenderEngine();
+        Assertions.assertFalse(renderEngine.isInFrustum(model.getMeshData(), matrix));
+        renderEngine.setBackFaceCulling(false);
+        renderEngine.setRenderMode(RenderMode.SOLID);
+        renderEngine.transformVertices(model.getMeshData(), matrix, 100, 100);
+        renderEngine.rasterize(model.getMeshData(), 100, 100, new Vector3f(0, 0, 1));
+        Assertions.assertEquals(0, renderEngine.getDrawnPolygonCount());
+    }
+
+    @Test
+    void unchangedFrameIsNotRedrawn() {
+        Model model = createRandomModel(10, 5);
+        Camera camera = new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 1.0F, 1, 0.01F, 100);
+        RenderEngine renderEngine = new RenderEngine();
+
+        Assertions.assertTrue(renderEngine.updateFrameState(null, camera, model, 100, 100));
+        Assertions.assertFalse(renderEngine.updateFrameState(null, camera, model, 100, 100));
+        camera.setAspectRatio(1);
+        Assertions.assertFalse(renderEngine.updateFrameState(null, camera, model, 100, 100));
+
+        camera.movePosition(new Vector3f(0, 0, 1));
+        Assertions.assertTrue(renderEngine.updateFrameState(null, camera, model, 100, 100));
+        model.getMeshData().setVertex(0, 1, 2, 3);
+        Assertions.assertTrue(renderEngine.updateFrameState(null, camera, model, 100, 100));
+        Assertions.assertTrue(renderEngine.updateFrameState(null, camera, model, 100, 101));
+        renderEngine.setRenderMode(RenderMode.SOLID);
+        Assertions.assertTrue(renderEngine.updateFrameState(null, camera, model, 100, 101));
+        model.getTransform().rotate(0, 10, 0);
+        Assertions.assertTrue(renderEngine.updateFrameState(null, camera, model, 100, 101));
+        Assertions.assertTrue(renderEngine.updateFrameState(null, camera, new Model(), 100, 101));
+    }
+
+    @Test
+    void sharedEdgesAreDrawnOnce() {
+        // Куб из шести граней: 12 рёбер, каждое общее у двух граней
+        Model model = new Model();
+        for (int i = 0; i < 8; i++) {
+            model.addVertex((i & 1) == 0 ? -10 : 10, (i & 2) == 0 ? -10 : 10, (i & 4) == 0 ? -10 : 10);
+        }
+        model.addPolygon(0, 2, 3, 1);
+        model.addPolygon(4, 5, 7, 6);
+        model.addPolygon(0, 1, 5, 4);
+        model.addPolygon(2, 6, 7, 3);
+        model.addPolygon(0, 4, 6, 2);
+        model.addPolygon(1, 3, 7, 5);
+        Matrix4f matrix = Matrix4f.mul(GraphicConveyor.perspective(1.0f, 1.0f, 0.01f, 200),
+                GraphicConveyor.lookAt(new Vector3f(30, 40, 50), new Vector3f(0, 0, 0)), new Matrix4f());
+
+        RenderEngine renderEngine = new RenderEngine();
+        renderEngine.setBackFaceCulling(false);
+        renderEngine.transformVertices(model.getMeshData(), matrix, 100, 100);
+        renderEngine.rasterize(model.getMeshData(), 100, 100, new Vector3f(0, 0, 1));
+        Assertions.assertEquals(12, renderEngine.getLineCount());
+
+        // Видны три грани куба и их 9 рёбер
+        renderEngine.setBackFaceCulling(true);
+        renderEngine.rasterize(model.getMeshData(), 100, 100, new Vector3f(0, 0, 1));
+        Assertions.assertEquals(3, renderEngine.getDrawnPolygonCount());
+        Assertions.assertEquals(9, renderEngine.getLineCount());
+    }
+
+    @Test
+    void modelMatrixMatchesBakedTransform() {
+        Model model = createRandomModel(50, 0);
+        model.getTransform().set(new Vector3f(3, -2, 10), new Vector3f(15, -40, 70), new Vector3f(2, 0.5f, 1.5f));
+        model.getTransform().rotate(0, 30, 0);
+        Model baked = AffineTransformation.bakeTransform(model);
+        Assertions.assertTrue(baked.getTransform().isIdentity());
+
+        Matrix4f modelMatrix = GraphicConveyor.rotateScaleTranslate(model.getTransform());
+        for (int i = 0; i < 50; i++) {
+            Vector3f vertex = new Vector3f(model.vertices.get(i).x, model.vertices.get(i).y, model.vertices.get(i).z);
+            Vector3f transformed = GraphicConveyor.multiplyMatrix4ByVector3(modelMatrix, vertex);
+            Assertions.assertEquals(baked.vertices.get(i).x, transformed.get(0), 1e-3);
+            Assertions.assertEquals(baked.vertices.get(i).y, transformed.get(1), 1e-3);
+            Assertions.assertEquals(baked.vertices.get(i).z, transformed.get(2), 1e-3);
+        }
+    }
+}
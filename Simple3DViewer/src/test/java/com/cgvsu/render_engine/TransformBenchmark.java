@@ -0,0 +1,77 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.model.MeshData;
+import io.github.annusshka.Math.Matrix.Matrix4f;
+import io.github.annusshka.Math.Vector.Vector3f;
+import io.github.annusshka.Math.Vector.Vector4f;
+
+/**
+ * Сравнивает перевод вершин в координаты отсечения по одной через Matrix4f.transform(Vector4f, Vector4f)
+ * с пакетным MeshData.transformVertices, которым RenderEngine переводит вершины каждый кадр
+ * (Matrix4f.transformProjective). Не тест, запускается вручную после mvn test-compile, например:
+ * java --add-modules jdk.incubator.vector -cp target/classes:target/test-classes
+ * com.cgvsu.render_engine.TransformBenchmark [число вершин]
+ * Без --add-modules пакетный путь выполняется скалярным циклом, так можно сравнить его и с векторным.
+ * На JDK 17 проверки границ при чтении и записи регистров съедают выигрыш векторного пути; без них
+ * (-Djdk.incubator.vector.VECTOR_ACCESS_OOB_CHECK=0) видна его настоящая скорость.
+ */
+public class TransformBenchmark {
+
+    // Сколько наносекунд каждый вариант прогревается и сколько измеряется
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURE_NANOS = 2_000_000_000L;
+
+    public static void main(String[] args) {
+        final int vertexCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        final Matrix4f matrix = Matrix4f.mul(GraphicConveyor.perspective(1.0F, 16.0F / 9, 0.01F, 100),
+                GraphicConveyor.lookAt(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0)), new Matrix4f());
+
+        final MeshData meshData = new MeshData();
+        final float[] points = new float[3 * vertexCount];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = (float) Math.sin(i) * 10;
+        }
+        for (int i = 0; i < vertexCount; i++) {
+            meshData.addVertex(points[3 * i], points[3 * i + 1], points[3 * i + 2]);
+        }
+        final float[] result = new float[4 * vertexCount];
+
+        final Runnable perVertex = () -> {
+            final Vector4f vertex = new Vector4f();
+            for (int i = 0; i < vertexCount; i++) {
+                vertex.set(points[3 * i], points[3 * i + 1], points[3 * i + 2], 1);
+                matrix.transform(vertex, vertex);
+                result[4 * i] = vertex.get(0);
+                result[4 * i + 1] = vertex.get(1);
+                result[4 * i + 2] = vertex.get(2);
+                result[4 * i + 3] = vertex.get(3);
+            }
+        };
+        final Runnable batch = () -> meshData.transformVertices(matrix, 0, vertexCount, result);
+
+        final double perVertexTime = measure(perVertex);
+        final double batchTime = measure(batch);
+        System.out.printf("Vertices: %d, vector API: %b%n", vertexCount, Matrix4f.isVectorized());
+        System.out.printf("Matrix4f.transform per vertex: %.3f ms%n", perVertexTime);
+        System.out.printf("MeshData.transformVertices:    %.3f ms (x%.2f)%n",
+                batchTime, perVertexTime / batchTime);
+    }
+
+    // Среднее время одного прохода в миллисекундах после прогрева JIT
+    private static double measure(final Runnable pass) {
+        final long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < warmupEnd) {
+            pass.run();
+        }
+        final long start = System.nanoTime();
+        long rounds = 0;
+        long elapsed;
+        do {
+            pass.run();
+            ++rounds;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MEASURE_NANOS);
+        return elapsed / 1e6 / rounds;
+    }
+}
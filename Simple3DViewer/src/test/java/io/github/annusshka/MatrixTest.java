@@ -1,5 +1,6 @@
 package io.github.annusshka;
 
+import io.github.annusshka.Math.Matrix.LUDecomposition;
 import io.github.annusshka.Math.Matrix.Matrix;
 import io.github.annusshka.Math.Matrix.Matrix3f;
 import io.github.annusshka.Math.Matrix.Matrix4f;
@@ -261,5 +262,163 @@ public class MatrixTest {
     }
 
 
-}
+    @Test
+    public void closedFormDeterminantAndInverse() throws Matrix.MatrixException {
+        Matrix3f matrix3x = new Matrix3f(new float[]{2, 5, 7, 6, 3, 4, 5, -2, -3});
+        Assertions.assertEquals(-1, matrix3x.determinant(), 1e-5f);
+        Matrix3f inverse3x = Matrix3f.inverse(matrix3x, new Matrix3f());
+        Assertions.assertTrue(inverse3x.isEqualMatrix(
+                new Matrix3f(new float[]{1, -1, 1, -38, 41, -34, 27, -29, 24})));
+        // Исходная матрица не меняется
+        Assertions.assertArrayEquals(new float[]{2, 5, 7, 6, 3, 4, 5, -2, -3}, matrix3x.getVector());
+
+        Matrix4f matrix4x = new Matrix4f(new float[]{10, 0, 0, 0, 0, 4, 5, 2, 6, 2, 3, 3, 4, 1, 2, 1});
+        Assertions.assertEquals(-50, matrix4x.determinant(), 1e-4f);
+        Matrix4f product = Matrix4f.mul(matrix4x, Matrix4f.inverse(matrix4x, new Matrix4f()), new Matrix4f());
+        for (int index = 0; index < 16; index++) {
+            Assertions.assertEquals(index % 5 == 0 ? 1 : 0, product.get(index), 1e-5f);
+        }
+
+        try {
+            Matrix3f.inverse(new Matrix3f(new float[]{2, 0, 7, 6, 0, 4, 5, 0, -3}), new Matrix3f());
+            Assertions.fail();
+        } catch (Matrix.MatrixException e) {
+            Assertions.assertEquals("Matrix hasn't inverse matrix", e.getMessage());
+        }
+    }
+
+    @Test
+    public void mulIntoDestination() throws Matrix.MatrixException {
+        Matrix3f matrix3x1 = new Matrix3f(new float[]{0, 1, 2, 3, 4, 5, 6, 7, 8});
+        Matrix3f matrix3x2 = new Matrix3f(new float[]{9, 1, 2, 3, 4, 5, 6, 7, 8});
+        // Результат можно записать в один из множителей
+        Matrix3f.mul(matrix3x1, matrix3x2, matrix3x1);
+        Assertions.assertArrayEquals(new float[]{15, 18, 21, 69, 54, 66, 123, 90, 111}, matrix3x1.getVector());
+
+        Matrix4f matrix4x = new Matrix4f(new float[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15});
+        Vector4f vector4f = new Vector4f(new float[]{0, 1, 2, 3});
+        Assertions.assertArrayEquals(new float[]{14, 38, 62, 86}, matrix4x.transform(vector4f, vector4f).getVector());
+    }
+
+    @Test
+    public void transformArrays() {
+        Matrix4f matrix4x = new Matrix4f(new float[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15});
+        // Первая координата пропускается, чтобы проверить смещения
+        float[] points = new float[]{-1, 0, 1, 2, 1, 0, 0};
+
+        float[] result = new float[8];
+        matrix4x.transformProjective(points, 1, result, 0, 2);
+        Assertions.assertArrayEquals(new float[]{8, 24, 40, 56, 3, 11, 19, 27}, result);
 
+        matrix4x.transformDirections(points, 1, result, 1, 2);
+        Assertions.assertArrayEquals(new float[]{8, 5, 17, 29, 0, 4, 8, 27}, result);
+
+        matrix4x.transformPoints(points, 1, points, 1, 2);
+        Assertions.assertArrayEquals(new float[]{-1, 8, 24, 40, 3, 11, 19}, points);
+    }
+
+    @Test
+    public void batchTransformsMatchSingleVectors() {
+        Matrix4f matrix4x = new Matrix4f(new float[]{1, 0.5f, 0, 2, 0, 2, -1, 0, 0.25f, 0, 1, -3, 0, 0, -1, 4});
+        // Количество не кратно ширине векторного регистра, чтобы проверить и скалярный остаток
+        int count = 37;
+        float[] points = new float[3 * count];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = (i * 7 % 13) - 6.5f;
+        }
+
+        float[] transformed = new float[3 * count];
+        float[] projected = new float[3 * count];
+        float[] clipped = new float[4 * count];
+        matrix4x.transformPoints(points, 0, transformed, 0, count);
+        matrix4x.transformPerspective(points, 0, projected, 0, count);
+        matrix4x.transformProjective(points, 0, clipped, 0, count);
+        for (int i = 0; i < count; i++) {
+            Vector4f vector4f = matrix4x.transform(
+                    new Vector4f(new float[]{points[3 * i], points[3 * i + 1], points[3 * i + 2], 1}), new Vector4f());
+            for (int j = 0; j < 3; j++) {
+                Assertions.assertEquals(vector4f.get(j), transformed[3 * i + j], 1e-5f);
+                Assertions.assertEquals(vector4f.get(j) / vector4f.get(3), projected[3 * i + j], 1e-5f);
+            }
+            for (int j = 0; j < 4; j++) {
+                Assertions.assertEquals(vector4f.get(j), clipped[4 * i + j], 1e-5f);
+            }
+        }
+
+        matrix4x.transformPoints(points, 0, points, 0, count);
+        Assertions.assertArrayEquals(transformed, points);
+    }
+
+    @Test
+    public void batchTransformsMatchScalarFormulaExactly() {
+        float[] m = new float[]{1, 0.5f, 0, 2, 0, 2, -1, 0, 0.25f, 0, 1, -3, 0.1f, 0, -1, 4};
+        Matrix4f matrix4x = new Matrix4f(m.clone());
+        int count = 37;
+        float[] points = new float[3 * count];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = (float) Math.sin(i) * 1000;
+        }
+        // Бесконечности и NaN обрабатываются так же, как в скалярном цикле: у аффинного преобразования нет w,
+        // поэтому бесконечная координата не превращается в NaN
+        points[4] = Float.POSITIVE_INFINITY;
+        points[30] = Float.NEGATIVE_INFINITY;
+        points[50] = Float.NaN;
+
+        float[] expectedPoints = new float[3 * count];
+        float[] expectedClipped = new float[4 * count];
+        for (int i = 0; i < count; i++) {
+            float x = points[3 * i], y = points[3 * i + 1], z = points[3 * i + 2];
+            for (int row = 0; row < 4; row++) {
+                float value = m[4 * row] * x + m[4 * row + 1] * y + m[4 * row + 2] * z + m[4 * row + 3];
+                if (row < 3) {
+                    expectedPoints[3 * i + row] = value;
+                }
+                expectedClipped[4 * i + row] = value;
+            }
+        }
+
+        float[] transformed = new float[3 * count];
+        float[] clipped = new float[4 * count];
+        matrix4x.transformPoints(points, 0, transformed, 0, count);
+        matrix4x.transformProjective(points, 0, clipped, 0, count);
+        Assertions.assertArrayEquals(expectedPoints, transformed);
+        Assertions.assertArrayEquals(expectedClipped, clipped);
+        Assertions.assertEquals(Float.POSITIVE_INFINITY, transformed[3]);
+    }
+
+    @Test
+    public void luDecomposition() throws Matrix.MatrixException {
+        float[] values = new float[]{2, 5, 7, 6, 3, 4, 5, -2, -3};
+        Matrix3f matrix3x = new Matrix3f(values.clone());
+        LUDecomposition decomposition = new LUDecomposition(matrix3x);
+        Assertions.assertFalse(decomposition.isSingular());
+        Assertions.assertEquals(-1, decomposition.getDeterminant(), 1e-5f);
+        Assertions.assertArrayEquals(new float[]{1, -1, 1, -38, 41, -34, 27, -29, 24},
+                decomposition.getInverseMatrix().getVector(), 1e-4f);
+        // Исходная матрица не меняется
+        Assertions.assertArrayEquals(values, matrix3x.getVector());
+
+        // Одно разложение для нескольких правых частей
+        LUDecomposition system = new LUDecomposition(new Matrix3f(new float[]{3, 2, -5, 2, -1, 3, 1, 2, -1}));
+        Assertions.assertArrayEquals(new float[]{3, 5, 4},
+                system.solve(new Vector3f(new float[]{-1, 13, 9})).getVector(), 1e-5f);
+        Vector3f vector3f = new Vector3f(new float[]{0, 0, 0});
+        Assertions.assertArrayEquals(new float[]{0, 0, 0}, system.solve(vector3f, vector3f).getVector(), 1e-6f);
+
+        LUDecomposition decomposition4x = new LUDecomposition(
+                new Matrix4f(new float[]{10, 0, 0, 0, 0, 4, 5, 2, 6, 2, 3, 3, 4, 1, 2, 1}));
+        Assertions.assertEquals(-50, decomposition4x.getDeterminant(), 1e-4f);
+        Assertions.assertArrayEquals(new float[]{1, 2, 3, 4},
+                decomposition4x.solve(new Vector4f(new float[]{10, 31, 31, 16})).getVector(), 1e-5f);
+
+        LUDecomposition singular = new LUDecomposition(new Matrix3f(new float[]{2, 0, 7, 6, 0, 4, 5, 0, -3}));
+        Assertions.assertTrue(singular.isSingular());
+        Assertions.assertEquals(0, singular.getDeterminant());
+        try {
+            singular.getInverseMatrix();
+            Assertions.fail();
+        } catch (Matrix.MatrixException e) {
+            Assertions.assertEquals("Matrix hasn't inverse matrix", e.getMessage());
+        }
+    }
+}
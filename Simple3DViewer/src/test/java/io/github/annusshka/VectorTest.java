@@ -174,5 +174,27 @@ public class VectorTest {
         Assertions.assertArrayEquals(vector3d.getVector(), new float[]{18, 12, 6});
     }
 
+    @Test
+    public void typedOperationsDoNotThrow() {
+        Vector3f vector3f = new Vector3f(new float[]{3, 0, 4});
+        Vector3f.normalize(vector3f, vector3f);
+        Assertions.assertArrayEquals(new float[]{0.6f, 0, 0.8f}, vector3f.getVector(), EPS);
+        // Нулевой вектор остаётся нулевым, а не вызывает исключение
+        Assertions.assertArrayEquals(new float[]{0, 0, 0},
+                Vector3f.normalize(new Vector3f(), new Vector3f()).getVector());
+
+        Vector4f vector4f1 = new Vector4f(new float[]{1, 2, 3, 4});
+        Vector4f vector4f2 = new Vector4f(new float[]{4, 3, 2, 1});
+        Assertions.assertArrayEquals(new float[]{5, 5, 5, 5}, Vector4f.add(vector4f1, vector4f2, new Vector4f()).getVector());
+        Assertions.assertEquals(20, Vector4f.dot(vector4f1, vector4f2));
+    }
 
+    @Test
+    public void setRequiresSameSize() throws Vector.VectorException {
+        Vector3f vector3f = new Vector3f();
+        vector3f.set(new Vector3f(new float[]{1, 2, 3}));
+        Assertions.assertArrayEquals(new float[]{1, 2, 3}, vector3f.getVector());
+        Assertions.assertThrows(Vector.VectorException.class, () -> vector3f.set(new Vector2f(new float[]{4, 5})));
+        Assertions.assertArrayEquals(new float[]{1, 2, 3}, vector3f.getVector());
+    }
 }